@@ -1,7 +1,5 @@
 package jomoku;
 
-import java.util.ArrayList;
-
 /**
  * Models the playing board of the game, each of the both players has one.
  *
@@ -11,13 +9,6 @@ import java.util.ArrayList;
  */
 public class Board {
 
-    /**
-     * List of stone positions on the board, on which setting a stone is not
-     * allowed.
-     */
-    private static ArrayList<Stone.Position> blockedStonePositions = new ArrayList<>();
-    private static int numberOfFreeFields;
-    private static boolean numberOfFreeFieldsInitialized = false;
     /**
      * Array the stones are stored in.
      */
@@ -39,10 +30,6 @@ public class Board {
      */
     public Board(Game game, Player player) {
         this.stones = new Stone[game.getNumberOfColumns()][game.getNumberOfRows()];
-        if (!numberOfFreeFieldsInitialized) {
-            numberOfFreeFields += game.getNumberOfColumns() * game.getNumberOfRows();
-            numberOfFreeFieldsInitialized = true;
-        }
         this.game = game;
         this.player = player;
     }
@@ -56,7 +43,6 @@ public class Board {
     public boolean placeStone(Stone.Position position) {
         if (canStoneBePlacedAtPosition(position)) {
             stones[position.getColumn()][position.getRow()] = new Stone(player, position);
-            numberOfFreeFields -= 1;
             return true;
         }
         return false;
@@ -81,38 +67,7 @@ public class Board {
      */
     public boolean canStoneBePlacedAtPosition(Stone.Position position) {
         return position.isInBounds(game.getNumberOfColumns(), game.getNumberOfRows())
-                && !isStonePositionBlocked(position) && !isStoneSetAtPosition(position);
-    }
-
-    /**
-     * Blocks the given position for players to set their stone on.
-     *
-     * @param position Position being blocked.
-     */
-    public static void blockStonePosition(Stone.Position position) {
-        blockedStonePositions.add(position);
-        numberOfFreeFields -= 1;
-    }
-
-    /**
-     * Is the given position blocked for players to place their stone on?
-     *
-     * @param position Position in question.
-     * @return Is the given position blocked for players to place their stone
-     * on?
-     */
-    public static boolean isStonePositionBlocked(Stone.Position position) {
-        return blockedStonePositions.contains(position);
-    }
-
-    /**
-     * Returns the number of fields on the board on which a stone can be placed
-     * on and on which no stone is being placed.
-     *
-     * @return number of free fields
-     */
-    public static int getFreeFields() {
-        return numberOfFreeFields;
+                && !game.isStonePositionBlocked(position) && !isStoneSetAtPosition(position);
     }
 
     /**
@@ -129,7 +84,20 @@ public class Board {
     }
 
     /**
-     * Does the player owning this board win?
+     * Is a stone set at the given field? The field has to lie on the board.
+     *
+     * @param column column number, 0 is the first column
+     * @param row row number, 0 is the first row
+     * @return Is a stone set at the given field?
+     */
+    public boolean isStoneSetAt(int column, int row) {
+        return stones[column][row] != null;
+    }
+
+    /**
+     * Does the player owning this board win with a row of at least the number
+     * of stones to win (freestyle)? Scans the whole board, Game#winner uses
+     * the win rule of the game instead.
      *
      * @return Does the player owning this board win?
      */
@@ -168,7 +136,7 @@ public class Board {
                 stone_row_length = 0;
             }
         }
-        return max_stone_row_length >= game.getNumberOfStonesInARowToWin();
+        return Math.max(max_stone_row_length, stone_row_length) >= game.getNumberOfStonesInARowToWin();
     }
 
     /**
@@ -195,7 +163,7 @@ public class Board {
                     stone_row_length = 0;
                 }
             }
-            if (max_stone_row_length >= game.getNumberOfStonesInARowToWin()) {
+            if (Math.max(max_stone_row_length, stone_row_length) >= game.getNumberOfStonesInARowToWin()) {
                 return true;
             }
         }
@@ -232,7 +200,7 @@ public class Board {
                 }
                 stone_row_length = 0;
             }
-            if (array[rows - start_column - i - 1][start_row + i] != null) {
+            if (array[columns - start_column - i - 1][start_row + i] != null) {
                 stone_row_length2 += 1;
             } else {
                 if (stone_row_length2 > max_stone_row_length2) {
@@ -276,7 +244,7 @@ public class Board {
             for (int j = 0; j < row.length; j++) {
                 if (row[j] != null) {
                     arr[i][j] = 1;
-                } else if (isStonePositionBlocked(new Stone.Position(i, j))) {
+                } else if (game.isStonePositionBlocked(new Stone.Position(i, j))) {
                     arr[i][j] = Integer.MIN_VALUE;
                 } else {
                     arr[i][j] = 0;
@@ -309,38 +277,4 @@ public class Board {
     public Game getGame() {
         return game;
     }
-
-    /**
-     * Resets the number of free fields counter.
-     *
-     * @param game the game the boards are belonging to
-     */
-    public static void resetNumberOfFreeFields(Game game) {
-        numberOfFreeFields += game.getNumberOfColumns() * game.getNumberOfRows();
-    }
-
-    /**
-     * Returns a two dimensional array representing a board part with the
-     * specified size. There's the value true in this matrix where the field is
-     * blocked and false where it isn't.
-     *
-     * @param columns number of columns of the board part
-     * @param rows number of rows of the board part
-     * @return two dimensional array
-     */
-    public static boolean[][] getIsBlockedStoneArray(int columns, int rows) {
-        boolean[][] arr = new boolean[columns][rows];
-        for (int i = 0; i < columns; i++) {
-            for (int j = 0; j < rows; j++) {
-                arr[i][j] = false;
-            }
-        }
-        for (int i = 0; i < blockedStonePositions.size(); i++) {
-            Stone.Position position = blockedStonePositions.get(i);
-            if (position.isInBounds(columns, rows)) {
-                arr[position.getColumn()][position.getRow()] = true;
-            }
-        }
-        return arr;
-    }
 }
@@ -1,6 +1,8 @@
 package jomoku;
 
 import java.awt.Color;
+import java.util.ArrayList;
+import jomoku.jfr.WinCheckEvent;
 
 /**
  * Models the game managing the two players and the board with stones,
@@ -52,6 +54,32 @@ public class Game {
      * Player being able to set stones for the white and the black player.
      */
     private Player joker;
+    /**
+     * Fields on which setting a stone is not allowed.
+     */
+    private boolean[][] blockedFields;
+    /**
+     * Codes of the field types (see FieldType#getCode) by column *
+     * numberOfRows + row, kept up to date with the boards.
+     */
+    private byte[] fieldTypes;
+    /**
+     * Rule deciding which rows win and which moves are allowed.
+     */
+    private WinRule winRule = WinRule.FREESTYLE;
+    /**
+     * Player who completed the first winning row, null if there's none.
+     */
+    private Player winner;
+    /**
+     * Number of fields on which a stone can be placed on and on which no stone
+     * is being placed.
+     */
+    private int numberOfFreeFields;
+    /**
+     * Listeners notified about every placed stone and blocked field.
+     */
+    private ArrayList<GameListener> listeners = new ArrayList<>(1);
 
     /**
      * Constructs a game.
@@ -65,6 +93,9 @@ public class Game {
         this.numberOfColumns = numberOfColums;
         this.numberOfRows = numberOfRows;
         this.numberOfStonesInARowToWin = numberOfStonesInARowToWin;
+        this.blockedFields = new boolean[numberOfColumns][numberOfRows];
+        this.fieldTypes = new byte[numberOfColumns * numberOfRows];
+        this.numberOfFreeFields = numberOfColumns * numberOfRows;
         this.whitePlayer = new Player(this, Player.PlayerType.WHITE);
         this.blackPlayer = new Player(this, Player.PlayerType.BLACK);
         this.whitePlayerBoard = whitePlayer.getBoard();
@@ -72,6 +103,20 @@ public class Game {
         this.joker = new Player(this, Player.PlayerType.BOTH);
     }
 
+    /**
+     * Constructs a game with the given rule.
+     *
+     * @param numberOfColums Number of columns of the board being played on.
+     * @param numberOfRows Number of rows of the board being played on.
+     * @param numberOfStonesInARowToWin Minimum number of stones a player. has
+     * to place in a row to win
+     * @param winRule rule deciding which rows win and which moves are allowed
+     */
+    public Game(int numberOfColums, int numberOfRows, int numberOfStonesInARowToWin, WinRule winRule) {
+        this(numberOfColums, numberOfRows, numberOfStonesInARowToWin);
+        this.winRule = winRule;
+    }
+
     /**
      * Constructs a game.
      *
@@ -82,6 +127,9 @@ public class Game {
         this.numberOfColumns = NUMBER_OF_COLUMNS;
         this.numberOfRows = NUMBER_OF_ROWS;
         this.numberOfStonesInARowToWin = DEFAULT_NUMBER_OF_STONES_IN_A_ROW_TO_WIN;
+        this.blockedFields = new boolean[numberOfColumns][numberOfRows];
+        this.fieldTypes = new byte[numberOfColumns * numberOfRows];
+        this.numberOfFreeFields = numberOfColumns * numberOfRows;
         this.whitePlayer = new Player(this, Player.PlayerType.WHITE);
         this.blackPlayer = new Player(this, Player.PlayerType.BLACK);
         this.whitePlayerBoard = whitePlayer.getBoard();
@@ -95,7 +143,14 @@ public class Game {
      * @param position Position of the stone
      */
     public void blockStonePosition(Stone.Position position) {
-        Board.blockStonePosition(position);
+        if (canStoneBePlacedAtPosition(position)) {
+            blockedFields[position.getColumn()][position.getRow()] = true;
+            setFieldTypeCode(position, FieldType.BLOCKED);
+            numberOfFreeFields -= 1;
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).stonePositionBlocked(position);
+            }
+        }
     }
 
     /**
@@ -105,7 +160,7 @@ public class Game {
      */
     public void blockStonePositions(Stone.Position[] positions) {
         for (Stone.Position position : positions) {
-            Board.blockStonePosition(position);
+            blockStonePosition(position);
         }
     }
 
@@ -121,6 +176,13 @@ public class Game {
                 && whitePlayerBoard.canStoneBePlacedAtPosition(position)) {
             whitePlayerBoard.placeStone(position);
             blackPlayerBoard.placeStone(position);
+            setFieldTypeCode(position, FieldType.JOKER);
+            numberOfFreeFields -= 1;
+            checkForWinner(whitePlayer, position);
+            checkForWinner(blackPlayer, position);
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).jokerStonePlaced(position);
+            }
             return true;
         }
         return false;
@@ -144,16 +206,124 @@ public class Game {
      *
      * @param player the player placing the stone
      * @param position Position of the stone
-     * @return false if the stone can't be set a this position, true otherwise.
+     * @return false if the stone can't be set a this position or the move is
+     * forbidden by the rule, true otherwise.
      */
     public boolean placeStone(Player player, Stone.Position position) {
         Board board = player.isWhite() ? whitePlayerBoard : blackPlayerBoard;
-        if (canStoneBePlacedAtPosition(position)) {
-            return board.placeStone(position);
+        if (canStoneBePlacedAtPosition(position) && !isForbiddenMove(player, position)
+                && board.placeStone(position)) {
+            setFieldTypeCode(position, player.getFieldType());
+            numberOfFreeFields -= 1;
+            checkForWinner(player, position);
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).stonePlaced(player, position);
+            }
+            return true;
         }
         return false;
     }
 
+    /**
+     * Places a stone of a position whose move order is unknown (see
+     * PositionSnapshot#toGame): the rule isn't checked and no winner is
+     * searched, call updateWinner after all stones have been placed.
+     *
+     * @param player the player placing the stone
+     * @param position Position of the stone
+     * @return false if the stone can't be set a this position, true otherwise.
+     */
+    boolean setUpStone(Player player, Stone.Position position) {
+        Board board = player.isWhite() ? whitePlayerBoard : blackPlayerBoard;
+        if (canStoneBePlacedAtPosition(position) && board.placeStone(position)) {
+            setFieldTypeCode(position, player.getFieldType());
+            numberOfFreeFields -= 1;
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).stonePlaced(player, position);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Searches the rows of the whole board for a win, e.g. after a position
+     * has been set up with setUpStone. The black player is checked first.
+     */
+    void updateWinner() {
+        winner = null;
+        for (Player player : new Player[]{blackPlayer, whitePlayer}) {
+            byte code = player.getFieldType().getCode();
+            for (int cell = 0; cell < fieldTypes.length; cell++) {
+                if ((fieldTypes[cell] == code || fieldTypes[cell] == FieldType.JOKER.getCode())
+                        && winRule.isWinningMove(fieldTypes, numberOfColumns, numberOfRows,
+                                numberOfStonesInARowToWin, cell / numberOfRows, cell % numberOfRows,
+                                player.isWhite())) {
+                    winner = player;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Is placing a stone of the given player at the given free position
+     * forbidden by the rule (e.g. a double three of the black player in
+     * Renju)?
+     *
+     * @param player the player placing the stone
+     * @param position Position of the stone
+     * @return Is the move forbidden?
+     */
+    public boolean isForbiddenMove(Player player, Stone.Position position) {
+        return winRule.hasForbiddenMoves(player.isWhite())
+                && position.isInBounds(numberOfColumns, numberOfRows)
+                && Renju.isForbidden(fieldTypes, numberOfColumns, numberOfRows, numberOfStonesInARowToWin,
+                        position.getColumn(), position.getRow());
+    }
+
+    /**
+     * Checks the rows through the placed stone for a win of the given player,
+     * only the first winner is kept.
+     */
+    private void checkForWinner(Player player, Stone.Position position) {
+        WinCheckEvent event = new WinCheckEvent();
+        event.begin();
+        if (winner == null && winRule.isWinningMove(fieldTypes, numberOfColumns, numberOfRows,
+                numberOfStonesInARowToWin, position.getColumn(), position.getRow(), player.isWhite())) {
+            winner = player;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.winner = winner == null ? "" : winner.getType().toString();
+            event.boardSize = numberOfColumns + "x" + numberOfRows;
+            event.commit();
+        }
+    }
+
+    private void setFieldTypeCode(Stone.Position position, FieldType type) {
+        fieldTypes[position.getColumn() * numberOfRows + position.getRow()] = type.getCode();
+    }
+
+    /**
+     * Adds a listener notified about every stone placed and field blocked
+     * from now on.
+     *
+     * @param listener listener
+     */
+    public void addGameListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes the given listener.
+     *
+     * @param listener listener
+     */
+    public void removeGameListener(GameListener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * Can a stone be placed at the given position?
      *
@@ -166,18 +336,50 @@ public class Game {
     }
 
     /**
-     * Checks with player wins.
+     * Is the given position blocked for players to place their stone on?
+     *
+     * @param position Position in question.
+     * @return Is the given position blocked for players to place their stone
+     * on?
+     */
+    public boolean isStonePositionBlocked(Stone.Position position) {
+        return position.isInBounds(numberOfColumns, numberOfRows)
+                && blockedFields[position.getColumn()][position.getRow()];
+    }
+
+    /**
+     * Returns the number of fields on the board on which a stone can be placed
+     * on and on which no stone is being placed.
+     *
+     * @return number of free fields
+     */
+    public int getFreeFields() {
+        return numberOfFreeFields;
+    }
+
+    /**
+     * Returns a two dimensional array representing the board. There's the
+     * value true in this matrix where the field is blocked and false where it
+     * isn't.
+     *
+     * @return two dimensional array
+     */
+    public boolean[][] getIsBlockedStoneArray() {
+        boolean[][] arr = new boolean[numberOfColumns][numberOfRows];
+        for (int i = 0; i < numberOfColumns; i++) {
+            System.arraycopy(blockedFields[i], 0, arr[i], 0, numberOfRows);
+        }
+        return arr;
+    }
+
+    /**
+     * Checks with player wins. The rows are checked by the win rule when a
+     * stone is placed, only through the placed stone.
      *
      * @return the winning player or null if no player wins currently
      */
     public Player winner() {
-        if (whitePlayerBoard.doesPlayerWin()) {
-            return whitePlayer;
-        } else if (blackPlayerBoard.doesPlayerWin()) {
-            return blackPlayer;
-        } else {
-            return null;
-        }
+        return winner;
     }
 
     /**
@@ -186,7 +388,7 @@ public class Game {
      * @return Has the game ended with a drawn?
      */
     public boolean drawn() {
-        return Board.getFreeFields() <= 0;
+        return numberOfFreeFields <= 0;
     }
 
     /**
@@ -196,23 +398,53 @@ public class Game {
      * @return The type of the field at the given position.
      */
     public FieldType getFieldType(Stone.Position position) {
-        if (Board.isStonePositionBlocked(position)) {
-            return FieldType.BLOCKED;
-        } else {
-            Stone black_stone = blackPlayer.getBoard().getStone(position);
-            Stone white_stone = whitePlayer.getBoard().getStone(position);
-            if (black_stone != null) {
-                if (white_stone != null) {
-                    return FieldType.JOKER;
-                } else {
-                    return FieldType.BLACK;
-                }
-            } else if (white_stone != null) {
-                return FieldType.WHITE;
-            } else {
-                return FieldType.FREE;
-            }
+        if (!position.isInBounds(numberOfColumns, numberOfRows)) {
+            return FieldType.FREE;
+        }
+        return getFieldType(position.getColumn(), position.getRow());
+    }
+
+    /**
+     * Returns the type of the field at the given position without creating
+     * objects. The field has to lie on the board.
+     *
+     * @param column column number, 0 is the first column
+     * @param row row number, 0 is the first row
+     * @return The type of the field at the given position.
+     */
+    public FieldType getFieldType(int column, int row) {
+        return FieldType.fromCode(fieldTypeAt(column, row));
+    }
+
+    /**
+     * Returns the code of the type of the field at the given position (see
+     * FieldType#getCode) without creating objects. The field has to lie on
+     * the board.
+     *
+     * @param column column number, 0 is the first column
+     * @param row row number, 0 is the first row
+     * @return code of the type of the field
+     */
+    public byte fieldTypeAt(int column, int row) {
+        if (row < 0 || row >= numberOfRows) {
+            throw new IndexOutOfBoundsException("There's no row " + row + ".");
+        }
+        return fieldTypes[column * numberOfRows + row];
+    }
+
+    /**
+     * Copies the codes of the types of all fields (see FieldType#getCode)
+     * into the given array, indexed by column * rows + row.
+     *
+     * @param dst array to copy into, may be null
+     * @return the given array or a new one if it's null or too small
+     */
+    public byte[] copyFieldTypes(byte[] dst) {
+        if (dst == null || dst.length < fieldTypes.length) {
+            dst = new byte[fieldTypes.length];
         }
+        System.arraycopy(fieldTypes, 0, dst, 0, fieldTypes.length);
+        return dst;
     }
 
     /**
@@ -227,7 +459,7 @@ public class Game {
         boolean[][] arr = new boolean[numberOfColumns][numberOfRows];
         boolean[][] ownBoardArr = self.getBoard().getSimpleStoneArray();
         boolean[][] opponentBoardArr = getOpponent(self).getBoard().getSimpleStoneArray();
-        boolean[][] blockedStonesArr = Board.getIsBlockedStoneArray(numberOfColumns, numberOfRows);
+        boolean[][] blockedStonesArr = blockedFields;
         for (int i = 0; i < numberOfColumns; i++) {
             boolean[] ownRowArr = ownBoardArr[i];
             boolean[] opponentRowArr = opponentBoardArr[i];
@@ -250,58 +482,92 @@ public class Game {
         for (int i = 0; i < arr.length; i++) {
             FieldType[] row = arr[i];
             for (int j = 0; j < row.length; j++) {
-                arr[i][j] = getFieldType(new Stone.Position(i, j));
+                row[j] = FieldType.fromCode(fieldTypes[i * numberOfRows + j]);
             }
         }
         return arr;
     }
 
-    private static String boardStringRep(Game.FieldType[][] array) {
-        int c_str_length = (array.length - 1 + "").length();
-        int r_str_length = array.length >= 1 ? (array[0].length - 1 + "").length() : 0;
-        String retstr = "";
-        //Print column indezes
+    /**
+     * Returns the string representation (or text based visualization) of the
+     * summarized board.
+     *
+     * @return String representation of the summarized board.
+     */
+    public String boardStringRep() {
+        StringBuilder builder = new StringBuilder(getBoardStringRepLength());
+        appendBoardStringRep(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Appends the string representation of the summarized board to the given
+     * builder, without creating other objects.
+     *
+     * @param builder builder the string representation is appended to
+     */
+    public void appendBoardStringRep(StringBuilder builder) {
+        int c_str_length = numberOfDigits(numberOfColumns - 1);
+        int r_str_length = numberOfDigits(numberOfRows - 1);
+        //Print column indezes, one digit per line
         for (int i = 0; i < c_str_length; i++) {
-            retstr += whiteSpace(r_str_length);
-            for (int j = 0; j < array.length; j++) {
-                String str = " ";
-                String j_str = j + "";
-                if (c_str_length - i <= j_str.length()) {
-                    str = j_str.charAt(i - (c_str_length - j_str.length())) + "";
+            appendWhiteSpace(builder, r_str_length);
+            for (int j = 0; j < numberOfColumns; j++) {
+                int digitIndex = i - (c_str_length - numberOfDigits(j));
+                builder.append(" | ");
+                if (digitIndex >= 0) {
+                    builder.append(digit(j, numberOfDigits(j) - 1 - digitIndex));
+                } else {
+                    builder.append(' ');
                 }
-                retstr += " | " + str;
             }
-            retstr += "\n";
+            builder.append('\n');
         }
         //Print rest of table
-        for (int j = 0; j < array[0].length; j++) {
-            String r_str = j + "";
-            retstr += whiteSpace(r_str_length - r_str.length());
-            retstr += r_str;
-            for (int i = 0; i < array.length; i++) {
-                retstr += " | " + array[i][j].toString();
+        for (int j = 0; j < numberOfRows; j++) {
+            appendWhiteSpace(builder, r_str_length - numberOfDigits(j));
+            builder.append(j);
+            for (int i = 0; i < numberOfColumns; i++) {
+                builder.append(" | ").append(getFieldType(i, j).toString());
             }
-            retstr += "\n";
+            builder.append('\n');
         }
-        return retstr;
     }
 
     /**
-     * Returns the string representation (or text based visualization) of the
-     * summarized board.
+     * Returns the length of the string representation of the summarized
+     * board.
      *
-     * @return String representation of the summarized board.
+     * @return number of characters
      */
-    public String boardStringRep() {
-        return boardStringRep(getBoardFieldTypes());
+    public int getBoardStringRepLength() {
+        int lineLength = numberOfDigits(numberOfRows - 1) + numberOfColumns * 4 + 1;
+        return lineLength * (numberOfDigits(numberOfColumns - 1) + numberOfRows);
+    }
+
+    private static int numberOfDigits(int number) {
+        int digits = 1;
+        while (number >= 10) {
+            number /= 10;
+            digits++;
+        }
+        return digits;
     }
 
-    private static String whiteSpace(int length) {
-        String retString = "";
+    /**
+     * Returns the digit of the given number with the given power of ten.
+     */
+    private static char digit(int number, int power) {
+        for (int i = 0; i < power; i++) {
+            number /= 10;
+        }
+        return (char) ('0' + number % 10);
+    }
+
+    private static void appendWhiteSpace(StringBuilder builder, int length) {
         for (int i = 0; i < length; i++) {
-            retString += " ";
+            builder.append(' ');
         }
-        return retString;
     }
 
     /**
@@ -325,6 +591,13 @@ public class Game {
         return numberOfStonesInARowToWin;
     }
 
+    /**
+     * @return the rule deciding which rows win and which moves are allowed
+     */
+    public WinRule getWinRule() {
+        return winRule;
+    }
+
     /**
      * @return the numberOfColumns
      */
@@ -382,29 +655,52 @@ public class Game {
         /**
          * There's a black stone placed on it.
          */
-        BLACK("X", Color.black),
+        BLACK("X", Color.black, 1),
         /**
          * There's a white stone placed on it.
          */
-        WHITE("O", Color.white),
+        WHITE("O", Color.white, 2),
         /**
          * There's a joker stone placed on it.
          */
-        JOKER("+", Color.blue),
+        JOKER("+", Color.blue, 3),
         /**
          * This field is blocked.
          */
-        BLOCKED("#", Color.red),
+        BLOCKED("#", Color.red, 4),
         /**
          * This field is free of stones.
          */
-        FREE(" ", Color.lightGray);
+        FREE(" ", Color.lightGray, 0);
+        private static final FieldType[] BY_CODE = {FREE, BLACK, WHITE, JOKER, BLOCKED};
         private String stringRep;
         private Color color;
+        private byte code;
 
-        private FieldType(String stringRep, Color color) {
+        private FieldType(String stringRep, Color color, int code) {
             this.stringRep = stringRep;
             this.color = color;
+            this.code = (byte) code;
+        }
+
+        /**
+         * Returns the code of the field type, FREE is 0, BLACK 1, WHITE 2,
+         * JOKER 3 and BLOCKED 4.
+         *
+         * @return code of the field type
+         */
+        public byte getCode() {
+            return code;
+        }
+
+        /**
+         * Returns the field type with the given code.
+         *
+         * @param code code of the field type (see getCode)
+         * @return field type
+         */
+        public static FieldType fromCode(int code) {
+            return BY_CODE[code];
         }
 
         /**
@@ -0,0 +1,32 @@
+package jomoku;
+
+/**
+ * Listener notified about every change of the fields of a game.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public interface GameListener {
+
+    /**
+     * Called after a stone of a player has been placed.
+     *
+     * @param player player having placed the stone
+     * @param position position of the stone
+     */
+    void stonePlaced(Player player, Stone.Position position);
+
+    /**
+     * Called after a joker stone has been placed.
+     *
+     * @param position position of the joker stone
+     */
+    void jokerStonePlaced(Stone.Position position);
+
+    /**
+     * Called after a field has been blocked.
+     *
+     * @param position position of the blocked field
+     */
+    void stonePositionBlocked(Stone.Position position);
+}
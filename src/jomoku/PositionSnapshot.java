@@ -0,0 +1,329 @@
+package jomoku;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the fields of a board. Changing a field creates a new
+ * snapshot sharing almost all memory with the old one, so many versions of a
+ * position (e.g. one per move of a game or per searched line) can be kept
+ * cheaply.
+ *
+ * The field types are stored with four bits per field in longs of 16 fields
+ * (indexed by column * rows + row). The longs are the leafs of a trie with 16
+ * children per node, the lowest nodes are long arrays, the higher nodes
+ * object arrays. Changing a field copies only the nodes on the path to its
+ * long (path copying), i.e. one node per trie level, about 250 bytes on a
+ * 19x19 board. All empty nodes of an empty board are shared.
+ *
+ * The snapshot maintains a Zobrist hash incrementally, it's the position key
+ * of the game database (see jomoku.record.GameDatabase#getPositionKey). The
+ * board size, the stones in a row to win and the win rule are part of the
+ * hash.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public final class PositionSnapshot {
+
+    /**
+     * Codes of the field types (see Game.FieldType#getCode), they are used
+     * by the position keys too.
+     */
+    private static final int FREE = 0, BLACK = 1, WHITE = 2, JOKER = 3, BLOCKED = 4;
+    private static final int BITS_PER_FIELD = 4;
+    private static final int FIELDS_PER_LEAF = 64 / BITS_PER_FIELD;
+    private static final int FANOUT_BITS = 4;
+    private static final int FANOUT = 1 << FANOUT_BITS;
+    private final int columns;
+    private final int rows;
+    private final int stonesInARowToWin;
+    private final WinRule winRule;
+    /**
+     * Number of trie levels above the leafs, at least 1.
+     */
+    private final int levels;
+    /**
+     * Root node, a long array if there's only one level.
+     */
+    private final Object root;
+    private final long hash;
+    private final int numberOfStones;
+
+    private PositionSnapshot(int columns, int rows, int stonesInARowToWin, WinRule winRule, int levels,
+            Object root, long hash, int numberOfStones) {
+        this.columns = columns;
+        this.rows = rows;
+        this.stonesInARowToWin = stonesInARowToWin;
+        this.winRule = winRule;
+        this.levels = levels;
+        this.root = root;
+        this.hash = hash;
+        this.numberOfStones = numberOfStones;
+    }
+
+    /**
+     * Creates the snapshot of an empty board.
+     *
+     * @param columns number of columns
+     * @param rows number of rows
+     * @param stonesInARowToWin minimum number of stones in a row to win
+     * @return snapshot without stones or blocked fields
+     */
+    public static PositionSnapshot empty(int columns, int rows, int stonesInARowToWin) {
+        return empty(columns, rows, stonesInARowToWin, WinRule.FREESTYLE);
+    }
+
+    /**
+     * Creates the snapshot of an empty board of a game with the given rule.
+     *
+     * @param columns number of columns
+     * @param rows number of rows
+     * @param stonesInARowToWin minimum number of stones in a row to win
+     * @param winRule rule deciding which rows win and which moves are allowed
+     * @return snapshot without stones or blocked fields
+     */
+    public static PositionSnapshot empty(int columns, int rows, int stonesInARowToWin, WinRule winRule) {
+        if (columns <= 0 || rows <= 0 || columns > 0xffff || rows > 0xffff) {
+            throw new IllegalArgumentException("Unsupported board size " + columns + "x" + rows + ".");
+        }
+        int leafs = (columns * rows + FIELDS_PER_LEAF - 1) / FIELDS_PER_LEAF;
+        int levels = 1;
+        while (1L << (FANOUT_BITS * levels) < leafs) {
+            levels++;
+        }
+        Object node = new long[FANOUT];
+        for (int level = 1; level < levels; level++) {
+            Object[] parent = new Object[FANOUT];
+            for (int i = 0; i < FANOUT; i++) {
+                parent[i] = node;
+            }
+            node = parent;
+        }
+        long hash = Zobrist.key(columns << 16 | rows, 16 + stonesInARowToWin) ^ Zobrist.ruleKey(winRule);
+        return new PositionSnapshot(columns, rows, stonesInARowToWin, winRule, levels, node, hash, 0);
+    }
+
+    /**
+     * Creates the snapshot of the current position of the given game.
+     *
+     * @param game given game
+     * @return snapshot of its fields
+     */
+    public static PositionSnapshot of(Game game) {
+        PositionSnapshot snapshot = empty(game.getNumberOfColumns(), game.getNumberOfRows(),
+                game.getNumberOfStonesInARowToWin(), game.getWinRule());
+        byte[] fieldTypes = game.copyFieldTypes(null);
+        for (int cell = 0; cell < fieldTypes.length; cell++) {
+            if (fieldTypes[cell] != FREE) {
+                snapshot = snapshot.with(cell / snapshot.rows, cell % snapshot.rows,
+                        Game.FieldType.fromCode(fieldTypes[cell]));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the type of the given field.
+     *
+     * @param column column of the field
+     * @param row row of the field
+     * @return type of the field
+     */
+    public Game.FieldType getFieldType(int column, int row) {
+        return Game.FieldType.fromCode(getTypeCode(cellIndex(column, row)));
+    }
+
+    private int getTypeCode(int cell) {
+        int leaf = cell / FIELDS_PER_LEAF;
+        Object node = root;
+        for (int level = levels - 1; level > 0; level--) {
+            node = ((Object[]) node)[(leaf >>> (FANOUT_BITS * level)) & (FANOUT - 1)];
+        }
+        long word = ((long[]) node)[leaf & (FANOUT - 1)];
+        return (int) (word >>> ((cell % FIELDS_PER_LEAF) * BITS_PER_FIELD)) & 0xf;
+    }
+
+    /**
+     * Returns the snapshot with the given field changed, this snapshot isn't
+     * changed.
+     *
+     * @param column column of the field
+     * @param row row of the field
+     * @param type new type of the field
+     * @return the new snapshot or this one if the field has the type already
+     */
+    public PositionSnapshot with(int column, int row, Game.FieldType type) {
+        int cell = cellIndex(column, row);
+        int oldCode = getTypeCode(cell);
+        int newCode = type.getCode();
+        if (oldCode == newCode) {
+            return this;
+        }
+        int leaf = cell / FIELDS_PER_LEAF;
+        int shift = (cell % FIELDS_PER_LEAF) * BITS_PER_FIELD;
+        Object newRoot = with(root, levels - 1, leaf, shift, newCode);
+        long newHash = hash ^ Zobrist.key(cell, oldCode) ^ Zobrist.key(cell, newCode);
+        int stones = numberOfStones + (isStone(newCode) ? 1 : 0) - (isStone(oldCode) ? 1 : 0);
+        return new PositionSnapshot(columns, rows, stonesInARowToWin, winRule, levels, newRoot, newHash, stones);
+    }
+
+    /**
+     * Copies the path to the given leaf, changing the field in the copied
+     * leaf.
+     */
+    private static Object with(Object node, int level, int leaf, int shift, long code) {
+        int index = (leaf >>> (FANOUT_BITS * level)) & (FANOUT - 1);
+        if (level == 0) {
+            long[] words = ((long[]) node).clone();
+            words[index] = (words[index] & ~(0xfL << shift)) | (code << shift);
+            return words;
+        }
+        Object[] children = ((Object[]) node).clone();
+        children[index] = with(children[index], level - 1, leaf, shift, code);
+        return children;
+    }
+
+    /**
+     * Returns the snapshot with a stone of the given player placed.
+     *
+     * @param player player placing the stone (the joker places joker stones)
+     * @param column column of the stone
+     * @param row row of the stone
+     * @return the new snapshot
+     */
+    public PositionSnapshot place(Player player, int column, int row) {
+        return with(column, row,
+                player.getType() == Player.PlayerType.BOTH ? Game.FieldType.JOKER : player.getFieldType());
+    }
+
+    /**
+     * Creates a game with the fields and the rule of this snapshot. The
+     * players' stones are placed in column order without checking the rule,
+     * so the game knows nothing about the order of the moves, its winner is
+     * searched on the whole board afterwards.
+     *
+     * @return new game
+     */
+    public Game toGame() {
+        Game game = new Game(columns, rows, stonesInARowToWin, winRule);
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                Stone.Position position = new Stone.Position(i, j);
+                switch (getTypeCode(i * rows + j)) {
+                    case BLACK:
+                        game.setUpStone(game.getBlackPlayer(), position);
+                        break;
+                    case WHITE:
+                        game.setUpStone(game.getWhitePlayer(), position);
+                        break;
+                    case JOKER:
+                        game.placeJokerStone(position);
+                        break;
+                    case BLOCKED:
+                        game.blockStonePosition(position);
+                        break;
+                    default:
+                }
+            }
+        }
+        game.updateWinner();
+        return game;
+    }
+
+    private int cellIndex(int column, int row) {
+        if (column < 0 || row < 0 || column >= columns || row >= rows) {
+            throw new IndexOutOfBoundsException("There's no field " + column + "x" + row + ".");
+        }
+        return column * rows + row;
+    }
+
+    private static boolean isStone(int code) {
+        return code == BLACK || code == WHITE || code == JOKER;
+    }
+
+    /**
+     * Returns the Zobrist hash of the position, it's equal to the position
+     * key of a game with the same fields in the game database.
+     *
+     * @return hash
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return number of black, white and joker stones
+     */
+    public int getNumberOfStones() {
+        return numberOfStones;
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int getNumberOfColumns() {
+        return columns;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int getNumberOfRows() {
+        return rows;
+    }
+
+    /**
+     * @return minimum number of stones in a row to win
+     */
+    public int getNumberOfStonesInARowToWin() {
+        return stonesInARowToWin;
+    }
+
+    /**
+     * @return rule deciding which rows win and which moves are allowed
+     */
+    public WinRule getWinRule() {
+        return winRule;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Two snapshots are equal if they have the same board size, stones in a
+     * row to win, rule and fields. Shared nodes aren't compared.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PositionSnapshot)) {
+            return false;
+        }
+        PositionSnapshot other = (PositionSnapshot) obj;
+        return hash == other.hash && columns == other.columns && rows == other.rows
+                && stonesInARowToWin == other.stonesInARowToWin && winRule == other.winRule
+                && numberOfStones == other.numberOfStones
+                && nodesEqual(root, other.root, levels - 1);
+    }
+
+    private static boolean nodesEqual(Object a, Object b, int level) {
+        if (a == b) {
+            return true;
+        }
+        if (level == 0) {
+            return Arrays.equals((long[]) a, (long[]) b);
+        }
+        Object[] aChildren = (Object[]) a;
+        Object[] bChildren = (Object[]) b;
+        for (int i = 0; i < FANOUT; i++) {
+            if (!nodesEqual(aChildren[i], bChildren[i], level - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
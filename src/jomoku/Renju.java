@@ -0,0 +1,168 @@
+package jomoku;
+
+/**
+ * Detection of the moves forbidden for the black player by the Renju rules:
+ * overlines (more stones in a row than needed to win), double fours and
+ * double threes. A move completing a row of exactly the number of stones to
+ * win is never forbidden.
+ *
+ * Only the four lines through the examined field are looked at. Each line is
+ * read once into two bit masks (own stones and free fields) of the fields
+ * around the examined field, the patterns are then found with bit operations,
+ * so the test can be run for every move the engine considers.
+ *
+ * A three is a row which becomes an open (straight) four by one more stone, a
+ * four a row which becomes a row to win by one more stone. Unlike the full
+ * Renju rules, the stone making the straight four isn't checked for being
+ * forbidden itself.
+ *
+ * The fields are given as field type codes (see Game.FieldType#getCode) by
+ * column * rows + row, joker stones count as black stones.
+ *
+ * @see http://en.wikipedia.org/wiki/Renju
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public final class Renju {
+
+    private static final byte FREE = 0, BLACK = 1, JOKER = 3;
+    /**
+     * Maximum number of stones to win, the line masks have to fit into a
+     * long.
+     */
+    public static final int MAX_STONES_IN_A_ROW_TO_WIN = 31;
+    private static final int NUMBER_OF_DIRECTIONS = 4;
+    private static final int[] COLUMN_STEPS = {1, 0, 1, 1};
+    private static final int[] ROW_STEPS = {0, 1, 1, -1};
+
+    private Renju() {
+    }
+
+    /**
+     * Is placing a black stone on the given free field forbidden?
+     *
+     * @param cells field type codes by column * rows + row
+     * @param columns number of columns
+     * @param rows number of rows
+     * @param stonesInARowToWin number of stones in a row to win
+     * @param column column of the field
+     * @param row row of the field
+     * @return Is the move forbidden?
+     */
+    public static boolean isForbidden(byte[] cells, int columns, int rows, int stonesInARowToWin,
+            int column, int row) {
+        if (stonesInARowToWin > MAX_STONES_IN_A_ROW_TO_WIN || stonesInARowToWin < 3) {
+            return false;
+        }
+        int radius = stonesInARowToWin;
+        int center = radius;
+        boolean overline = false;
+        int fours = 0;
+        int threes = 0;
+        for (int direction = 0; direction < NUMBER_OF_DIRECTIONS; direction++) {
+            long own = 1L << center;
+            long free = 0;
+            for (int i = -radius; i <= radius; i++) {
+                int c = column + i * COLUMN_STEPS[direction];
+                int r = row + i * ROW_STEPS[direction];
+                if (i == 0 || c < 0 || r < 0 || c >= columns || r >= rows) {
+                    continue;
+                }
+                byte code = cells[c * rows + r];
+                if (code == BLACK || code == JOKER) {
+                    own |= 1L << (i + radius);
+                } else if (code == FREE) {
+                    free |= 1L << (i + radius);
+                }
+            }
+            int length = runEnd(own, center) - runStart(own, center) + 1;
+            if (length == stonesInARowToWin) {
+                return false;
+            }
+            if (length > stonesInARowToWin) {
+                overline = true;
+                continue;
+            }
+            int lineFours = countFours(own, free, center, stonesInARowToWin);
+            if (lineFours > 0) {
+                fours += lineFours;
+            } else if (isThree(own, free, center, stonesInARowToWin)) {
+                threes++;
+            }
+        }
+        return overline || fours >= 2 || threes >= 2;
+    }
+
+    /**
+     * Returns the free fields completing a row of exactly the number of
+     * stones to win through the center.
+     */
+    private static long completions(long own, long free, int center, int stonesInARowToWin) {
+        long result = 0;
+        long candidates = free;
+        while (candidates != 0) {
+            int bit = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            long withStone = own | (1L << bit);
+            int start = runStart(withStone, center);
+            int end = runEnd(withStone, center);
+            if (end - start + 1 == stonesInARowToWin && bit >= start && bit <= end) {
+                result |= 1L << bit;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the fours through the center, an open four (two completions
+     * at both ends of the same row) is one four.
+     */
+    private static int countFours(long own, long free, int center, int stonesInARowToWin) {
+        long completions = completions(own, free, center, stonesInARowToWin);
+        int count = Long.bitCount(completions);
+        if (count == 2 && isStraightFour(completions, stonesInARowToWin)) {
+            return 1;
+        }
+        return Math.min(count, 2);
+    }
+
+    /**
+     * Are the two completions the ends of one row (an open four)?
+     */
+    private static boolean isStraightFour(long completions, int stonesInARowToWin) {
+        int first = Long.numberOfTrailingZeros(completions);
+        int last = 63 - Long.numberOfLeadingZeros(completions);
+        return last - first == stonesInARowToWin;
+    }
+
+    /**
+     * Can a stone on a free field make a straight four through the center?
+     */
+    private static boolean isThree(long own, long free, int center, int stonesInARowToWin) {
+        long candidates = free;
+        while (candidates != 0) {
+            int bit = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            long withStone = own | (1L << bit);
+            long completions = completions(withStone, free & ~(1L << bit), center, stonesInARowToWin);
+            if (Long.bitCount(completions) == 2 && isStraightFour(completions, stonesInARowToWin)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int runStart(long mask, int bit) {
+        while (bit > 0 && ((mask >>> (bit - 1)) & 1) != 0) {
+            bit--;
+        }
+        return bit;
+    }
+
+    private static int runEnd(long mask, int bit) {
+        while (bit < 63 && ((mask >>> (bit + 1)) & 1) != 0) {
+            bit++;
+        }
+        return bit;
+    }
+}
@@ -1,7 +1,5 @@
 package jomoku;
 
-import sun.net.www.content.audio.x_aiff;
-
 /**
  * Models a black or white stone of this game.
  *
@@ -95,7 +93,7 @@ public class Stone {
          * @return Does this point lays in the given boundaries?
          */
         public boolean isInBounds(int numberOfColumns, int numberOfRows) {
-            return column < numberOfColumns && row < numberOfRows;
+            return column >= 0 && row >= 0 && column < numberOfColumns && row < numberOfRows;
         }
 
         @Override
@@ -143,6 +141,20 @@ public class Stone {
             return Math.sqrt(Math.pow(column - this.column, 2) + Math.pow(row - this.row, 2));
         }
 
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Stone.Position)) {
+                return false;
+            }
+            Stone.Position other = (Stone.Position) obj;
+            return column == other.column && row == other.row;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * column + row;
+        }
+
         @Override
         public Stone.Position clone() {
             return new Stone.Position(column, row);
@@ -0,0 +1,142 @@
+package jomoku;
+
+import java.util.Locale;
+
+/**
+ * Rule deciding which rows of stones win and which moves are allowed.
+ *
+ * The rows are checked move-locally: only the four lines through the last
+ * placed stone are scanned, on the field type codes of the game (see
+ * Game.FieldType#getCode).
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public enum WinRule {
+
+    /**
+     * A row of at least the number of stones to win wins, every free field
+     * may be played.
+     */
+    FREESTYLE,
+    /**
+     * Only a row of exactly the number of stones to win wins, overlines don't.
+     */
+    EXACT,
+    /**
+     * Caro: a row of at least the number of stones to win wins unless both of
+     * its ends are blocked by opponent stones or blocked fields. The border
+     * of the board doesn't block a row.
+     */
+    CARO,
+    /**
+     * Renju: the black player wins only with exactly the number of stones to
+     * win in a row and mustn't play overlines, double threes or double fours
+     * (see Renju). The white player wins with rows of at least the number of
+     * stones to win.
+     *
+     * @see http://en.wikipedia.org/wiki/Renju
+     */
+    RENJU;
+
+    private static final byte FREE = 0, BLACK = 1, WHITE = 2, JOKER = 3;
+    private static final int[] COLUMN_STEPS = {1, 0, 1, 1};
+    private static final int[] ROW_STEPS = {0, 1, 1, -1};
+
+    /**
+     * Is a row with the given length and ends a win for the given player?
+     *
+     * @param length length of the row
+     * @param blockedEnds number of ends blocked by opponent stones or
+     * blocked fields (0, 1 or 2)
+     * @param stonesInARowToWin number of stones in a row to win
+     * @param white Is it a row of the white player?
+     * @return Is the row a win?
+     */
+    public boolean isWinningRow(int length, int blockedEnds, int stonesInARowToWin, boolean white) {
+        switch (this) {
+            case EXACT:
+                return length == stonesInARowToWin;
+            case CARO:
+                return length >= stonesInARowToWin && blockedEnds < 2;
+            case RENJU:
+                return white ? length >= stonesInARowToWin : length == stonesInARowToWin;
+            default:
+                return length >= stonesInARowToWin;
+        }
+    }
+
+    /**
+     * Does a stone of the given player on the given field complete a winning
+     * row? Only the four lines through the field are scanned, the field
+     * counts as a stone of the player whatever its code is. Joker stones
+     * count for both players.
+     *
+     * @param cells field type codes by column * rows + row
+     * @param columns number of columns
+     * @param rows number of rows
+     * @param stonesInARowToWin number of stones in a row to win
+     * @param column column of the field
+     * @param row row of the field
+     * @param white Is it the white player?
+     * @return Does the stone win?
+     */
+    public boolean isWinningMove(byte[] cells, int columns, int rows, int stonesInARowToWin,
+            int column, int row, boolean white) {
+        byte own = white ? WHITE : BLACK;
+        for (int direction = 0; direction < COLUMN_STEPS.length; direction++) {
+            int length = 1;
+            int blockedEnds = 0;
+            for (int sign = -1; sign <= 1; sign += 2) {
+                int columnStep = sign * COLUMN_STEPS[direction];
+                int rowStep = sign * ROW_STEPS[direction];
+                int c = column + columnStep;
+                int r = row + rowStep;
+                while (c >= 0 && r >= 0 && c < columns && r < rows
+                        && (cells[c * rows + r] == own || cells[c * rows + r] == JOKER)) {
+                    length++;
+                    c += columnStep;
+                    r += rowStep;
+                }
+                if (c >= 0 && r >= 0 && c < columns && r < rows && cells[c * rows + r] != FREE) {
+                    blockedEnds++;
+                }
+            }
+            if (isWinningRow(length, blockedEnds, stonesInARowToWin, white)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Has the player to check its moves for forbidden patterns?
+     *
+     * @param white Is it the white player?
+     * @return Can moves of the player be forbidden?
+     */
+    public boolean hasForbiddenMoves(boolean white) {
+        return this == RENJU && !white;
+    }
+
+    /**
+     * Can a row of the given player be too long to win?
+     *
+     * @param white Is it the white player?
+     * @return Don't overlines win?
+     */
+    public boolean isExact(boolean white) {
+        return this == EXACT || (this == RENJU && !white);
+    }
+
+    /**
+     * Returns the rule with the given name, ignoring the case.
+     *
+     * @param name name of the rule, e.g. "caro"
+     * @return rule
+     * @throws IllegalArgumentException if there's no rule with this name
+     */
+    public static WinRule fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
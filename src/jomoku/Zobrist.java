@@ -0,0 +1,57 @@
+package jomoku;
+
+/**
+ * Zobrist keys of board fields, used to hash positions incrementally: the
+ * hash of a position is the xor of the keys of all its fields, so placing or
+ * removing a stone changes the hash by xoring two keys.
+ *
+ * The keys are derived from the field index and type by a fixed mixing
+ * function instead of a random table, so they are the same for every board
+ * size and every run of the program (hashes can be stored on disk).
+ *
+ * @see http://en.wikipedia.org/wiki/Zobrist_hashing
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class Zobrist {
+
+    /**
+     * Key xored into the hash of a position when it's not the turn of the
+     * player the hash was computed for.
+     */
+    public static final long SIDE_KEY = key(Integer.MAX_VALUE, 1);
+
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a field.
+     *
+     * @param cellIndex index of the field on the board
+     * @param type type of the field, 0 for an empty field (which has the key
+     * 0)
+     * @return key of the field
+     */
+    public static long key(int cellIndex, int type) {
+        if (type == 0) {
+            return 0;
+        }
+        long z = ((long) cellIndex << 8 | (type & 0xff)) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the key xored into the hash of a position of a game with the
+     * given rule, so positions of different rules have different hashes. It's
+     * 0 for freestyle, so stored hashes of freestyle positions (e.g. in a game
+     * database) stay valid.
+     *
+     * @param winRule rule of the game
+     * @return key of the rule
+     */
+    public static long ruleKey(WinRule winRule) {
+        return key(Integer.MAX_VALUE - 1, winRule.ordinal());
+    }
+}
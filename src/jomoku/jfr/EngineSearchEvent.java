@@ -0,0 +1,40 @@
+package jomoku.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the examination of the next position by an
+ * automatic player.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+@Name("jomoku.EngineSearch")
+@Label("Engine Search")
+@Description("An automatic player has examined its next position")
+@Category({"Jomoku", "Engine"})
+@StackTrace(false)
+public class EngineSearchEvent extends jdk.jfr.Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Depth")
+    @Description("Completed search depth in plies, 0 if the field with the highest score has been chosen")
+    public int depth;
+
+    @Label("Nodes")
+    @Description("Number of positions visited by the search")
+    public long nodes;
+
+    @Label("Move")
+    public String move;
+
+    @Label("Score")
+    @Description("Search value or field score of the chosen move")
+    public double score;
+}
@@ -0,0 +1,37 @@
+package jomoku.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the time from requesting a move of a player
+ * to receiving it, i.e. the latency of the player.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+@Name("jomoku.MoveReceived")
+@Label("Move Received")
+@Description("A player has sent the position of its next stone, the duration is the time the player took")
+@Category({"Jomoku", "Game"})
+@StackTrace(false)
+public class MoveReceivedEvent extends jdk.jfr.Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Move Number")
+    @Description("Number of moves played before in the game")
+    public int moveNumber;
+
+    @Label("Position")
+    @Description("Position of the stone, empty if the move failed")
+    public String position;
+
+    @Label("Failure")
+    @Description("Reason why no position has been received (e.g. a timeout), empty otherwise")
+    public String failure;
+}
@@ -0,0 +1,28 @@
+package jomoku.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event emitted when a player is asked for a move.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+@Name("jomoku.MoveRequested")
+@Label("Move Requested")
+@Description("A player has been asked for the position of its next stone")
+@Category({"Jomoku", "Game"})
+@StackTrace(false)
+public class MoveRequestedEvent extends jdk.jfr.Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Move Number")
+    @Description("Number of moves played before in the game")
+    public int moveNumber;
+}
@@ -0,0 +1,26 @@
+package jomoku.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the check of the rows through a placed
+ * stone for a win (see Game#placeStone).
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+@Name("jomoku.WinCheck")
+@Label("Win Check")
+@Category({"Jomoku", "Game"})
+@StackTrace(false)
+public class WinCheckEvent extends jdk.jfr.Event {
+
+    @Label("Winner")
+    public String winner;
+
+    @Label("Board Size")
+    public String boardSize;
+}
@@ -49,6 +49,7 @@ public class BoardMatrix {
      */
     public double[][] calculateMatrix() {
         matrix = calculateMatrix(boardArr, opponentBoardArr);
+        EngineMetrics.getGlobal().addCellsRescored((long) columns * rows);
         return matrix;
     }
 
@@ -60,6 +61,7 @@ public class BoardMatrix {
      */
     public double[][] calculateMatrix(double randomness) {
         matrix = calculateMatrix(boardArr, opponentBoardArr, randomness);
+        EngineMetrics.getGlobal().addCellsRescored((long) columns * rows);
         return matrix;
     }
 
@@ -0,0 +1,333 @@
+package jomoku.opponent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Immutable settings of an opponent engine: the search limits, the resources
+ * and the evaluation constants. Two configurations can be played against each
+ * other to test a change (see jomoku.ui.analysis.MatchRunner).
+ *
+ * Configurations are written as name=value pairs separated by commas, e.g.
+ * "searchDepth=2,opponentFactor=1.2", or as properties file with the same
+ * names (see read), unnamed settings keep their values. The setting weights
+ * names a weights file (see EvaluationWeights), the setting network a network
+ * file evaluating the searched positions instead of the field scores (see
+ * Network, the -writeNetwork console argument writes a starting network).
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public final class EngineConfig {
+
+    /**
+     * Default configuration, playing the field with the highest score.
+     */
+    public static final EngineConfig DEFAULT = new EngineConfig(0, 0, Search.DEFAULT_WIDTH, 1.0, 0.01,
+            EvaluationWeights.DEFAULT);
+    private int searchDepth;
+    private long searchTime;
+    private int searchWidth;
+    private int threads;
+    private int hashSize;
+    private int candidateRadius;
+    private double opponentFactor;
+    private double middleBonusFactor;
+    private EvaluationWeights weights;
+    private Network network;
+
+    /**
+     * Constructs a configuration, the number of threads, the hash size and
+     * the candidate radius have their default values.
+     *
+     * @param searchDepth search depth in plies, 0 plays the field with the
+     * highest score
+     * @param searchTime time limit of a search in milliseconds, 0 means no
+     * limit
+     * @param searchWidth number of moves searched per position
+     * @param opponentFactor weight of the opponent's rows in a field score
+     * @param middleBonusFactor bonus of the fields near the center
+     * @param weights weights of the row scores
+     */
+    public EngineConfig(int searchDepth, long searchTime, int searchWidth, double opponentFactor,
+            double middleBonusFactor, EvaluationWeights weights) {
+        this.searchDepth = searchDepth;
+        this.searchTime = searchTime;
+        this.searchWidth = searchWidth;
+        this.threads = 0;
+        this.hashSize = Search.DEFAULT_TABLE_SIZE;
+        this.candidateRadius = 0;
+        this.opponentFactor = opponentFactor;
+        this.middleBonusFactor = middleBonusFactor;
+        this.weights = weights;
+        checkLimits();
+    }
+
+    private EngineConfig(EngineConfig config) {
+        this.searchDepth = config.searchDepth;
+        this.searchTime = config.searchTime;
+        this.searchWidth = config.searchWidth;
+        this.threads = config.threads;
+        this.hashSize = config.hashSize;
+        this.candidateRadius = config.candidateRadius;
+        this.opponentFactor = config.opponentFactor;
+        this.middleBonusFactor = config.middleBonusFactor;
+        this.weights = config.weights;
+        this.network = config.network;
+    }
+
+    private void checkLimits() {
+        if (searchDepth < 0 || searchTime < 0 || searchWidth <= 0 || threads < 0 || hashSize <= 0
+                || candidateRadius < 0) {
+            throw new IllegalArgumentException("The search depth, time, threads and candidate radius mustn't be "
+                    + "negative, the search width and the hash size must be positive.");
+        }
+    }
+
+    /**
+     * Returns the configuration with the given setting changed.
+     *
+     * @param name name of the setting, e.g. "opponentFactor"
+     * @param value new value
+     * @return new configuration
+     * @throws IllegalArgumentException the setting doesn't exist or the value
+     * has the wrong format
+     */
+    public EngineConfig with(String name, String value) {
+        EngineConfig config = new EngineConfig(this);
+        try {
+            switch (name) {
+                case "searchDepth":
+                    config.searchDepth = Integer.parseInt(value);
+                    break;
+                case "searchTime":
+                    config.searchTime = Long.parseLong(value);
+                    break;
+                case "searchWidth":
+                    config.searchWidth = Integer.parseInt(value);
+                    break;
+                case "threads":
+                    config.threads = Integer.parseInt(value);
+                    break;
+                case "hashSize":
+                    config.hashSize = Integer.parseInt(value);
+                    break;
+                case "candidateRadius":
+                    config.candidateRadius = Integer.parseInt(value);
+                    break;
+                case "opponentFactor":
+                    config.opponentFactor = Double.parseDouble(value);
+                    break;
+                case "middleBonusFactor":
+                    config.middleBonusFactor = Double.parseDouble(value);
+                    break;
+                case "weights":
+                    config.weights = EvaluationWeights.read(Paths.get(value));
+                    break;
+                case "network":
+                    config.network = value.isEmpty() ? null : Network.read(Paths.get(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("There's no engine setting \"" + name + "\".");
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("The value of the engine setting " + name + " has the wrong format.",
+                    ex);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Can't read the " + name + " file " + value + ": " + ex.getMessage(),
+                    ex);
+        }
+        config.checkLimits();
+        return config;
+    }
+
+    /**
+     * Returns the configuration with the given weights.
+     *
+     * @param weights weights of the row scores
+     * @return new configuration
+     */
+    public EngineConfig withWeights(EvaluationWeights weights) {
+        EngineConfig config = new EngineConfig(this);
+        config.weights = weights;
+        return config;
+    }
+
+    /**
+     * Returns the configuration with the settings of the given string
+     * changed.
+     *
+     * @param settings name=value pairs separated by commas, may be empty
+     * @return new configuration
+     * @throws IllegalArgumentException a setting doesn't exist or has the
+     * wrong format
+     */
+    public EngineConfig with(String settings) {
+        return with(parseSettings(settings));
+    }
+
+    /**
+     * Returns the configuration with the given settings changed.
+     *
+     * @param settings values by setting name, applied in iteration order
+     * @return new configuration
+     * @throws IllegalArgumentException a setting doesn't exist or has the
+     * wrong format
+     */
+    public EngineConfig with(Map<String, String> settings) {
+        EngineConfig config = this;
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            config = config.with(setting.getKey(), setting.getValue());
+        }
+        return config;
+    }
+
+    /**
+     * Parses name=value pairs separated by commas.
+     *
+     * @param settings name=value pairs, may be empty
+     * @return values by setting name, in the given order
+     * @throws IllegalArgumentException a pair has the wrong format
+     */
+    public static Map<String, String> parseSettings(String settings) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (String setting : settings.split(",")) {
+            setting = setting.trim();
+            if (setting.isEmpty()) {
+                continue;
+            }
+            int equalsIndex = setting.indexOf('=');
+            if (equalsIndex == -1) {
+                throw new IllegalArgumentException("Expected \"[name]=[value]\" but got \"" + setting + "\".");
+            }
+            map.put(setting.substring(0, equalsIndex).trim(), setting.substring(equalsIndex + 1).trim());
+        }
+        return map;
+    }
+
+    /**
+     * Returns the configuration with the settings of the given properties
+     * file changed. Relative weights and network files are resolved against
+     * the directory of the properties file.
+     *
+     * @param file properties file with the setting names as keys
+     * @return new configuration
+     * @throws IOException the file can't be read
+     * @throws IllegalArgumentException a setting doesn't exist or has the
+     * wrong format
+     */
+    public EngineConfig read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        EngineConfig config = this;
+        for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+            String value = properties.getProperty(name).trim();
+            if ((name.equals("weights") || name.equals("network")) && !value.isEmpty() && file.getParent() != null) {
+                value = file.getParent().resolve(value).toString();
+            }
+            config = config.with(name, value);
+        }
+        return config;
+    }
+
+    /**
+     * @return search depth in plies, 0 plays the field with the highest score
+     */
+    public int getSearchDepth() {
+        return searchDepth;
+    }
+
+    /**
+     * @return time limit of a search in milliseconds, 0 means no limit
+     */
+    public long getSearchTime() {
+        return searchTime;
+    }
+
+    /**
+     * @return number of moves searched per position
+     */
+    public int getSearchWidth() {
+        return searchWidth;
+    }
+
+    /**
+     * Returns the number of threads of the multi-threaded tasks (analysis,
+     * matches and tuning) whose own thread option is 0.
+     *
+     * @return number of threads, 0 means one per processor
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return number of transposition table entries of a search, rounded
+     * down to a power of two
+     */
+    public int getHashSize() {
+        return hashSize;
+    }
+
+    /**
+     * @return maximum distance (in columns or rows) of the searched moves to
+     * the nearest stone, 0 means no limit
+     */
+    public int getCandidateRadius() {
+        return candidateRadius;
+    }
+
+    /**
+     * @return weight of the opponent's rows in a field score
+     */
+    public double getOpponentFactor() {
+        return opponentFactor;
+    }
+
+    /**
+     * @return bonus of the fields near the center
+     */
+    public double getMiddleBonusFactor() {
+        return middleBonusFactor;
+    }
+
+    /**
+     * @return weights of the row scores
+     */
+    public EvaluationWeights getWeights() {
+        return weights;
+    }
+
+    /**
+     * @return network evaluating the searched positions, null if they're
+     * evaluated by the field scores
+     */
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Returns the settings in the format accepted by with(String), the
+     * weights and the network only if they have been read from a file.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "searchDepth=%d,searchTime=%d,searchWidth=%d,threads=%d,hashSize=%d,candidateRadius=%d,"
+                + "opponentFactor=%s,middleBonusFactor=%s",
+                searchDepth, searchTime, searchWidth, threads, hashSize, candidateRadius, opponentFactor,
+                middleBonusFactor)
+                + (weights == EvaluationWeights.DEFAULT ? "" : ",weights=" + weights)
+                + (network == null ? "" : ",network=" + network);
+    }
+}
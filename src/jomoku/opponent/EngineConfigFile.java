@@ -0,0 +1,98 @@
+package jomoku.opponent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Engine configuration read from a properties file (see EngineConfig#read),
+ * which is read again when the file has been modified. The configuration is
+ * only checked for modifications when asked for, e.g. before a new game, so
+ * a game is played with the same configuration from start to end.
+ *
+ * The settings of the file are applied to a base configuration and can be
+ * overridden, e.g. by console arguments.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class EngineConfigFile {
+
+    private final Path file;
+    private final EngineConfig base;
+    private final Map<String, String> overrides;
+    private FileTime lastModified;
+    private EngineConfig config;
+    private long reloads;
+
+    /**
+     * Constructs the configuration and reads the file.
+     *
+     * @param file properties file
+     * @param base configuration the settings of the file are applied to
+     * @param overrides values by setting name (see EngineConfig#with(String,
+     * String)) applied after the settings of the file
+     * @throws IOException the file can't be read
+     * @throws IllegalArgumentException a setting doesn't exist or has the
+     * wrong format
+     */
+    public EngineConfigFile(Path file, EngineConfig base, Map<String, String> overrides) throws IOException {
+        this.file = file;
+        this.base = base;
+        this.overrides = new LinkedHashMap<>(overrides);
+        load();
+    }
+
+    private void load() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        config = base.read(file).with(overrides);
+        lastModified = modified;
+    }
+
+    /**
+     * Reads the file again if it has been modified since it has been read
+     * last. The previous configuration is kept if reading fails.
+     *
+     * @return Has the configuration been read again?
+     * @throws IOException the file can't be read
+     * @throws IllegalArgumentException a setting doesn't exist or has the
+     * wrong format
+     */
+    public synchronized boolean reloadIfModified() throws IOException {
+        if (Files.getLastModifiedTime(file).equals(lastModified)) {
+            return false;
+        }
+        try {
+            load();
+        } finally {
+            //Don't retry a broken file until it's modified again
+            lastModified = Files.getLastModifiedTime(file);
+        }
+        reloads++;
+        return true;
+    }
+
+    /**
+     * @return the configuration read last
+     */
+    public synchronized EngineConfig get() {
+        return config;
+    }
+
+    /**
+     * @return number of times the file has been read again
+     */
+    public synchronized long getNumberOfReloads() {
+        return reloads;
+    }
+
+    /**
+     * @return the properties file
+     */
+    public Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,214 @@
+package jomoku.opponent;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies of the opponent engines, shared by all threads.
+ *
+ * The counters are striped (LongAdder), so searches on several threads don't
+ * contend. The engines and searches count in plain fields and add their
+ * counts when a search or move is finished, so the hot paths (row and field
+ * recalculations) don't touch shared memory.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class EngineMetrics {
+
+    private static final EngineMetrics GLOBAL = new EngineMetrics();
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder tableProbes = new LongAdder();
+    private final LongAdder tableHits = new LongAdder();
+    private final LongAdder rowRecalculations = new LongAdder();
+    private final LongAdder cellsRescored = new LongAdder();
+    private final LongAdder patternCacheHits = new LongAdder();
+    private final LongAdder patternCacheMisses = new LongAdder();
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+
+    /**
+     * @return the metrics all engines count in
+     */
+    public static EngineMetrics getGlobal() {
+        return GLOBAL;
+    }
+
+    /**
+     * Adds a finished search.
+     *
+     * @param nodes number of visited positions
+     * @param nanos duration in nanoseconds
+     * @param probes number of transposition table probes
+     * @param hits number of probes finding an entry
+     */
+    void addSearch(long nodes, long nanos, long probes, long hits) {
+        searches.increment();
+        this.nodes.add(nodes);
+        searchNanos.add(nanos);
+        tableProbes.add(probes);
+        tableHits.add(hits);
+    }
+
+    /**
+     * Adds the recalculations counted by an engine.
+     *
+     * @param rows number of recalculated row scores
+     * @param cells number of recalculated field scores
+     */
+    void addRecalculations(long rows, long cells) {
+        rowRecalculations.add(rows);
+        cellsRescored.add(cells);
+    }
+
+    /**
+     * Adds the line pattern cache lookups counted by an engine (see
+     * LinePatternCache).
+     *
+     * @param hits number of row scores found in the cache
+     * @param misses number of row scores calculated and stored
+     */
+    void addPatternCacheLookups(long hits, long misses) {
+        patternCacheHits.add(hits);
+        patternCacheMisses.add(misses);
+    }
+
+    /**
+     * Adds rescored cells.
+     *
+     * @param cells number of cells
+     */
+    void addCellsRescored(long cells) {
+        cellsRescored.add(cells);
+    }
+
+    /**
+     * Records the time an automatic player took for a move.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void recordMoveLatency(long nanos) {
+        moveLatency.record(nanos);
+    }
+
+    /**
+     * @return number of finished searches
+     */
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    /**
+     * @return number of positions visited by the finished searches
+     */
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    /**
+     * @return visited positions per second of search time
+     */
+    public double getNodesPerSecond() {
+        long nanos = searchNanos.sum();
+        return nanos == 0 ? 0 : nodes.sum() * 1e9 / nanos;
+    }
+
+    /**
+     * @return fraction of the transposition table probes finding an entry
+     */
+    public double getTableHitRate() {
+        long probes = tableProbes.sum();
+        return probes == 0 ? 0 : (double) tableHits.sum() / probes;
+    }
+
+    /**
+     * @return number of recalculated row scores
+     */
+    public long getRowRecalculations() {
+        return rowRecalculations.sum();
+    }
+
+    /**
+     * @return number of recalculated field scores
+     */
+    public long getCellsRescored() {
+        return cellsRescored.sum();
+    }
+
+    /**
+     * @return number of line pattern cache lookups
+     */
+    public long getPatternCacheLookups() {
+        return patternCacheHits.sum() + patternCacheMisses.sum();
+    }
+
+    /**
+     * @return fraction of the line pattern cache lookups finding the scores
+     */
+    public double getPatternCacheHitRate() {
+        long hits = patternCacheHits.sum();
+        long lookups = hits + patternCacheMisses.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return histogram of the move latencies in nanoseconds
+     */
+    public LatencyHistogram getMoveLatency() {
+        return moveLatency;
+    }
+
+    /**
+     * Resets all counters, counts added concurrently may be lost.
+     */
+    public void reset() {
+        searches.reset();
+        nodes.reset();
+        searchNanos.reset();
+        tableProbes.reset();
+        tableHits.reset();
+        rowRecalculations.reset();
+        cellsRescored.reset();
+        patternCacheHits.reset();
+        patternCacheMisses.reset();
+        moveLatency.reset();
+    }
+
+    /**
+     * Returns a text snapshot of the metrics, one "name value" pair per line.
+     * The counters are read one after another, so counts added meanwhile may
+     * be included partially.
+     *
+     * @return text snapshot
+     */
+    public String snapshot() {
+        StringBuilder builder = new StringBuilder(512);
+        builder.append("searches ").append(getSearches()).append('\n');
+        builder.append("nodes ").append(getNodes()).append('\n');
+        builder.append("nodes_per_second ").append(String.format(Locale.ROOT, "%.0f", getNodesPerSecond()))
+                .append('\n');
+        builder.append("tt_hit_rate ").append(String.format(Locale.ROOT, "%.4f", getTableHitRate())).append('\n');
+        builder.append("row_recalculations ").append(getRowRecalculations()).append('\n');
+        builder.append("cells_rescored ").append(getCellsRescored()).append('\n');
+        builder.append("pattern_cache_lookups ").append(getPatternCacheLookups()).append('\n');
+        builder.append("pattern_cache_hit_rate ")
+                .append(String.format(Locale.ROOT, "%.4f", getPatternCacheHitRate())).append('\n');
+        builder.append("moves ").append(moveLatency.getCount()).append('\n');
+        builder.append("move_latency_mean_us ")
+                .append(String.format(Locale.ROOT, "%.1f", moveLatency.getMean() / 1000)).append('\n');
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            builder.append("move_latency_").append(PERCENTILE_NAMES[i]).append("_us ")
+                    .append(moveLatency.getValueAtPercentile(PERCENTILES[i]) / 1000).append('\n');
+        }
+        builder.append("move_latency_max_us ").append(moveLatency.getMax() / 1000).append('\n');
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return snapshot();
+    }
+}
@@ -0,0 +1,160 @@
+package jomoku.opponent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Immutable weights of the row scores of the engine evaluation (see
+ * ScoringTable): the score of a run of stones next to a field and the score of
+ * the space (stones and free fields) next to it, by length. Lengths without a
+ * weight use the hand-made defaults 2^length and 1.1^length.
+ *
+ * Weights files are properties files with the keys run.[length] and
+ * space.[length], e.g. written by jomoku.ui.analysis.TexelTuner.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public final class EvaluationWeights {
+
+    /**
+     * Hand-made weights.
+     */
+    public static final EvaluationWeights DEFAULT = new EvaluationWeights(new double[0], new double[0], "default");
+    private static final String RUN_KEY = "run.";
+    private static final String SPACE_KEY = "space.";
+    private final double[] runScores;
+    private final double[] spaceScores;
+    private final String source;
+
+    /**
+     * Constructs weights.
+     *
+     * @param runScores scores of the runs by length, longer runs use the
+     * defaults
+     * @param spaceScores scores of the spaces by length, longer spaces use the
+     * defaults
+     * @param source description of the origin of the weights, e.g. the file
+     * name
+     */
+    public EvaluationWeights(double[] runScores, double[] spaceScores, String source) {
+        this.runScores = runScores.clone();
+        this.spaceScores = spaceScores.clone();
+        this.source = source;
+    }
+
+    /**
+     * Creates weights from a feature weight vector of the engine (see
+     * OpponentEngine#extractFeatures).
+     *
+     * @param featureWeights run weights followed by space weights, both for
+     * the lengths 0 to 2 * stonesInARowToWin - 2
+     * @param source description of the origin of the weights
+     * @return weights
+     */
+    public static EvaluationWeights fromFeatureWeights(double[] featureWeights, String source) {
+        int lengths = featureWeights.length / 2;
+        return new EvaluationWeights(Arrays.copyOfRange(featureWeights, 0, lengths),
+                Arrays.copyOfRange(featureWeights, lengths, 2 * lengths), source);
+    }
+
+    /**
+     * Returns these weights as feature weight vector of the engine (see
+     * OpponentEngine#extractFeatures).
+     *
+     * @param stonesInARowToWin number of stones in a row to win
+     * @return run weights followed by space weights
+     */
+    public double[] toFeatureWeights(int stonesInARowToWin) {
+        int lengths = OpponentEngine.getNumberOfFeatures(stonesInARowToWin) / 2;
+        double[] featureWeights = new double[2 * lengths];
+        for (int length = 0; length < lengths; length++) {
+            featureWeights[length] = getRunScore(length);
+            featureWeights[lengths + length] = getSpaceScore(length);
+        }
+        return featureWeights;
+    }
+
+    /**
+     * Reads weights from a properties file.
+     *
+     * @param file weights file
+     * @return weights
+     * @throws IOException the file can't be read
+     * @throws IllegalArgumentException a weight has the wrong format
+     */
+    public static EvaluationWeights read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return new EvaluationWeights(readScores(properties, RUN_KEY), readScores(properties, SPACE_KEY),
+                file.toString());
+    }
+
+    private static double[] readScores(Properties properties, String key) {
+        int length = 0;
+        while (properties.getProperty(key + length) != null) {
+            length++;
+        }
+        double[] scores = new double[length];
+        for (int i = 0; i < length; i++) {
+            try {
+                scores[i] = Double.parseDouble(properties.getProperty(key + i).trim());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("The weight " + key + i + " has the wrong format.", ex);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Writes the weights for the given number of stones in a row to win to a
+     * properties file.
+     *
+     * @param file weights file, replaced if it exists
+     * @param stonesInARowToWin number of stones in a row to win
+     * @throws IOException the file can't be written
+     */
+    public void write(Path file, int stonesInARowToWin) throws IOException {
+        Properties properties = new Properties();
+        double[] featureWeights = toFeatureWeights(stonesInARowToWin);
+        int lengths = featureWeights.length / 2;
+        for (int length = 0; length < lengths; length++) {
+            properties.setProperty(RUN_KEY + length, Double.toString(featureWeights[length]));
+            properties.setProperty(SPACE_KEY + length, Double.toString(featureWeights[lengths + length]));
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "Jomoku evaluation weights (" + stonesInARowToWin + " stones in a row to win)");
+        }
+    }
+
+    /**
+     * @param length number of stones next to the field without gaps
+     * @return score of the run
+     */
+    public double getRunScore(int length) {
+        return length < runScores.length ? runScores[length] : Math.pow(2, length);
+    }
+
+    /**
+     * @param length number of stones and free fields next to the field
+     * @return score of the space
+     */
+    public double getSpaceScore(int length) {
+        return length < spaceScores.length ? spaceScores[length] : Math.pow(1.1, length);
+    }
+
+    /**
+     * Returns the origin of the weights, e.g. the file name.
+     */
+    @Override
+    public String toString() {
+        return source;
+    }
+}
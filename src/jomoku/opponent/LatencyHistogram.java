@@ -0,0 +1,126 @@
+package jomoku.opponent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with a bounded relative error (like an
+ * HdrHistogram). Values below 32 have their own buckets, larger values are
+ * put into 16 buckets per power of two, so a bucket covers at most 1/16 of
+ * its values. The buckets are counted in an atomic array, recording a value
+ * doesn't allocate and doesn't block.
+ *
+ * @see http://hdrhistogram.org
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+    /**
+     * Number of buckets covering all positive long values.
+     */
+    private static final int NUMBER_OF_BUCKETS = (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS + 2 * HALF_SUB_BUCKETS;
+    private final AtomicLongArray counts = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records the given value, negative values are recorded as 0.
+     *
+     * @param value value, e.g. a duration in nanoseconds
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < 2 * HALF_SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest value counted in the given bucket.
+     */
+    private static long bucketMaximum(int index) {
+        if (index < 2 * HALF_SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long subBucket = index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of the
+     * recorded values lie, with the precision of the buckets.
+     *
+     * @param percentile percentage between 0 and 100
+     * @return value or 0 if no values have been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketMaximum(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return mean of the recorded values, 0 if there are none
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @return highest recorded value
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Removes all recorded values, values recorded concurrently may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+}
@@ -0,0 +1,294 @@
+package jomoku.opponent;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Scores of rows (see ScoringTable) by their line pattern, shared by all
+ * engines of the JVM scoring rows the same way. The same few patterns recur in
+ * nearly every position, so most row recalculations become a lookup.
+ *
+ * A pattern packs the field types of a row into a long, 3 bits per field
+ * (field type - BLOCKED_FIELD, the first field in the lowest bits), so rows of
+ * up to 21 fields (10 stones in a row to win) are cached. Every cache is a
+ * fixed size array of immutable entries indexed by a hash of the pattern: the
+ * lookups don't lock and an entry is replaced by the next pattern with the
+ * same index, so the size stays bounded.
+ *
+ * The caches can be warmed with patterns read from a text file, one row per
+ * line, a character per field: '#' blocked, '.' free, 'o' opponent stone, 'j'
+ * joker stone, 'x' own stone, e.g. "..xx.xo.." (the middle field must be
+ * free). The caches created later are filled with the patterns of their row
+ * length. writePatterns writes the patterns of all caches in this format.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public final class LinePatternCache {
+
+    /**
+     * Default number of entries of a cache.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    /**
+     * Maximum number of fields of a cached row.
+     */
+    public static final int MAX_ROW_LENGTH = 21;
+    private static final int BITS_PER_FIELD = 3;
+    /**
+     * Characters of the field types in pattern files by field type -
+     * BLOCKED_FIELD.
+     */
+    private static final String FIELD_CHARACTERS = "#.ojx";
+    /**
+     * Caches by their own and opponent scoring table.
+     */
+    private static final ConcurrentHashMap<List<ScoringTable>, LinePatternCache> CACHES
+            = new ConcurrentHashMap<>();
+    private static volatile int capacity = DEFAULT_CAPACITY;
+    private static volatile List<int[]> warmUpRows = Collections.emptyList();
+    private final int rowLength;
+    private final AtomicReferenceArray<Entry> entries;
+    private final int shift;
+
+    private LinePatternCache(ScoringTable ownTable, ScoringTable opponentTable, int size) {
+        this.rowLength = ownTable.getRowLength();
+        int length = Integer.highestOneBit(Math.max(size, 16));
+        this.entries = new AtomicReferenceArray<>(length);
+        this.shift = 64 - Integer.numberOfTrailingZeros(length);
+        for (int[] stones : warmUpRows) {
+            if (stones.length == rowLength) {
+                long pattern = encode(stones);
+                put(pattern, ownTable.scoreRow(stones, OpponentEngine.OWN_FIELD),
+                        opponentTable.scoreRow(stones, OpponentEngine.OPPONENT_FIELD));
+            }
+        }
+    }
+
+    /**
+     * Returns the shared cache of the rows scored by the given tables.
+     *
+     * @param ownTable table of the engine's player
+     * @param opponentTable table of the opponent
+     * @return cache, null if caching is disabled or the rows are too long
+     */
+    static LinePatternCache get(final ScoringTable ownTable, final ScoringTable opponentTable) {
+        final int size = capacity;
+        if (size == 0 || ownTable.getRowLength() > MAX_ROW_LENGTH) {
+            return null;
+        }
+        return CACHES.computeIfAbsent(Arrays.asList(ownTable, opponentTable),
+                new Function<List<ScoringTable>, LinePatternCache>() {
+                    @Override
+                    public LinePatternCache apply(List<ScoringTable> tables) {
+                        return new LinePatternCache(ownTable, opponentTable, size);
+                    }
+                });
+    }
+
+    /**
+     * Packs the field types of a row into a pattern.
+     *
+     * @param stones field types (e.g. OpponentEngine.OWN_FIELD)
+     * @return pattern
+     */
+    static long encode(int[] stones) {
+        long pattern = 0;
+        for (int i = stones.length - 1; i >= 0; i--) {
+            pattern = (pattern << BITS_PER_FIELD) | (stones[i] - OpponentEngine.BLOCKED_FIELD);
+        }
+        return pattern;
+    }
+
+    /**
+     * Returns the change of the pattern of a row if the type of a field
+     * changes.
+     *
+     * @param index index of the field in the row
+     * @param oldType previous field type
+     * @param newType new field type
+     * @return difference of the patterns
+     */
+    static long getPatternChange(int index, int oldType, int newType) {
+        return (long) (newType - oldType) << (index * BITS_PER_FIELD);
+    }
+
+    private int getIndex(long pattern) {
+        return (int) ((pattern * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * Returns the entry of the given pattern.
+     *
+     * @param pattern pattern of the row
+     * @return entry, null if the pattern isn't cached
+     */
+    Entry get(long pattern) {
+        Entry entry = entries.get(getIndex(pattern));
+        return entry != null && entry.pattern == pattern ? entry : null;
+    }
+
+    /**
+     * Stores the scores of a pattern, replacing the entry of another pattern
+     * with the same index.
+     *
+     * @param pattern pattern of the row
+     * @param ownScore score of the row for the engine's player
+     * @param opponentScore score of the row for the opponent
+     */
+    void put(long pattern, double ownScore, double opponentScore) {
+        entries.lazySet(getIndex(pattern), new Entry(pattern, ownScore, opponentScore));
+    }
+
+    /**
+     * Sets the number of entries of the caches created from now on and
+     * removes the existing caches.
+     *
+     * @param entries number of entries, rounded down to a power of two, 0
+     * disables caching
+     * @throws IllegalArgumentException the number is negative
+     */
+    public static void setCapacity(int entries) {
+        if (entries < 0) {
+            throw new IllegalArgumentException("The pattern cache size mustn't be negative.");
+        }
+        capacity = entries;
+        clearAll();
+    }
+
+    /**
+     * Removes all caches, e.g. after the weights have been changed. Engines
+     * keep the cache they've been initialized with.
+     */
+    public static void clearAll() {
+        CACHES.clear();
+    }
+
+    /**
+     * Reads the patterns the caches created from now on are filled with.
+     *
+     * @param file pattern file
+     * @return number of patterns read
+     * @throws IOException the file can't be read or a line isn't a row with a
+     * free field in the middle
+     */
+    public static int readWarmUpPatterns(Path file) throws IOException {
+        List<int[]> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int[] stones = parseRow(line);
+                if (stones == null) {
+                    throw new IOException("Line " + lineNumber + " of the pattern file isn't a row with an odd "
+                            + "number of at most " + MAX_ROW_LENGTH + " fields and a free field in the middle.");
+                }
+                rows.add(stones);
+            }
+        }
+        warmUpRows = Collections.unmodifiableList(rows);
+        clearAll();
+        return rows.size();
+    }
+
+    private static int[] parseRow(String line) {
+        if (line.length() % 2 == 0 || line.length() > MAX_ROW_LENGTH
+                || FIELD_CHARACTERS.indexOf(line.charAt(line.length() / 2))
+                != OpponentEngine.FREE_FIELD - OpponentEngine.BLOCKED_FIELD) {
+            return null;
+        }
+        int[] stones = new int[line.length()];
+        for (int i = 0; i < stones.length; i++) {
+            int code = FIELD_CHARACTERS.indexOf(line.charAt(i));
+            if (code == -1) {
+                return null;
+            }
+            stones[i] = code + OpponentEngine.BLOCKED_FIELD;
+        }
+        return stones;
+    }
+
+    /**
+     * Writes the patterns of all caches, one row per line (see
+     * readWarmUpPatterns).
+     *
+     * @param out writer the patterns are written to, not closed
+     * @return number of written patterns
+     * @throws IOException writing failed
+     */
+    public static int writePatterns(Writer out) throws IOException {
+        Set<String> rows = new LinkedHashSet<>();
+        for (LinePatternCache cache : CACHES.values()) {
+            for (int i = 0; i < cache.entries.length(); i++) {
+                Entry entry = cache.entries.get(i);
+                if (entry != null) {
+                    rows.add(cache.toRow(entry.pattern));
+                }
+            }
+        }
+        BufferedWriter writer = new BufferedWriter(out);
+        for (String row : rows) {
+            writer.write(row);
+            writer.newLine();
+        }
+        writer.flush();
+        return rows.size();
+    }
+
+    private String toRow(long pattern) {
+        StringBuilder builder = new StringBuilder(rowLength);
+        for (int i = 0; i < rowLength; i++, pattern >>>= BITS_PER_FIELD) {
+            builder.append(FIELD_CHARACTERS.charAt((int) (pattern & 7)));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Scores of a pattern.
+     */
+    static final class Entry {
+
+        private final long pattern;
+        private final double ownScore;
+        private final double opponentScore;
+
+        private Entry(long pattern, double ownScore, double opponentScore) {
+            this.pattern = pattern;
+            this.ownScore = ownScore;
+            this.opponentScore = opponentScore;
+        }
+
+        /**
+         * @return score of the row for the engine's player
+         */
+        double getOwnScore() {
+            return ownScore;
+        }
+
+        /**
+         * @return score of the row for the opponent
+         */
+        double getOpponentScore() {
+            return opponentScore;
+        }
+    }
+}
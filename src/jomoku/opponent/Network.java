@@ -0,0 +1,256 @@
+package jomoku.opponent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Immutable weights of a small quantized network evaluating positions, an
+ * alternative to the field score evaluation (see NetworkAccumulator).
+ *
+ * The inputs are the line patterns of the board: every window of
+ * windowLength fields in a row, column or diagonal without blocked fields is
+ * one active feature, identified by its pattern (4 states per field: free,
+ * own stone, opponent stone, joker stone). The features are summed into a
+ * hidden layer twice, once seen by the player to move and once seen by the
+ * opponent (stones swapped). The clipped hidden values (0 to
+ * ACTIVATION_LIMIT) of both halves are combined by the output weights:
+ * <pre>
+ * evaluation = (outputBias + sum(clip(us[h]) * outputWeights[h])
+ *              + sum(clip(them[h]) * outputWeights[hiddenSize + h])) / outputDivisor
+ * </pre> All weights are 16 bit integers, the sums are 32 bit integers.
+ *
+ * The file format (big endian):
+ * <pre>
+ * [magic int] [format version int] [window length int] [hidden size int]
+ * [output divisor int] [output bias int]
+ * [feature weight short]... (4^windowLength * hiddenSize, by pattern and hidden index)
+ * [hidden bias short]... (hiddenSize)
+ * [output weight short]... (2 * hiddenSize)
+ * </pre> The pattern of a window is the sum of state * 4^i over its fields
+ * i, the state of a free field is 0, of an own stone 1, of an opponent stone
+ * 2 and of a joker stone 3.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public final class Network {
+
+    /**
+     * Magic number at the beginning of a network file ("JNN" + 0).
+     */
+    public static final int MAGIC = 0x4A4E4E00;
+    /**
+     * Version of the format.
+     */
+    public static final int FORMAT_VERSION = 1;
+    /**
+     * Maximum value of a hidden value after clipping.
+     */
+    public static final int ACTIVATION_LIMIT = 255;
+    /**
+     * Maximum window length, the feature weights of longer windows would be
+     * too large.
+     */
+    public static final int MAX_WINDOW_LENGTH = 8;
+    static final int FREE_STATE = 0, OWN_STATE = 1, OPPONENT_STATE = 2, JOKER_STATE = 3;
+    private final int windowLength;
+    private final int hiddenSize;
+    private final int outputDivisor;
+    private final int outputBias;
+    private final short[] featureWeights;
+    private final short[] hiddenBias;
+    private final short[] outputWeights;
+    private final String source;
+
+    /**
+     * Constructs a network.
+     *
+     * @param windowLength number of fields of a window
+     * @param hiddenSize number of hidden values per side
+     * @param featureWeights weights by pattern * hiddenSize + hidden index
+     * @param hiddenBias initial hidden values
+     * @param outputWeights weights of the clipped hidden values, the ones of
+     * the player to move first
+     * @param outputBias output bias
+     * @param outputDivisor divisor of the output
+     * @param source description of the origin of the network, e.g. the file
+     * name
+     * @throws IllegalArgumentException the sizes don't match
+     */
+    public Network(int windowLength, int hiddenSize, short[] featureWeights, short[] hiddenBias,
+            short[] outputWeights, int outputBias, int outputDivisor, String source) {
+        if (windowLength < 1 || windowLength > MAX_WINDOW_LENGTH || hiddenSize < 1 || outputDivisor == 0
+                || featureWeights.length != (1 << (2 * windowLength)) * hiddenSize
+                || hiddenBias.length != hiddenSize || outputWeights.length != 2 * hiddenSize) {
+            throw new IllegalArgumentException("The sizes of the network weights don't match.");
+        }
+        this.windowLength = windowLength;
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights.clone();
+        this.hiddenBias = hiddenBias.clone();
+        this.outputWeights = outputWeights.clone();
+        this.outputBias = outputBias;
+        this.outputDivisor = outputDivisor;
+        this.source = source;
+    }
+
+    /**
+     * Creates a network counting the windows which contain only stones of one
+     * player (and jokers), hidden value i counts the windows with i + 1
+     * stones. The output weights 4^stones, positive for the player to move
+     * and negative for the opponent, resemble the field score evaluation. A
+     * starting point for trained networks.
+     *
+     * @param windowLength number of fields of a window, e.g. the number of
+     * stones in a row to win
+     * @return network
+     */
+    public static Network createWindowCounter(int windowLength) {
+        int patterns = 1 << (2 * windowLength);
+        short[] featureWeights = new short[patterns * windowLength];
+        for (int pattern = 0; pattern < patterns; pattern++) {
+            int stones = 0;
+            boolean opponent = false;
+            for (int i = 0, rest = pattern; i < windowLength; i++, rest >>= 2) {
+                int state = rest & 3;
+                opponent |= state == OPPONENT_STATE;
+                stones += state == OWN_STATE || state == JOKER_STATE ? 1 : 0;
+            }
+            if (!opponent && stones > 0) {
+                featureWeights[pattern * windowLength + stones - 1] = 1;
+            }
+        }
+        short[] outputWeights = new short[2 * windowLength];
+        for (int i = 0; i < windowLength; i++) {
+            int weight = (int) Math.min(Short.MAX_VALUE, Math.pow(4, i + 1));
+            outputWeights[i] = (short) weight;
+            outputWeights[windowLength + i] = (short) -weight;
+        }
+        return new Network(windowLength, windowLength, featureWeights, new short[windowLength], outputWeights, 0, 1,
+                "window counter");
+    }
+
+    /**
+     * Reads a network file.
+     *
+     * @param file network file
+     * @return network
+     * @throws IOException the file can't be read or doesn't contain a network
+     */
+    public static Network read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, file.toString());
+        }
+    }
+
+    /**
+     * Reads a network.
+     *
+     * @param in stream the network is read from, not closed
+     * @param source description of the origin of the network
+     * @return network
+     * @throws IOException reading failed or the stream doesn't contain a
+     * network
+     */
+    public static Network read(InputStream in, String source) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+            throw new IOException("The stream doesn't contain a network of version " + FORMAT_VERSION + ".");
+        }
+        int windowLength = data.readInt();
+        int hiddenSize = data.readInt();
+        int outputDivisor = data.readInt();
+        int outputBias = data.readInt();
+        if (windowLength < 1 || windowLength > MAX_WINDOW_LENGTH || hiddenSize < 1 || hiddenSize > 1 << 12) {
+            throw new IOException("The network has an invalid header.");
+        }
+        short[] featureWeights = readShorts(data, (1 << (2 * windowLength)) * hiddenSize);
+        short[] hiddenBias = readShorts(data, hiddenSize);
+        short[] outputWeights = readShorts(data, 2 * hiddenSize);
+        try {
+            return new Network(windowLength, hiddenSize, featureWeights, hiddenBias, outputWeights, outputBias,
+                    outputDivisor, source);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    private static short[] readShorts(DataInputStream data, int length) throws IOException {
+        short[] values = new short[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = data.readShort();
+        }
+        return values;
+    }
+
+    /**
+     * Writes the network.
+     *
+     * @param out stream the network is written to, not closed
+     * @throws IOException writing failed
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(windowLength);
+        data.writeInt(hiddenSize);
+        data.writeInt(outputDivisor);
+        data.writeInt(outputBias);
+        for (short[] values : new short[][]{featureWeights, hiddenBias, outputWeights}) {
+            for (short value : values) {
+                data.writeShort(value);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * @return number of fields of a window
+     */
+    public int getWindowLength() {
+        return windowLength;
+    }
+
+    /**
+     * @return number of hidden values per side
+     */
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    short[] getFeatureWeights() {
+        return featureWeights;
+    }
+
+    short[] getHiddenBias() {
+        return hiddenBias;
+    }
+
+    short[] getOutputWeights() {
+        return outputWeights;
+    }
+
+    int getOutputBias() {
+        return outputBias;
+    }
+
+    int getOutputDivisor() {
+        return outputDivisor;
+    }
+
+    /**
+     * Returns the origin of the network, e.g. the file name.
+     */
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,192 @@
+package jomoku.opponent;
+
+/**
+ * Hidden values of a network (see Network) for the position of one engine,
+ * seen by the engine's player (us) and by the opponent (them). They're
+ * updated incrementally when a field changes: only the windows containing
+ * the field change their pattern, so their feature weights are subtracted and
+ * the ones of the new patterns are added. Evaluating the position then only
+ * takes the output layer.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+class NetworkAccumulator {
+
+    /**
+     * State of a blocked field, windows containing it have no feature.
+     */
+    private static final int BLOCKED_STATE = -1;
+    /**
+     * Column and row steps of the four line directions.
+     */
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+    /**
+     * State seen by the opponent by state.
+     */
+    private static final int[] SWAPPED_STATES = {Network.FREE_STATE, Network.OPPONENT_STATE,
+        Network.OWN_STATE, Network.JOKER_STATE};
+    private final Network network;
+    private final int columns;
+    private final int rows;
+    private final int windowLength;
+    private final int hiddenSize;
+    private final short[] featureWeights;
+    /**
+     * States of the fields by column * rows + row.
+     */
+    private final int[] states;
+    private final int[] us;
+    private final int[] them;
+
+    /**
+     * Constructs the hidden values of an empty board.
+     *
+     * @param network network
+     * @param columns number of columns
+     * @param rows number of rows
+     */
+    NetworkAccumulator(Network network, int columns, int rows) {
+        this.network = network;
+        this.columns = columns;
+        this.rows = rows;
+        this.windowLength = network.getWindowLength();
+        this.hiddenSize = network.getHiddenSize();
+        this.featureWeights = network.getFeatureWeights();
+        this.states = new int[columns * rows];
+        this.us = new int[hiddenSize];
+        this.them = new int[hiddenSize];
+        short[] hiddenBias = network.getHiddenBias();
+        for (int h = 0; h < hiddenSize; h++) {
+            us[h] = hiddenBias[h];
+            them[h] = hiddenBias[h];
+        }
+        int windows = 0;
+        for (int[] direction : DIRECTIONS) {
+            for (int column = 0; column < columns; column++) {
+                for (int row = 0; row < rows; row++) {
+                    if (isOnBoard(column, row, direction)) {
+                        windows++;
+                    }
+                }
+            }
+        }
+        //All windows of the empty board have the pattern 0
+        for (int h = 0; h < hiddenSize; h++) {
+            us[h] += windows * featureWeights[h];
+            them[h] += windows * featureWeights[h];
+        }
+    }
+
+    /**
+     * Does the window starting at the given field lie on the board?
+     */
+    private boolean isOnBoard(int column, int row, int[] direction) {
+        int endColumn = column + (windowLength - 1) * direction[0];
+        int endRow = row + (windowLength - 1) * direction[1];
+        return endColumn >= 0 && endColumn < columns && endRow >= 0 && endRow < rows;
+    }
+
+    /**
+     * Sets the type of a field and updates the hidden values of the windows
+     * containing it.
+     *
+     * @param column column of the field
+     * @param row row of the field
+     * @param typeInt type of the field (e.g. OpponentEngine.OWN_FIELD)
+     */
+    void setFieldType(int column, int row, int typeInt) {
+        int oldState = states[column * rows + row];
+        int newState = toState(typeInt);
+        if (oldState == newState) {
+            return;
+        }
+        for (int[] direction : DIRECTIONS) {
+            for (int offset = 0; offset < windowLength; offset++) {
+                int startColumn = column - offset * direction[0];
+                int startRow = row - offset * direction[1];
+                if (startColumn < 0 || startColumn >= columns || startRow < 0 || startRow >= rows
+                        || !isOnBoard(startColumn, startRow, direction)) {
+                    continue;
+                }
+                updateWindow(startColumn, startRow, direction, offset, oldState, newState);
+            }
+        }
+        states[column * rows + row] = newState;
+    }
+
+    /**
+     * Replaces the feature of the window by the one with the field at the
+     * given offset changed.
+     */
+    private void updateWindow(int startColumn, int startRow, int[] direction, int offset, int oldState,
+            int newState) {
+        int ownPattern = 0;
+        int swappedPattern = 0;
+        int factor = 1;
+        int changedFactor = 1;
+        for (int i = 0; i < windowLength; i++, factor <<= 2) {
+            if (i == offset) {
+                changedFactor = factor;
+                continue;
+            }
+            int state = states[(startColumn + i * direction[0]) * rows + startRow + i * direction[1]];
+            if (state == BLOCKED_STATE) {
+                return;
+            }
+            ownPattern += state * factor;
+            swappedPattern += SWAPPED_STATES[state] * factor;
+        }
+        if (oldState != BLOCKED_STATE) {
+            addFeature(us, ownPattern + oldState * changedFactor, -1);
+            addFeature(them, swappedPattern + SWAPPED_STATES[oldState] * changedFactor, -1);
+        }
+        if (newState != BLOCKED_STATE) {
+            addFeature(us, ownPattern + newState * changedFactor, 1);
+            addFeature(them, swappedPattern + SWAPPED_STATES[newState] * changedFactor, 1);
+        }
+    }
+
+    private void addFeature(int[] hidden, int pattern, int sign) {
+        int offset = pattern * hiddenSize;
+        for (int h = 0; h < hiddenSize; h++) {
+            hidden[h] += sign * featureWeights[offset + h];
+        }
+    }
+
+    private static int toState(int typeInt) {
+        switch (typeInt) {
+            case OpponentEngine.OWN_FIELD:
+                return Network.OWN_STATE;
+            case OpponentEngine.OPPONENT_FIELD:
+                return Network.OPPONENT_STATE;
+            case OpponentEngine.JOKER_FIELD:
+                return Network.JOKER_STATE;
+            case OpponentEngine.BLOCKED_FIELD:
+                return BLOCKED_STATE;
+            default:
+                return Network.FREE_STATE;
+        }
+    }
+
+    /**
+     * Evaluates the current position.
+     *
+     * @param own Is the position evaluated for the player of the engine?
+     * @return score of the position, positive if the given player is better
+     */
+    double evaluate(boolean own) {
+        int[] first = own ? us : them;
+        int[] second = own ? them : us;
+        short[] outputWeights = network.getOutputWeights();
+        long sum = network.getOutputBias();
+        for (int h = 0; h < hiddenSize; h++) {
+            sum += clip(first[h]) * outputWeights[h] + clip(second[h]) * outputWeights[hiddenSize + h];
+        }
+        return (double) sum / network.getOutputDivisor();
+    }
+
+    private static int clip(int value) {
+        return value < 0 ? 0 : value > Network.ACTIVATION_LIMIT ? Network.ACTIVATION_LIMIT : value;
+    }
+}
@@ -1,20 +1,46 @@
 package jomoku.opponent;
 
+import java.util.concurrent.CancellationException;
 import jomoku.Game;
 import jomoku.Player;
 import jomoku.Stone.Position;
+import jomoku.jfr.EngineSearchEvent;
 import jomoku.ui.AbstractPlayer;
 import jomoku.ui.AbstractUI;
 
 /**
  * Models an opponent player
  *
+ * The methods using the engine are synchronized, so a search whose move has
+ * been cancelled (the thread is interrupted, see
+ * AbstractPlayer#requestNextPosition) finishes before the engine is
+ * initialized for the next game.
+ *
  * @author Johannes Bechberger
  * @version 0.5
  */
 public abstract class Opponent extends AbstractPlayer {
 
+    /**
+     * Minimum time between two progress reports in milliseconds.
+     */
+    public static final long PROGRESS_INTERVAL = 100;
+    /**
+     * Search depth in plies used to evaluate openings.
+     */
+    public static final int OPENING_SEARCH_DEPTH = 2;
+    /**
+     * Maximum score of an opening for the player to move which counts as
+     * balanced, such an opening is extended in Swap2.
+     */
+    public static final double BALANCED_OPENING_SCORE = 4;
+
     private OpponentEngine engine;
+    /**
+     * Search currently examining the next position, null while not
+     * searching.
+     */
+    private volatile Search currentSearch;
 
     /**
      *
@@ -24,33 +50,212 @@ public abstract class Opponent extends AbstractPlayer {
      */
     public Opponent(Player player, AbstractUI ui) {
         super(player, ui);
-        engine = new OpponentEngine(player);
+        engine = new OpponentEngine(player, ui.getUI().getEngineConfig());
     }
 
     @Override
-    public void init() {
+    public synchronized void init() {
         engine.init();
     }
 
     @Override
-    public Position getNextPosition() {
-        if (getUi().getUI().getOption("showAutoDebugMatrix") != null) {
-            engine.printScoreMatrix();
+    public synchronized Position getNextPosition() {
+        showScores(engine);
+        long startTime = System.nanoTime();
+        EngineSearchEvent event = new EngineSearchEvent();
+        event.begin();
+        Position nextPosition = examineNextPosition(event);
+        engine.flushMetrics();
+        if (Thread.currentThread().isInterrupted()) {
+            //The move has been cancelled, the engine mustn't play it
+            throw new CancellationException("The search has been cancelled.");
+        }
+        EngineMetrics.getGlobal().recordMoveLatency(System.nanoTime() - startTime);
+        if (event.shouldCommit()) {
+            event.player = getPlayer().toString();
+            event.move = nextPosition.toString();
+            event.commit();
         }
-        Position nextPosition = engine.examineBestPosition();
         engine.setStoneType(nextPosition, getPlayer().getFieldType());
         return nextPosition;
     }
 
+    /**
+     * Shows the scores of the engine before the opponent examines its next
+     * position. Prints the score matrix if the showAutoDebugMatrix option is
+     * set by default.
+     *
+     * @param engine engine of this opponent, only to be read during the call
+     */
+    protected void showScores(OpponentEngine engine) {
+        if (getUi().getUI().getOption("showAutoDebugMatrix") != null) {
+            engine.printScoreMatrix();
+        }
+    }
+
+    /**
+     * Examines the next position, by searching if a search depth is set.
+     *
+     * @param event event the depth, nodes and score of the search are set in
+     */
+    private Position examineNextPosition(EngineSearchEvent event) {
+        EngineConfig config = engine.getConfig();
+        if (config.getSearchDepth() <= 0) {
+            return examineBestPosition(event);
+        }
+        Search search = engine.createSearch();
+        Search.ProgressListener listener = getProgressListener();
+        if (listener != null) {
+            search.setProgressListener(listener, PROGRESS_INTERVAL);
+        }
+        currentSearch = search;
+        try {
+            Search.Candidate[] best = search.search(1, config.getSearchDepth(), config.getSearchTime());
+            event.nodes = search.getNodes();
+            if (best.length == 0) {
+                return examineBestPosition(event);
+            }
+            event.depth = search.getCompletedDepth();
+            event.score = best[0].getValue();
+            return new Position(best[0].getColumn(), best[0].getRow());
+        } finally {
+            currentSearch = null;
+        }
+    }
+
+    private Position examineBestPosition(EngineSearchEvent event) {
+        Position position = engine.examineBestPosition();
+        event.score = engine.getScore(position.getColumn(), position.getRow());
+        return position;
+    }
+
+    /**
+     * Returns the listener informed about the progress of the searches of this
+     * opponent, on the searching thread.
+     *
+     * @return listener or null (the default) if the progress isn't shown
+     */
+    protected Search.ProgressListener getProgressListener() {
+        return null;
+    }
+
+    /**
+     * Stops the running search, the opponent then plays the best position
+     * found so far. Can be called from any thread, does nothing if the
+     * opponent isn't searching.
+     */
+    public void stopThinking() {
+        Search search = currentSearch;
+        if (search != null) {
+            search.stop();
+        }
+    }
+
+    /**
+     * @return Is the opponent searching its next position?
+     */
+    public boolean isThinking() {
+        return currentSearch != null;
+    }
+
     @Override
-    public void otherPlayerAction(Position position) {
+    public synchronized void otherPlayerAction(Position position) {
         engine.setStoneType(position, getPlayer().getOpponent().getFieldType());
     }
 
+    /**
+     * Chooses the most balanced opening, scored by a short search.
+     */
+    @Override
+    public int chooseOpening(Position[][] proposals, boolean whiteToMove) {
+        int best = 0;
+        double bestScore = Double.POSITIVE_INFINITY;
+        OpponentEngine scoringEngine = null;
+        for (int i = 0; i < proposals.length; i++) {
+            if (i == 0 || proposals[i].length != proposals[i - 1].length) {
+                scoringEngine = createScoringEngine(proposals[i], whiteToMove);
+            }
+            double score = Math.abs(scoreOpening(scoringEngine, proposals[i], whiteToMove));
+            if (score < bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Chooses the color being better in the current position, scored by a
+     * short search.
+     */
+    @Override
+    public boolean choosesWhite(boolean whiteToMove) {
+        double score = scoreOpening(new Position[0], whiteToMove);
+        return whiteToMove ? score >= 0 : score < 0;
+    }
+
+    /**
+     * Extends the opening if it's balanced (see BALANCED_OPENING_SCORE).
+     */
+    @Override
+    public boolean extendsOpening(boolean whiteToMove) {
+        return Math.abs(scoreOpening(new Position[0], whiteToMove)) < BALANCED_OPENING_SCORE;
+    }
+
+    /**
+     * Scores the current position with the given stones added (alternately,
+     * starting with the player to move) for the player to move afterwards.
+     * The stones are only added to a new engine, not to the game.
+     */
+    private double scoreOpening(Position[] stones, boolean whiteToMove) {
+        return scoreOpening(createScoringEngine(stones, whiteToMove), stones, whiteToMove);
+    }
+
+    /**
+     * Creates an engine for the player to move after the given stones have
+     * been added to the current position, for scoreOpening.
+     */
+    private OpponentEngine createScoringEngine(Position[] stones, boolean whiteToMove) {
+        boolean whiteToMoveAfterwards = whiteToMove ^ (stones.length % 2 == 1);
+        Game game = getGame();
+        OpponentEngine scoringEngine = new OpponentEngine(whiteToMoveAfterwards
+                ? game.getWhitePlayer() : game.getBlackPlayer(), getUi().getUI().getEngineConfig());
+        scoringEngine.init();
+        return scoringEngine;
+    }
+
+    /**
+     * Scores the current position with the given stones added by the given
+     * scoring engine (see createScoringEngine), which is in the current
+     * position again afterwards. Openings of the same number of stones can
+     * be scored by the same engine, sharing its transposition table.
+     */
+    private static double scoreOpening(OpponentEngine scoringEngine, Position[] stones, boolean whiteToMove) {
+        boolean white = whiteToMove;
+        boolean whiteToMoveAfterwards = whiteToMove ^ (stones.length % 2 == 1);
+        for (Position stone : stones) {
+            scoringEngine.setFieldType(stone.getColumn(), stone.getRow(), white == whiteToMoveAfterwards
+                    ? OpponentEngine.OWN_FIELD : OpponentEngine.OPPONENT_FIELD);
+            white = !white;
+        }
+        Search.Candidate[] best = scoringEngine.createSearch().search(1, OPENING_SEARCH_DEPTH,
+                scoringEngine.getConfig().getSearchTime());
+        for (Position stone : stones) {
+            scoringEngine.setFieldType(stone.getColumn(), stone.getRow(), OpponentEngine.FREE_FIELD);
+        }
+        return best.length == 0 ? 0 : best[0].getValue();
+    }
+
+    @Override
+    protected synchronized void swapColor() {
+        super.swapColor();
+        engine = new OpponentEngine(getPlayer(), getUi().getUI().getEngineConfig());
+    }
+
     @Override
-    public void replay(Game game) {
+    public synchronized void replay(Game game) {
         super.replay(game);
-        engine = new OpponentEngine(getPlayer());
+        engine = new OpponentEngine(getPlayer(), getUi().getUI().getEngineConfig());
         engine.init();
     }
 }
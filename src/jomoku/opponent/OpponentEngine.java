@@ -1,11 +1,16 @@
 package jomoku.opponent;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
 import jomoku.Game;
 import jomoku.Game.FieldType;
 import jomoku.Player;
+import jomoku.Renju;
 import jomoku.Stone;
 import jomoku.Stone.Position;
+import jomoku.WinRule;
+import jomoku.Zobrist;
 
 /**
  * An opponent engine which is able to determine the best position of the next
@@ -16,14 +21,59 @@ import jomoku.Stone.Position;
  */
 public class OpponentEngine {
 
-    private static final int BLOCKED_FIELD = -1;
-    private static final int FREE_FIELD = 0;
-    private static final int OPPONENT_FIELD = 1;
-    private static final int JOKER_FIELD = 2;
-    private static final int OWN_FIELD = 3;
+    static final int BLOCKED_FIELD = -1;
+    static final int FREE_FIELD = 0;
+    static final int OPPONENT_FIELD = 1;
+    static final int JOKER_FIELD = 2;
+    static final int OWN_FIELD = 3;
+    /**
+     * Orders matrix value containers by their value, the smallest first.
+     */
+    private static final Comparator<BoardMatrix.MatrixValueContainer> VALUE_COMPARATOR
+            = new Comparator<BoardMatrix.MatrixValueContainer>() {
+                @Override
+                public int compare(BoardMatrix.MatrixValueContainer o1, BoardMatrix.MatrixValueContainer o2) {
+                    return Double.compare(o1.getValue(), o2.getValue());
+                }
+            };
     private Player player;
+    private EngineConfig config;
+    /**
+     * Transposition table of the searches, allocated by the first search and
+     * kept between the moves.
+     */
+    private TranspositionTable table;
     private Game game;
     private Field[][] fieldArr;
+    private WinRule winRule;
+    private ScoringTable ownTable;
+    private ScoringTable opponentTable;
+    /**
+     * Codes of the field types (see Game.FieldType#getCode) by column * rows
+     * + row, for the forbidden move detection.
+     */
+    private byte[] codes;
+    /**
+     * Recalculations not yet added to the engine metrics.
+     */
+    private long rowRecalculations;
+    private long cellsRescored;
+    private long patternCacheHits;
+    private long patternCacheMisses;
+    private long hash;
+    /**
+     * Number of black, white and joker stones.
+     */
+    private int numberOfStones;
+    /**
+     * Hidden values of the network of the configuration, null if the
+     * positions are evaluated by the field scores.
+     */
+    private NetworkAccumulator accumulator;
+    /**
+     * Shared row scores by line pattern, null if caching is disabled.
+     */
+    private LinePatternCache patternCache;
 
     /**
      * Constructs an engine object. Please call the init method when player and
@@ -32,8 +82,19 @@ public class OpponentEngine {
      * @param player player the constructed object is the opponent engine for
      */
     public OpponentEngine(Player player) {
-        this.player = player;
+        this(player, EngineConfig.DEFAULT);
+    }
 
+    /**
+     * Constructs an engine object with the given configuration. Please call
+     * the init method when player and the belonging game is initialized.
+     *
+     * @param player player the constructed object is the opponent engine for
+     * @param config search limits and evaluation constants
+     */
+    public OpponentEngine(Player player, EngineConfig config) {
+        this.player = player;
+        this.config = config;
     }
 
     /**
@@ -42,11 +103,31 @@ public class OpponentEngine {
     public void init() {
         this.game = player.getGame();
         this.fieldArr = new Field[game.getNumberOfColumns()][game.getNumberOfRows()];
-        FieldType[][] boardFieldTypes = game.getBoardFieldTypes();
-        for (int i = 0; i < boardFieldTypes.length; i++) {
-            FieldType[] row = boardFieldTypes[i];
-            for (int j = 0; j < row.length; j++) {
-                fieldArr[i][j] = new Field(new Position(i, j), convertFieldTypeToIntType(row[j]));
+        this.hash = 0;
+        this.numberOfStones = 0;
+        this.winRule = game.getWinRule();
+        this.ownTable = new ScoringTable(winRule, player.isWhite(), game.getNumberOfStonesInARowToWin(),
+                config.getWeights());
+        this.opponentTable = new ScoringTable(winRule, !player.isWhite(), game.getNumberOfStonesInARowToWin(),
+                config.getWeights());
+        this.patternCache = LinePatternCache.get(ownTable, opponentTable);
+        if (table != null) {
+            //The moves stored in the table are cell indices of the previous board
+            table.clear();
+        }
+        this.codes = new byte[game.getNumberOfColumns() * game.getNumberOfRows()];
+        this.accumulator = config.getNetwork() == null ? null
+                : new NetworkAccumulator(config.getNetwork(), game.getNumberOfColumns(), game.getNumberOfRows());
+        int rows = game.getNumberOfRows();
+        for (int i = 0; i < fieldArr.length; i++) {
+            for (int j = 0; j < rows; j++) {
+                fieldArr[i][j] = new Field(new Position(i, j), FREE_FIELD);
+            }
+        }
+        byte[] fieldTypes = game.copyFieldTypes(null);
+        for (int cell = 0; cell < fieldTypes.length; cell++) {
+            if (fieldTypes[cell] != FieldType.FREE.getCode()) {
+                setFieldType(cell / rows, cell % rows, convertFieldTypeToIntType(FieldType.fromCode(fieldTypes[cell])));
             }
         }
     }
@@ -59,49 +140,294 @@ public class OpponentEngine {
      * @param type given field type
      */
     public void setStoneType(Stone.Position position, Game.FieldType type) {
-        int typeInt = convertFieldTypeToIntType(type);
+        setFieldType(position.getColumn(), position.getRow(), convertFieldTypeToIntType(type));
+    }
+
+    /**
+     * Sets the type of the field at the given position and updates the rows
+     * of the fields lying in the same lines.
+     *
+     * @param column column of the field
+     * @param row row of the field
+     * @param typeInt new field type (e.g. OWN_FIELD)
+     */
+    void setFieldType(int column, int row, int typeInt) {
         int stonesToWin = game.getNumberOfStonesInARowToWin();
         int columns = fieldArr.length;
         int rows = fieldArr[0].length;
-        int column = position.getX();
-        int row = position.getY();
-        fieldArr[column][row].setFieldType(typeInt);
-        //Vertical row
-        Field[] currentColumn = fieldArr[column];
-        for (int i = 0; i < stonesToWin; i++) {
-            if (row - i > 0) { //>0 to not double set the field type for i = 0
-                currentColumn[row - i].vertical.setFieldType(-i, typeInt);
+        Field field = fieldArr[column][row];
+        int cellIndex = column * rows + row;
+        hash ^= Zobrist.key(cellIndex, field.fieldType) ^ Zobrist.key(cellIndex, typeInt);
+        numberOfStones += (isStone(typeInt) ? 1 : 0) - (isStone(field.fieldType) ? 1 : 0);
+        codes[cellIndex] = convertIntTypeToFieldTypeCode(typeInt);
+        if (accumulator != null) {
+            accumulator.setFieldType(column, row, typeInt);
+        }
+        field.setFieldType(typeInt);
+        for (int i = 1; i < stonesToWin; i++) {
+            //Vertical row
+            if (row - i >= 0) {
+                fieldArr[column][row - i].vertical.setFieldType(i, typeInt);
             }
             if (row + i < rows) {
-                currentColumn[row + i].vertical.setFieldType(i, typeInt);
+                fieldArr[column][row + i].vertical.setFieldType(-i, typeInt);
             }
-        }
-        fieldArr[column] = currentColumn;
-        //Horizontal row
-        for (int i = 0; i < stonesToWin; i++) {
-            if (i - columns > 0) {
-                fieldArr[column - i][row].horizontal.setFieldType(-i, typeInt);
+            //Horizontal row
+            if (column - i >= 0) {
+                fieldArr[column - i][row].horizontal.setFieldType(i, typeInt);
             }
             if (column + i < columns) {
-                fieldArr[column + i][row].horizontal.setFieldType(i, typeInt);
+                fieldArr[column + i][row].horizontal.setFieldType(-i, typeInt);
+            }
+            //leftTopRightBottom diagonal
+            if (column - i >= 0 && row - i >= 0) {
+                fieldArr[column - i][row - i].leftTopRightBottom.setFieldType(i, typeInt);
+            }
+            if (column + i < columns && row + i < rows) {
+                fieldArr[column + i][row + i].leftTopRightBottom.setFieldType(-i, typeInt);
             }
+            //rightTopLeftBottom diagonal
+            if (column + i < columns && row - i >= 0) {
+                fieldArr[column + i][row - i].rightTopLeftBottom.setFieldType(-i, typeInt);
+            }
+            if (column - i >= 0 && row + i < rows) {
+                fieldArr[column - i][row + i].rightTopLeftBottom.setFieldType(i, typeInt);
+            }
+        }
+    }
+
+    /**
+     * Adds the recalculations counted since the last call to the engine
+     * metrics, e.g. after a move.
+     */
+    public void flushMetrics() {
+        EngineMetrics.getGlobal().addRecalculations(rowRecalculations, cellsRescored);
+        EngineMetrics.getGlobal().addPatternCacheLookups(patternCacheHits, patternCacheMisses);
+        rowRecalculations = 0;
+        cellsRescored = 0;
+        patternCacheHits = 0;
+        patternCacheMisses = 0;
+    }
+
+    /**
+     * Does the stone of the given type at the given position complete a row
+     * of stones winning by the rule of the game? Joker stones count for both
+     * players.
+     *
+     * @param column column of the stone
+     * @param row row of the stone
+     * @param typeInt type of the stone (OWN_FIELD or OPPONENT_FIELD)
+     * @return Does the stone win?
+     */
+    boolean isWinningStone(int column, int row, int typeInt) {
+        return winRule.isWinningMove(codes, fieldArr.length, fieldArr[0].length,
+                game.getNumberOfStonesInARowToWin(), column, row, isWhiteType(typeInt));
+    }
+
+    /**
+     * Is placing a stone of the given type on the given free field forbidden
+     * by the rule of the game (see jomoku.Renju)?
+     *
+     * @param column column of the field
+     * @param row row of the field
+     * @param typeInt type of the stone (OWN_FIELD or OPPONENT_FIELD)
+     * @return Is the move forbidden?
+     */
+    boolean isForbidden(int column, int row, int typeInt) {
+        return winRule.hasForbiddenMoves(isWhiteType(typeInt))
+                && Renju.isForbidden(codes, fieldArr.length, fieldArr[0].length,
+                        game.getNumberOfStonesInARowToWin(), column, row);
+    }
+
+    private static boolean isStone(int typeInt) {
+        return typeInt != FREE_FIELD && typeInt != BLOCKED_FIELD;
+    }
+
+    /**
+     * Is the given field searched, i.e. within the candidate radius of the
+     * configuration around a stone? All fields are searched if there's no
+     * radius or no stone.
+     *
+     * @param column column of the field
+     * @param row row of the field
+     * @return Is the field a candidate?
+     */
+    boolean isCandidate(int column, int row) {
+        int radius = config.getCandidateRadius();
+        if (radius == 0 || numberOfStones == 0) {
+            return true;
         }
-        //leftTopRightBottom diagonal
-        for (int i = -stonesToWin + 1; i < stonesToWin; i++) {
-            int curRow = column + i;
-            int curColumn = row + i;
-            if (curColumn < columns && curRow < rows && curColumn >= 0 && curRow >= 0) {
-                fieldArr[curColumn][curRow].leftTopRightBottom.setFieldType(i, typeInt);
+        int rows = fieldArr[0].length;
+        int maxColumn = Math.min(column + radius, fieldArr.length - 1);
+        int maxRow = Math.min(row + radius, rows - 1);
+        for (int i = Math.max(column - radius, 0); i <= maxColumn; i++) {
+            for (int j = Math.max(row - radius, 0); j <= maxRow; j++) {
+                byte code = codes[i * rows + j];
+                if (code != FieldType.FREE.getCode() && code != FieldType.BLOCKED.getCode()) {
+                    return true;
+                }
             }
         }
-        //rightTopLeftBottom diagonal
-        for (int i = -(stonesToWin - 1); i < stonesToWin; i++) {
-            int curRow = column + i;
-            int curColumn = row - i;
-            if (curColumn < columns && curRow < rows && curColumn >= 0 && curRow >= 0) {
-                fieldArr[curColumn][curRow].rightTopLeftBottom.setFieldType(i, typeInt);
+        return false;
+    }
+
+    private boolean isWhiteType(int typeInt) {
+        return (typeInt == OWN_FIELD) == player.isWhite();
+    }
+
+    /**
+     * Evaluates the current position for the given player as the difference
+     * between the best own and the best opponent field score, or by the
+     * network of the configuration if it has one.
+     *
+     * @param own Is the position evaluated for the player of this engine?
+     * @return score of the position, positive if the given player is better
+     */
+    double evaluate(boolean own) {
+        if (accumulator != null) {
+            return accumulator.evaluate(own);
+        }
+        double maxOwnScore = 0;
+        double maxOpponentScore = 0;
+        for (int i = 0; i < fieldArr.length; i++) {
+            Field[] row = fieldArr[i];
+            for (int j = 0; j < row.length; j++) {
+                Field field = row[j];
+                if (field.fieldType == FREE_FIELD) {
+                    field.recalculateScore();
+                    maxOwnScore = Math.max(maxOwnScore, field.ownScoreSum);
+                    maxOpponentScore = Math.max(maxOpponentScore, field.opponentScoreSum);
+                }
             }
         }
+        return own ? maxOwnScore - maxOpponentScore : maxOpponentScore - maxOwnScore;
+    }
+
+    /**
+     * Returns the number of evaluation features for the given number of
+     * stones in a row to win (see extractFeatures).
+     *
+     * @param stonesInARowToWin number of stones in a row to win
+     * @return number of features
+     */
+    public static int getNumberOfFeatures(int stonesInARowToWin) {
+        return 2 * (2 * stonesInARowToWin - 1);
+    }
+
+    /**
+     * Extracts the features of the evaluation of the current position (see
+     * evaluate), so the evaluation is the scalar product of the features and
+     * the feature weights of the evaluation weights (see EvaluationWeights),
+     * as long as the best fields don't change with the weights.
+     *
+     * The features are the number of rows around the best own field by run
+     * length and by space length, minus the same numbers for the best
+     * opponent field.
+     *
+     * @param own Is the position evaluated for the player of this engine?
+     * @param dst buffer for the features, may be null
+     * @return the given buffer or a new one if it's null or too small
+     */
+    public int[] extractFeatures(boolean own, int[] dst) {
+        int numberOfFeatures = getNumberOfFeatures(game.getNumberOfStonesInARowToWin());
+        if (dst == null || dst.length < numberOfFeatures) {
+            dst = new int[numberOfFeatures];
+        }
+        Arrays.fill(dst, 0, numberOfFeatures, 0);
+        Field bestOwnField = null;
+        Field bestOpponentField = null;
+        for (int i = 0; i < fieldArr.length; i++) {
+            Field[] row = fieldArr[i];
+            for (int j = 0; j < row.length; j++) {
+                Field field = row[j];
+                if (field.fieldType == FREE_FIELD) {
+                    field.recalculateScore();
+                    if (bestOwnField == null || field.ownScoreSum > bestOwnField.ownScoreSum) {
+                        bestOwnField = field;
+                    }
+                    if (bestOpponentField == null || field.opponentScoreSum > bestOpponentField.opponentScoreSum) {
+                        bestOpponentField = field;
+                    }
+                }
+            }
+        }
+        if (bestOwnField != null) {
+            bestOwnField.addFeatures(OWN_FIELD, dst, own ? 1 : -1);
+            bestOpponentField.addFeatures(OPPONENT_FIELD, dst, own ? -1 : 1);
+        }
+        return dst;
+    }
+
+    /**
+     * Searches the given number of best moves for the player of this engine
+     * in one pass, each with its principal variation.
+     *
+     * @param numberOfCandidates maximum number of returned moves
+     * @param depth search depth in plies, 0 returns the moves with the highest
+     * field scores
+     * @return the best moves, the best first
+     */
+    public Search.Candidate[] analyse(int numberOfCandidates, int depth) {
+        return analyse(numberOfCandidates, depth, 0);
+    }
+
+    /**
+     * Searches the given number of best moves for the player of this engine
+     * in one pass, each with its principal variation.
+     *
+     * @param numberOfCandidates maximum number of returned moves
+     * @param depth maximum search depth in plies, 0 returns the moves with the
+     * highest field scores
+     * @param timeLimit time limit in milliseconds, 0 means no limit
+     * @return the best moves, the best first
+     */
+    public Search.Candidate[] analyse(int numberOfCandidates, int depth, long timeLimit) {
+        return createSearch().search(numberOfCandidates, depth, timeLimit);
+    }
+
+    /**
+     * Creates a search playing its moves in this engine, e.g. to stop it from
+     * another thread or to follow its progress. All searches of the engine
+     * share its transposition table, only one of them may run at a time.
+     *
+     * @return new search
+     */
+    public Search createSearch() {
+        if (table == null) {
+            table = new TranspositionTable(config.getHashSize());
+        }
+        return new Search(this, config.getSearchWidth(), table);
+    }
+
+    /**
+     * @return search limits and evaluation constants of this engine
+     */
+    public EngineConfig getConfig() {
+        return config;
+    }
+
+    /**
+     *
+     * @return Zobrist hash of the current field types
+     */
+    long getHash() {
+        return hash;
+    }
+
+    int getNumberOfColumns() {
+        return fieldArr.length;
+    }
+
+    int getNumberOfRows() {
+        return fieldArr[0].length;
+    }
+
+    int getFieldType(int column, int row) {
+        return fieldArr[column][row].fieldType;
+    }
+
+    double getScore(int column, int row) {
+        return fieldArr[column][row].getScore();
     }
 
     /**
@@ -120,6 +446,28 @@ public class OpponentEngine {
         return matrix;
     }
 
+    /**
+     * Copies the current scores into the given buffer, indexed by column *
+     * rows + row. Doesn't create objects if the buffer is large enough, so it
+     * can be called after every move.
+     *
+     * @param dst buffer to copy into, may be null
+     * @return the given buffer or a new one if it's null or too small
+     */
+    public double[] copyScores(double[] dst) {
+        int rows = fieldArr[0].length;
+        if (dst == null || dst.length < fieldArr.length * rows) {
+            dst = new double[fieldArr.length * rows];
+        }
+        for (int i = 0; i < fieldArr.length; i++) {
+            Field[] column = fieldArr[i];
+            for (int j = 0; j < rows; j++) {
+                dst[i * rows + j] = column[j].getScore();
+            }
+        }
+        return dst;
+    }
+
     /**
      * Returns the current matrix of rounded scores.
      *
@@ -147,7 +495,7 @@ public class OpponentEngine {
         for (int i = 0; i < fieldArr.length; i++) {
             Field[] row = fieldArr[i];
             for (int j = 0; j < row.length; j++) {
-                if (row[j].getScore() > maxScore) {
+                if (row[j].getScore() > maxScore && !isForbidden(i, j, OWN_FIELD)) {
                     maxScore = row[j].getScore();
                     maxPosition = new Position(i, j);
                 }
@@ -156,6 +504,36 @@ public class OpponentEngine {
         return maxPosition;
     }
 
+    /**
+     * Examines the given number of free positions with the highest scores.
+     * Uses a bounded min-heap, so only the current top positions are kept
+     * while scanning the board.
+     *
+     * @param count maximum number of positions
+     * @return the positions with their scores, the best first
+     */
+    public BoardMatrix.MatrixValueContainer[] examineBestPositions(int count) {
+        PriorityQueue<BoardMatrix.MatrixValueContainer> heap = new PriorityQueue<>(count + 1, VALUE_COMPARATOR);
+        for (int i = 0; i < fieldArr.length; i++) {
+            Field[] row = fieldArr[i];
+            for (int j = 0; j < row.length; j++) {
+                double score = row[j].getScore();
+                if (row[j].fieldType == FREE_FIELD && (heap.size() < count || score > heap.peek().getValue())
+                        && !isForbidden(i, j, OWN_FIELD)) {
+                    heap.add(new BoardMatrix.MatrixValueContainer(i, j, score));
+                    if (heap.size() > count) {
+                        heap.poll();
+                    }
+                }
+            }
+        }
+        BoardMatrix.MatrixValueContainer[] best = new BoardMatrix.MatrixValueContainer[heap.size()];
+        for (int i = best.length - 1; i >= 0; i--) {
+            best[i] = heap.poll();
+        }
+        return best;
+    }
+
     private int convertFieldTypeToIntType(Game.FieldType type) {
         switch (type) {
             case FREE:
@@ -173,6 +551,19 @@ public class OpponentEngine {
         }
     }
 
+    private byte convertIntTypeToFieldTypeCode(int typeInt) {
+        switch (typeInt) {
+            case FREE_FIELD:
+                return FieldType.FREE.getCode();
+            case BLOCKED_FIELD:
+                return FieldType.BLOCKED.getCode();
+            case JOKER_FIELD:
+                return FieldType.JOKER.getCode();
+            default:
+                return isWhiteType(typeInt) ? FieldType.WHITE.getCode() : FieldType.BLACK.getCode();
+        }
+    }
+
     public void printScoreMatrix() {
         int[][] printMatrix = getRoundedScoreMatrix();
         for (int i = 0; i < printMatrix.length; i++) {
@@ -183,7 +574,7 @@ public class OpponentEngine {
 
     private class Field {
 
-        private double middleBonusFactor = 0.01;
+        private double middleBonusFactor = config.getMiddleBonusFactor();
         private double ownMiddleBonusFactor;
         private Stone.Position position;
         private int fieldType;
@@ -192,7 +583,9 @@ public class OpponentEngine {
         private Row vertical = new Row();
         private Row horizontal = new Row();
         private double scoreSum = 0;
-        private boolean fieldNeedsRecalculation = false;
+        private double ownScoreSum = 0;
+        private double opponentScoreSum = 0;
+        private boolean fieldNeedsRecalculation = true;
 
         /**
          * Constructs a field object at the given position containing four rows
@@ -211,11 +604,21 @@ public class OpponentEngine {
 
         private void recalculateScore() {
             if (fieldNeedsRecalculation) {
+                cellsRescored++;
                 scoreSum = leftTopRightBottom.getScore()
                         + rightTopLeftBottom.getScore()
                         + vertical.getScore()
                         + horizontal.getScore();
-                scoreSum += scoreSum * ownMiddleBonusFactor;
+                //A field without stones in its rows only has the middle bonus
+                scoreSum = scoreSum == 0 ? ownMiddleBonusFactor : scoreSum + scoreSum * ownMiddleBonusFactor;
+                ownScoreSum = leftTopRightBottom.ownScore
+                        + rightTopLeftBottom.ownScore
+                        + vertical.ownScore
+                        + horizontal.ownScore;
+                opponentScoreSum = leftTopRightBottom.opponentScore
+                        + rightTopLeftBottom.opponentScore
+                        + vertical.opponentScore
+                        + horizontal.opponentScore;
                 fieldNeedsRecalculation = false;
             }
         }
@@ -229,6 +632,17 @@ public class OpponentEngine {
             return scoreSum;
         }
 
+        /**
+         * Adds the features of the rows of this field for the given player
+         * (see extractFeatures).
+         */
+        private void addFeatures(int ownFieldType, int[] features, int sign) {
+            leftTopRightBottom.addFeatures(ownFieldType, features, sign);
+            rightTopLeftBottom.addFeatures(ownFieldType, features, sign);
+            vertical.addFeatures(ownFieldType, features, sign);
+            horizontal.addFeatures(ownFieldType, features, sign);
+        }
+
         /**
          * Sets the field type of this field.
          *
@@ -245,9 +659,17 @@ public class OpponentEngine {
         private class Row {
 
             private static final int BLOCKED_SCORE = -1;
-            private double opponentFactor = 1.0;
+            private double opponentFactor = config.getOpponentFactor();
             private int centerIndex;
             private int[] stones;
+            /**
+             * Packed field types (see LinePatternCache), updated with the
+             * stones, only complete if the row isn't longer than
+             * LinePatternCache.MAX_ROW_LENGTH.
+             */
+            private long pattern;
+            private final long emptyPattern;
+            private final boolean isPacked;
             private double score = 0;
             private double ownScore = 0;
             private double opponentScore = 0;
@@ -259,61 +681,75 @@ public class OpponentEngine {
             public Row() {
                 stones = new int[game.getNumberOfStonesInARowToWin() * 2 - 1];
                 centerIndex = stones.length / 2;
+                isPacked = stones.length <= LinePatternCache.MAX_ROW_LENGTH;
+                emptyPattern = LinePatternCache.encode(stones);
+                pattern = emptyPattern;
+                recalculateScore();
             }
 
             /**
              * Recalculates the score of this row
              */
             private void recalculateScore() {
-                if (isBlocked) {
+                rowRecalculations++;
+                isBlocked = stones[centerIndex] != FREE_FIELD;
+                if (isEmpty()) {
+                    score = 0;
+                    ownScore = 0;
+                    opponentScore = 0;
+                } else if (isBlocked) {
                     score = BLOCKED_SCORE;
                     ownScore = BLOCKED_SCORE;
                     opponentScore = BLOCKED_SCORE;
-                } else if (stones[centerIndex] != 0) {
-                    isBlocked = true;
-                    fieldNeedsRecalculation = true;
                 } else {
-                    ownScore = calculateScore(OWN_FIELD);
-                    opponentScore = calculateScore(OPPONENT_FIELD);
+                    LinePatternCache.Entry entry = patternCache == null ? null : patternCache.get(pattern);
+                    if (entry != null) {
+                        patternCacheHits++;
+                        ownScore = entry.getOwnScore();
+                        opponentScore = entry.getOpponentScore();
+                    } else {
+                        ownScore = ownTable.scoreRow(stones, OWN_FIELD);
+                        opponentScore = opponentTable.scoreRow(stones, OPPONENT_FIELD);
+                        if (patternCache != null) {
+                            patternCacheMisses++;
+                            patternCache.put(pattern, ownScore, opponentScore);
+                        }
+                    }
                     score = ownScore + opponentScore * opponentFactor;
                 }
             }
 
-            //TODO write score calculation
-            private double calculateScore(int ownFieldType) {
-                int rowLength = calcFieldRowLengthAroundCenter(ownFieldType, false);
-                int rowWithFreeSpacesLength = calcFieldRowLengthAroundCenter(ownFieldType, true);
-                double res = Math.pow(2, rowLength) + Math.pow(1.1, rowWithFreeSpacesLength);
-                return res;
-            }
-
-            private int calcFieldRowLengthAroundCenter(int ownFieldType, boolean withFreeSpace) {
-                boolean blockedLeft = false;
-                boolean blockedRight = false;
-                int length = 0;
-                for (int i = 1; i < centerIndex; i++) {
-                    int curLeftType = stones[centerIndex - i];
-                    int curRightType = stones[centerIndex + i];
-                    if (!blockedLeft) {
-                        if (isFieldOkay(curLeftType, ownFieldType, withFreeSpace)) {
-                            length++;
-                        } else {
-                            blockedLeft = true;
-                        }
-                    }
-                    if (!blockedRight) {
-                        if (isFieldOkay(curRightType, ownFieldType, withFreeSpace)) {
-                            length++;
-                        } else {
-                            blockedRight = true;
-                        }
+            /**
+             * A row without stones has no score, so a field's score is
+             * the same whether stones have never been placed in its rows or
+             * have been removed again.
+             */
+            private boolean isEmpty() {
+                if (isPacked) {
+                    return pattern == emptyPattern;
+                }
+                for (int stone : stones) {
+                    if (stone != FREE_FIELD) {
+                        return false;
                     }
                 }
-                return length;
+                return true;
             }
 
-            private boolean isFieldOkay(int type, int ownFieldType, boolean isFreeFieldOkay) {
-                return type == ownFieldType || type == JOKER_FIELD || (isFreeFieldOkay && type == FREE_FIELD);
+            /**
+             * Adds the run and space length of this row for the given player
+             * to the features, rows without stones have no features.
+             */
+            private void addFeatures(int ownFieldType, int[] features, int sign) {
+                if (isEmpty()) {
+                    return;
+                }
+                ScoringTable table = ownFieldType == OWN_FIELD ? ownTable : opponentTable;
+                int rowLength = ScoringTable.getLength(stones, ownFieldType, false);
+                int rowWithFreeSpacesLength = ScoringTable.getLength(stones, ownFieldType, true);
+                int blockedEnds = table.usesBlockedEnds() ? ScoringTable.countBlockedEnds(stones, ownFieldType) : 0;
+                features[table.getRunFeature(rowLength, blockedEnds)] += sign;
+                features[stones.length + rowWithFreeSpacesLength] += sign;
             }
 
             /**
@@ -331,6 +767,8 @@ public class OpponentEngine {
              * @param type field type
              */
             public void setFieldType(int position, int type) {
+                pattern += LinePatternCache.getPatternChange(position + centerIndex, stones[position + centerIndex],
+                        type);
                 stones[position + centerIndex] = type;
                 recalculateScore();
                 fieldNeedsRecalculation = true;
@@ -342,6 +780,7 @@ public class OpponentEngine {
              * @param type new field type
              */
             public void setCenterFieldType(int type) {
+                pattern += LinePatternCache.getPatternChange(centerIndex, stones[centerIndex], type);
                 stones[centerIndex] = type;
                 recalculateScore();
                 fieldNeedsRecalculation = true;
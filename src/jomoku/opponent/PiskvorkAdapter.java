@@ -0,0 +1,462 @@
+package jomoku.opponent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import jomoku.Game;
+import jomoku.Player;
+import jomoku.Stone.Position;
+import jomoku.WinRule;
+
+/**
+ * Front-end of the opponent engine speaking the piskvork (Gomocup) brain
+ * protocol on the standard streams, making it possible to let the engine play
+ * in tournament managers.
+ *
+ * Supported commands: START, RECTSTART, RESTART, BEGIN, TURN, BOARD, TAKEBACK,
+ * INFO, ABOUT and END. Positions have the format "[column],[row]". The win
+ * rule is set by the INFO rule value (1 exactly five, 4 Renju, 8 Caro).
+ * Stones that can't be placed (e.g. on an occupied field or forbidden by the
+ * Renju rules) are answered with ERROR, they are neither added to the game
+ * nor to the engine.
+ *
+ * @see http://petr.lastovicka.sweb.cz/protocl2en.htm
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class PiskvorkAdapter implements Runnable {
+
+    /**
+     * Time reserved for the communication with the manager per move.
+     */
+    private static final long TIME_MARGIN = 50;
+    /**
+     * Number of moves the remaining match time is distributed on.
+     */
+    private static final int EXPECTED_REMAINING_MOVES = 30;
+    /**
+     * Maximum search depth, the search stops earlier when the move time limit
+     * is reached.
+     */
+    private static final int SEARCH_DEPTH = 4;
+    /**
+     * Bits of the INFO rule value.
+     */
+    private static final int EXACT_RULE = 1, RENJU_RULE = 4, CARO_RULE = 8;
+    private BufferedReader in;
+    private PrintStream out;
+    private int columns;
+    private int rows;
+    private Game game;
+    private Player self;
+    private OpponentEngine engine;
+    /**
+     * Moves of the current game, own and opponent moves alternating, starting
+     * with the first stone.
+     */
+    private ArrayList<Position> moves = new ArrayList<>();
+    private boolean selfBegan;
+    /**
+     * Time limit per move in milliseconds, 0 means playing as fast as
+     * possible, -1 that the manager hasn't sent a limit.
+     */
+    private long timeoutTurn = -1;
+    private long timeoutMatch = 0;
+    private long timeLeft = Long.MAX_VALUE;
+    private WinRule winRule = WinRule.FREESTYLE;
+    private EngineConfig config;
+
+    /**
+     * Constructs an adapter with the default engine configuration.
+     *
+     * @param in stream the manager sends its commands on
+     * @param out stream the answers are sent on
+     */
+    public PiskvorkAdapter(BufferedReader in, PrintStream out) {
+        this(in, out, EngineConfig.DEFAULT);
+    }
+
+    /**
+     * Constructs an adapter. The search depth and time are given by the
+     * protocol, the other settings of the configuration are used.
+     *
+     * @param in stream the manager sends its commands on
+     * @param out stream the answers are sent on
+     * @param config engine configuration
+     */
+    public PiskvorkAdapter(BufferedReader in, PrintStream out, EngineConfig config) {
+        this.in = in;
+        this.out = out;
+        this.config = config;
+    }
+
+    /**
+     * Processes commands until END is received or the input ends.
+     */
+    @Override
+    public void run() {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (!processCommand(line)) {
+                    break;
+                }
+                out.flush();
+            }
+        } catch (IOException ex) {
+            //The manager has closed the stream
+        }
+        out.flush();
+    }
+
+    /**
+     * Processes the given command line.
+     *
+     * @param line command line
+     * @return Has the next command to be processed?
+     * @throws IOException reading the lines following the BOARD command
+     * failed
+     */
+    private boolean processCommand(String line) throws IOException {
+        int spaceIndex = line.indexOf(' ');
+        String command = (spaceIndex == -1 ? line : line.substring(0, spaceIndex)).toUpperCase();
+        String argument = spaceIndex == -1 ? "" : line.substring(spaceIndex + 1).trim();
+        try {
+            switch (command) {
+                case "START":
+                    int size = Integer.parseInt(argument);
+                    start(size, size);
+                    break;
+                case "RECTSTART":
+                    int[] dimensions = parsePair(argument);
+                    start(dimensions[0], dimensions[1]);
+                    break;
+                case "RESTART":
+                    requireGame();
+                    start(columns, rows);
+                    break;
+                case "BEGIN":
+                    requireGame();
+                    if (!moves.isEmpty()) {
+                        throw new IllegalStateException("The game has already begun.");
+                    }
+                    selfBegan = true;
+                    play();
+                    break;
+                case "TURN":
+                    requireGame();
+                    if (moves.isEmpty()) {
+                        selfBegan = false;
+                    }
+                    placeOpponentStone(parsePosition(argument));
+                    play();
+                    break;
+                case "BOARD":
+                    requireGame();
+                    readBoard();
+                    play();
+                    break;
+                case "TAKEBACK":
+                    requireGame();
+                    takeback(parsePosition(argument));
+                    out.println("OK");
+                    break;
+                case "INFO":
+                    info(argument);
+                    break;
+                case "ABOUT":
+                    out.println("name=\"Jomoku\", version=\"1.0\", author=\"Johannes Bechberger\"");
+                    break;
+                case "END":
+                    return false;
+                default:
+                    out.println("UNKNOWN " + command);
+            }
+        } catch (RuntimeException ex) {
+            out.println("ERROR " + ex.getMessage());
+        }
+        return true;
+    }
+
+    private void start(int columns, int rows) {
+        if (columns < 5 || rows < 5) {
+            throw new IllegalArgumentException("Unsupported board size.");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        moves.clear();
+        game = new Game(columns, rows, Game.DEFAULT_NUMBER_OF_STONES_IN_A_ROW_TO_WIN, winRule);
+        engine = null;
+        out.println("OK");
+    }
+
+    private void requireGame() {
+        if (game == null) {
+            throw new IllegalStateException("START has to be sent first.");
+        }
+    }
+
+    /**
+     * Creates the engine once the own color is known, the player placing the
+     * first stone is black.
+     */
+    private void initEngine() {
+        if (engine == null) {
+            self = selfBegan ? game.getBlackPlayer() : game.getWhitePlayer();
+            engine = new OpponentEngine(self, config);
+            engine.init();
+        }
+    }
+
+    /**
+     * Examines the next own stone, places it and sends it to the manager.
+     */
+    private void play() {
+        initEngine();
+        Search.Candidate[] best = engine.analyse(1, getSearchDepth(), getMoveTimeLimit());
+        Position position = best.length > 0 ? best[0] : firstFreePosition();
+        if (!game.canStoneBePlacedAtPosition(position) || game.isForbiddenMove(self, position)) {
+            position = firstFreePosition();
+        }
+        position = new Position(position.getColumn(), position.getRow());
+        if (!game.placeStone(self, position)) {
+            throw new IllegalStateException("Can't place the own stone at " + position + ".");
+        }
+        engine.setStoneType(position, self.getFieldType());
+        moves.add(position);
+        out.println(position.getColumn() + "," + position.getRow());
+    }
+
+    /**
+     * Returns the first field the own player may place a stone on.
+     */
+    private Position firstFreePosition() {
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                Position position = new Position(i, j);
+                if (game.canStoneBePlacedAtPosition(position) && !game.isForbiddenMove(self, position)) {
+                    return position;
+                }
+            }
+        }
+        throw new IllegalStateException("There's no free field the own stone may be placed on.");
+    }
+
+    private void placeOpponentStone(Position position) {
+        initEngine();
+        Player opponent = self.getOpponent();
+        if (!game.placeStone(opponent, position)) {
+            throw new IllegalArgumentException("Can't place a stone at " + position + ".");
+        }
+        engine.setStoneType(position, opponent.getFieldType());
+        moves.add(position);
+    }
+
+    /**
+     * Reads the lines following the BOARD command up to DONE and sets up a
+     * new game with the given stones. Field 1 is an own stone, field 2 one of
+     * the opponent, field 3 is treated as blocked.
+     *
+     * @throws IOException reading a line failed
+     */
+    private void readBoard() throws IOException {
+        ArrayList<Position> ownStones = new ArrayList<>();
+        ArrayList<Position> opponentStones = new ArrayList<>();
+        ArrayList<Position> blocked = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.trim().equalsIgnoreCase("DONE")) {
+            String[] parts = line.trim().split(",");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected \"[column],[row],[field]\" but got \"" + line + "\".");
+            }
+            Position position = new Position(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            switch (parts[2].trim()) {
+                case "1":
+                    ownStones.add(position);
+                    break;
+                case "2":
+                    opponentStones.add(position);
+                    break;
+                default:
+                    blocked.add(position);
+            }
+        }
+        moves.clear();
+        game = new Game(columns, rows, Game.DEFAULT_NUMBER_OF_STONES_IN_A_ROW_TO_WIN, winRule);
+        game.blockStonePositions(blocked.toArray(new Position[blocked.size()]));
+        engine = null;
+        selfBegan = ownStones.size() == opponentStones.size();
+        initEngine();
+        for (int i = 0; i < Math.max(ownStones.size(), opponentStones.size()); i++) {
+            if (selfBegan) {
+                placeOwnStoneOfBoard(ownStones, i);
+                placeOpponentStoneOfBoard(opponentStones, i);
+            } else {
+                placeOpponentStoneOfBoard(opponentStones, i);
+                placeOwnStoneOfBoard(ownStones, i);
+            }
+        }
+    }
+
+    private void placeOwnStoneOfBoard(ArrayList<Position> ownStones, int index) {
+        if (index < ownStones.size()) {
+            Position position = ownStones.get(index);
+            if (!game.placeStone(self, position)) {
+                throw new IllegalArgumentException("Can't place a stone at " + position + ".");
+            }
+            engine.setStoneType(position, self.getFieldType());
+            moves.add(position);
+        }
+    }
+
+    private void placeOpponentStoneOfBoard(ArrayList<Position> opponentStones, int index) {
+        if (index < opponentStones.size()) {
+            placeOpponentStone(opponentStones.get(index));
+        }
+    }
+
+    /**
+     * Removes the given stone by setting up the game again without it, the
+     * boards don't support removing stones.
+     *
+     * @param position position of the removed stone
+     */
+    private void takeback(Position position) {
+        int index = moves.lastIndexOf(position);
+        if (index == -1) {
+            throw new IllegalArgumentException("There's no stone at " + position + ".");
+        }
+        ArrayList<Position> remaining = new ArrayList<>(moves);
+        remaining.remove(index);
+        Game oldGame = game;
+        game = new Game(columns, rows, Game.DEFAULT_NUMBER_OF_STONES_IN_A_ROW_TO_WIN, winRule);
+        game.blockStonePositions(blockedPositions(oldGame));
+        engine = null;
+        moves.clear();
+        if (remaining.isEmpty()) {
+            return;
+        }
+        initEngine();
+        for (int i = 0; i < remaining.size(); i++) {
+            Player player = (i % 2 == 0) == selfBegan ? self : self.getOpponent();
+            if (!game.placeStone(player, remaining.get(i))) {
+                throw new IllegalStateException("Can't place the stone at " + remaining.get(i)
+                        + " again after the takeback.");
+            }
+            engine.setStoneType(remaining.get(i), player.getFieldType());
+            moves.add(remaining.get(i));
+        }
+    }
+
+    private Position[] blockedPositions(Game oldGame) {
+        ArrayList<Position> blocked = new ArrayList<>();
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                Position position = new Position(i, j);
+                if (oldGame.isStonePositionBlocked(position)) {
+                    blocked.add(position);
+                }
+            }
+        }
+        return blocked.toArray(new Position[blocked.size()]);
+    }
+
+    /**
+     * Processes an INFO command, unknown keys are ignored as required by the
+     * protocol.
+     *
+     * @param argument "[key] [value]"
+     */
+    private void info(String argument) {
+        int spaceIndex = argument.indexOf(' ');
+        if (spaceIndex == -1) {
+            return;
+        }
+        String key = argument.substring(0, spaceIndex);
+        String value = argument.substring(spaceIndex + 1).trim();
+        try {
+            switch (key) {
+                case "timeout_turn":
+                    timeoutTurn = Long.parseLong(value);
+                    break;
+                case "timeout_match":
+                    timeoutMatch = Long.parseLong(value);
+                    break;
+                case "time_left":
+                    timeLeft = Long.parseLong(value);
+                    break;
+                case "rule":
+                    setWinRule(Integer.parseInt(value));
+                    break;
+                default:
+            }
+        } catch (NumberFormatException ex) {
+            out.println("DEBUG Ignoring INFO " + argument);
+        }
+    }
+
+    /**
+     * Sets the win rule given by the bits of the INFO rule value, a game
+     * without stones is started again with the new rule.
+     */
+    private void setWinRule(int rule) {
+        WinRule newRule = (rule & RENJU_RULE) != 0 ? WinRule.RENJU : (rule & CARO_RULE) != 0 ? WinRule.CARO
+                : (rule & EXACT_RULE) != 0 ? WinRule.EXACT : WinRule.FREESTYLE;
+        if (newRule != winRule) {
+            winRule = newRule;
+            if (game != null && moves.isEmpty()) {
+                Game oldGame = game;
+                game = new Game(columns, rows, Game.DEFAULT_NUMBER_OF_STONES_IN_A_ROW_TO_WIN, winRule);
+                game.blockStonePositions(blockedPositions(oldGame));
+                engine = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum search depth of the next move.
+     *
+     * @return 0 (the field with the highest score, without search) if the
+     * manager asks to play as fast as possible (timeout_turn 0), SEARCH_DEPTH
+     * otherwise
+     */
+    public int getSearchDepth() {
+        return timeoutTurn == 0 ? 0 : SEARCH_DEPTH;
+    }
+
+    /**
+     * Returns the time the engine may search the next move according to the
+     * timeout_turn, timeout_match and time_left info values.
+     *
+     * @return time limit in milliseconds, 0 means no limit (timeout_turn 0
+     * is handled by getSearchDepth)
+     */
+    public long getMoveTimeLimit() {
+        long limit = timeoutTurn > 0 ? timeoutTurn : Long.MAX_VALUE;
+        if (timeoutMatch > 0 && timeLeft != Long.MAX_VALUE) {
+            limit = Math.min(limit, timeLeft / EXPECTED_REMAINING_MOVES);
+        }
+        if (limit == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max(1, limit - TIME_MARGIN);
+    }
+
+    private int[] parsePair(String str) {
+        String[] parts = str.split(",");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Expected \"[column],[row]\" but got \"" + str + "\".");
+        }
+        return new int[]{Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())};
+    }
+
+    private Position parsePosition(String str) {
+        int[] pair = parsePair(str);
+        return new Position(pair[0], pair[1]);
+    }
+}
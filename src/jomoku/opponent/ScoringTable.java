@@ -0,0 +1,211 @@
+package jomoku.opponent;
+
+import jomoku.WinRule;
+
+/**
+ * Scores of the rows around a free field for one player under one win rule,
+ * precalculated for every row length, so the evaluation of the engine stays
+ * consistent with the rule of the game.
+ *
+ * A row is scored by the number of the player's stones next to the field
+ * without gaps (run), the ends of this run and the number of the player's
+ * stones and free fields next to the field (space). The freestyle scores are
+ * 2^run + 1.1^space by default (see EvaluationWeights). Under exact rules a
+ * run becoming an overline by the field can't win, so it's scored like a
+ * field without stones next to it, under the Caro rule the same applies to
+ * runs blocked at both ends.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+class ScoringTable {
+
+    private static final int ENDS = 3;
+    /**
+     * Run scores by run length * ENDS + number of blocked ends.
+     */
+    private final double[] runScores;
+    /**
+     * Run lengths the run scores are taken from (0 for dead runs), by run
+     * length * ENDS + number of blocked ends.
+     */
+    private final int[] runFeatures;
+    /**
+     * Space scores by space length.
+     */
+    private final double[] spaceScores;
+    private final boolean usesBlockedEnds;
+    private final boolean exact;
+    private final int stonesInARowToWin;
+    private final EvaluationWeights weights;
+
+    /**
+     * Constructs the table for the given player and rule.
+     *
+     * @param rule win rule of the game
+     * @param white Is it the table of the white player?
+     * @param stonesInARowToWin number of stones in a row to win
+     * @param weights run and space scores by length
+     */
+    ScoringTable(WinRule rule, boolean white, int stonesInARowToWin, EvaluationWeights weights) {
+        int maxLength = 2 * stonesInARowToWin - 2;
+        runScores = new double[(maxLength + 1) * ENDS];
+        runFeatures = new int[(maxLength + 1) * ENDS];
+        spaceScores = new double[maxLength + 1];
+        usesBlockedEnds = rule == WinRule.CARO;
+        exact = rule.isExact(white);
+        this.stonesInARowToWin = stonesInARowToWin;
+        this.weights = weights;
+        for (int length = 0; length <= maxLength; length++) {
+            spaceScores[length] = weights.getSpaceScore(length);
+            for (int blockedEnds = 0; blockedEnds < ENDS; blockedEnds++) {
+                boolean dead = (exact && length + 1 > stonesInARowToWin) || (usesBlockedEnds && blockedEnds == 2);
+                runFeatures[length * ENDS + blockedEnds] = dead ? 0 : length;
+                runScores[length * ENDS + blockedEnds] = weights.getRunScore(dead ? 0 : length);
+            }
+        }
+    }
+
+    /**
+     * Does the score depend on the ends of the run? If not, the ends don't
+     * need to be counted.
+     *
+     * @return Are the blocked ends used?
+     */
+    boolean usesBlockedEnds() {
+        return usesBlockedEnds;
+    }
+
+    /**
+     * Returns the score of a row.
+     *
+     * @param runLength number of stones next to the field without gaps
+     * @param blockedEnds number of ends of the run blocked by opponent stones
+     * or blocked fields
+     * @param spaceLength number of stones and free fields next to the field
+     * @return score
+     */
+    double getScore(int runLength, int blockedEnds, int spaceLength) {
+        return runScores[runLength * ENDS + blockedEnds] + spaceScores[spaceLength];
+    }
+
+    /**
+     * Returns the run length whose weight scores the given run, i.e. 0 for
+     * runs which can't win.
+     *
+     * @param runLength number of stones next to the field without gaps
+     * @param blockedEnds number of blocked ends of the run
+     * @return run length of the weight
+     */
+    int getRunFeature(int runLength, int blockedEnds) {
+        return runFeatures[runLength * ENDS + blockedEnds];
+    }
+
+    /**
+     * @return number of fields of the scored rows, the field in the middle
+     */
+    int getRowLength() {
+        return 2 * stonesInARowToWin - 1;
+    }
+
+    /**
+     * Scores a row around a free field.
+     *
+     * @param stones field types of the row (e.g. OpponentEngine.OWN_FIELD),
+     * the field in the middle
+     * @param ownFieldType field type of the player's stones
+     * @return score
+     */
+    double scoreRow(int[] stones, int ownFieldType) {
+        int runLength = getLength(stones, ownFieldType, false);
+        int spaceLength = getLength(stones, ownFieldType, true);
+        int blockedEnds = usesBlockedEnds ? countBlockedEnds(stones, ownFieldType) : 0;
+        return getScore(runLength, blockedEnds, spaceLength);
+    }
+
+    /**
+     * Counts the player's stones (and optionally the free fields) next to the
+     * middle of the row without gaps on both sides.
+     *
+     * @param stones field types of the row
+     * @param ownFieldType field type of the player's stones
+     * @param withFreeSpace Do free fields count?
+     * @return number of fields
+     */
+    static int getLength(int[] stones, int ownFieldType, boolean withFreeSpace) {
+        int centerIndex = stones.length / 2;
+        boolean blockedLeft = false;
+        boolean blockedRight = false;
+        int length = 0;
+        for (int i = 1; i <= centerIndex; i++) {
+            if (!blockedLeft) {
+                if (isFieldOkay(stones[centerIndex - i], ownFieldType, withFreeSpace)) {
+                    length++;
+                } else {
+                    blockedLeft = true;
+                }
+            }
+            if (!blockedRight) {
+                if (isFieldOkay(stones[centerIndex + i], ownFieldType, withFreeSpace)) {
+                    length++;
+                } else {
+                    blockedRight = true;
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Counts the ends of the run of stones next to the middle of the row
+     * which are blocked by opponent stones or blocked fields.
+     *
+     * @param stones field types of the row
+     * @param ownFieldType field type of the player's stones
+     * @return number of blocked ends
+     */
+    static int countBlockedEnds(int[] stones, int ownFieldType) {
+        int centerIndex = stones.length / 2;
+        int blockedEnds = 0;
+        int left = centerIndex - 1;
+        while (left >= 0 && isFieldOkay(stones[left], ownFieldType, false)) {
+            left--;
+        }
+        if (left >= 0 && stones[left] != OpponentEngine.FREE_FIELD) {
+            blockedEnds++;
+        }
+        int right = centerIndex + 1;
+        while (right < stones.length && isFieldOkay(stones[right], ownFieldType, false)) {
+            right++;
+        }
+        if (right < stones.length && stones[right] != OpponentEngine.FREE_FIELD) {
+            blockedEnds++;
+        }
+        return blockedEnds;
+    }
+
+    private static boolean isFieldOkay(int type, int ownFieldType, boolean isFreeFieldOkay) {
+        return type == ownFieldType || type == OpponentEngine.JOKER_FIELD
+                || (isFreeFieldOkay && type == OpponentEngine.FREE_FIELD);
+    }
+
+    /**
+     * Tables are equal if they score every row the same, i.e. they have the
+     * same row length, the same rule behaviour and the same weights object.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ScoringTable)) {
+            return false;
+        }
+        ScoringTable other = (ScoringTable) obj;
+        return stonesInARowToWin == other.stonesInARowToWin && usesBlockedEnds == other.usesBlockedEnds
+                && exact == other.exact && weights == other.weights;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((stonesInARowToWin * 31 + (usesBlockedEnds ? 1 : 0)) * 31 + (exact ? 1 : 0)) * 31
+                + System.identityHashCode(weights);
+    }
+}
@@ -0,0 +1,431 @@
+package jomoku.opponent;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import jomoku.Stone.Position;
+import jomoku.Zobrist;
+
+/**
+ * Alpha-beta search on top of the incrementally updated field scores of an
+ * opponent engine. Only the fields with the highest scores are considered at
+ * each node, the leaves are evaluated by the difference of the best own and
+ * the best opponent field score.
+ *
+ * The root moves are searched with a window bounded by the worst of the
+ * current best moves, so the requested number of best moves (each with its
+ * principal variation) is found in one pass.
+ *
+ * The search places and removes stones in the engine, it has to be the only
+ * user of the engine while it runs.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class Search {
+
+    /**
+     * Default number of fields considered at each node.
+     */
+    public static final int DEFAULT_WIDTH = 10;
+    /**
+     * Default number of transposition table entries.
+     */
+    public static final int DEFAULT_TABLE_SIZE = 1 << 16;
+    /**
+     * Value of a won position, reduced by the number of plies to the win.
+     */
+    public static final double WIN_SCORE = 1e9;
+    private static final double INFINITY = 2e9;
+    private static final int MAX_PLY = 64;
+    private static final Comparator<Candidate> CANDIDATE_COMPARATOR = new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate o1, Candidate o2) {
+            return Double.compare(o1.getValue(), o2.getValue());
+        }
+    };
+    private OpponentEngine engine;
+    private int width;
+    private int rows;
+    private TranspositionTable table;
+    private int[][] moves = new int[MAX_PLY][];
+    private double[][] moveScores = new double[MAX_PLY][];
+    private int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private int[] pvLength = new int[MAX_PLY + 1];
+    private long deadline;
+    private volatile boolean stopped;
+    private long nodes;
+    private long tableProbes;
+    private long tableHits;
+    private int completedDepth;
+    private int currentDepth;
+    private Candidate[] best = new Candidate[0];
+    private ProgressListener progressListener;
+    private long progressInterval;
+    private long startTime;
+    private long nextProgressTime;
+
+    /**
+     * Constructs a search.
+     *
+     * @param engine initialized engine the search plays its moves in
+     * @param width number of fields considered at each node
+     */
+    public Search(OpponentEngine engine, int width) {
+        this(engine, width, new TranspositionTable(DEFAULT_TABLE_SIZE));
+    }
+
+    Search(OpponentEngine engine, int width, TranspositionTable table) {
+        this.engine = engine;
+        this.width = width;
+        this.table = table;
+    }
+
+    /**
+     * Searches the best moves for the player of the engine with iterative
+     * deepening.
+     *
+     * @param numberOfCandidates maximum number of returned moves
+     * @param maxDepth maximum search depth in plies, 0 returns the moves with
+     * the highest field scores
+     * @param timeLimit time limit in milliseconds, 0 means no limit. When the
+     * limit is reached the result of the last completed depth is returned,
+     * the same applies when the searching thread is interrupted.
+     * @return the best moves, the best first
+     */
+    public Candidate[] search(int numberOfCandidates, int maxDepth, long timeLimit) {
+        rows = engine.getNumberOfRows();
+        startTime = System.nanoTime();
+        nextProgressTime = startTime + progressInterval;
+        deadline = timeLimit > 0 ? startTime + timeLimit * 1000000 : 0;
+        stopped = false;
+        nodes = 0;
+        tableProbes = 0;
+        tableHits = 0;
+        completedDepth = 0;
+        table.nextGeneration();
+        int rootCount = generateMoves(0, Math.max(width, numberOfCandidates), -1, OpponentEngine.OWN_FIELD);
+        int[] rootMoves = moves[0].clone();
+        double[] rootValues = moveScores[0].clone();
+        best = new Candidate[Math.min(numberOfCandidates, rootCount)];
+        for (int i = 0; i < best.length; i++) {
+            best[i] = new Candidate(rootMoves[i] / rows, rootMoves[i] % rows, rootValues[i],
+                    new Position[]{new Position(rootMoves[i] / rows, rootMoves[i] % rows)});
+        }
+        for (int depth = 1; depth <= maxDepth && !stopped; depth++) {
+            currentDepth = depth;
+            PriorityQueue<Candidate> heap = new PriorityQueue<>(numberOfCandidates + 1, CANDIDATE_COMPARATOR);
+            for (int i = 0; i < rootCount && !stopped; i++) {
+                double alpha = heap.size() == numberOfCandidates ? heap.peek().getValue() : -INFINITY;
+                int column = rootMoves[i] / rows;
+                int row = rootMoves[i] % rows;
+                double value = searchMove(column, row, OpponentEngine.OWN_FIELD, depth, 0, -INFINITY, -alpha);
+                if (stopped) {
+                    break;
+                }
+                rootValues[i] = value;
+                if (value > alpha) {
+                    heap.add(new Candidate(column, row, value, getPrincipalVariation()));
+                    if (heap.size() > numberOfCandidates) {
+                        heap.poll();
+                    }
+                }
+            }
+            if (stopped) {
+                break;
+            }
+            best = new Candidate[heap.size()];
+            for (int i = best.length - 1; i >= 0; i--) {
+                best[i] = heap.poll();
+            }
+            completedDepth = depth;
+            reportProgress(System.nanoTime());
+            sortMoves(rootMoves, rootValues, rootCount);
+            if (best.length > 0 && Math.abs(best[0].getValue()) > WIN_SCORE - MAX_PLY) {
+                break;
+            }
+        }
+        EngineMetrics.getGlobal().addSearch(nodes, System.nanoTime() - startTime, tableProbes, tableHits);
+        engine.flushMetrics();
+        return best;
+    }
+
+    /**
+     * Places the given stone, searches the resulting position and removes the
+     * stone again. The principal variation starting with the stone is stored
+     * at the given ply.
+     *
+     * @return value of the move for the player placing the stone
+     */
+    private double searchMove(int column, int row, int type, int depth, int ply, double alpha, double beta) {
+        double value;
+        engine.setFieldType(column, row, type);
+        if (engine.isWinningStone(column, row, type)) {
+            pvLength[ply + 1] = 0;
+            value = WIN_SCORE - ply;
+        } else {
+            value = -negamax(depth - 1, ply + 1, alpha, beta, type != OpponentEngine.OWN_FIELD);
+        }
+        engine.setFieldType(column, row, OpponentEngine.FREE_FIELD);
+        pv[ply][0] = column * rows + row;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+        return value;
+    }
+
+    private double negamax(int depth, int ply, double alpha, double beta, boolean ownToMove) {
+        nodes++;
+        pvLength[ply] = 0;
+        if ((nodes & 1023) == 0) {
+            //An interrupted search (e.g. a cancelled move) stops like a timed out one
+            if (Thread.currentThread().isInterrupted()) {
+                stopped = true;
+            }
+            if (deadline != 0 || progressListener != null) {
+                long time = System.nanoTime();
+                if (deadline != 0 && time > deadline) {
+                    stopped = true;
+                }
+                if (progressListener != null && time >= nextProgressTime) {
+                    reportProgress(time);
+                }
+            }
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return engine.evaluate(ownToMove);
+        }
+        long key = engine.getHash() ^ (ownToMove ? 0 : Zobrist.SIDE_KEY);
+        int ttMove = -1;
+        int slot = table.probe(key);
+        tableProbes++;
+        if (slot != -1) {
+            tableHits++;
+            ttMove = table.getMove(slot);
+            if (table.getDepth(slot) >= depth) {
+                double value = fromTableValue(table.getValue(slot), ply);
+                byte flag = table.getFlag(slot);
+                if (flag == TranspositionTable.EXACT
+                        || (flag == TranspositionTable.LOWER_BOUND && value >= beta)
+                        || (flag == TranspositionTable.UPPER_BOUND && value <= alpha)) {
+                    return value;
+                }
+            }
+        }
+        int type = ownToMove ? OpponentEngine.OWN_FIELD : OpponentEngine.OPPONENT_FIELD;
+        int count = generateMoves(ply, width, ttMove, type);
+        if (count == 0) {
+            return 0;
+        }
+        double originalAlpha = alpha;
+        double best = -INFINITY;
+        int bestMove = -1;
+        int[] plyMoves = moves[ply];
+        int[] bestPv = new int[0];
+        for (int i = 0; i < count; i++) {
+            int cell = plyMoves[i];
+            double value = searchMove(cell / rows, cell % rows, type, depth, ply, -beta, -alpha);
+            if (stopped) {
+                return 0;
+            }
+            if (value > best) {
+                best = value;
+                bestMove = cell;
+                bestPv = Arrays.copyOf(pv[ply], pvLength[ply]);
+                if (value > alpha) {
+                    alpha = value;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        System.arraycopy(bestPv, 0, pv[ply], 0, bestPv.length);
+        pvLength[ply] = bestPv.length;
+        byte flag = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : best >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+        table.store(key, depth, toTableValue(best, ply), flag, bestMove);
+        return best;
+    }
+
+    /**
+     * Win values are stored relative to the position, not to the root.
+     */
+    private static double toTableValue(double value, int ply) {
+        if (value > WIN_SCORE - MAX_PLY) {
+            return value + ply;
+        } else if (value < -WIN_SCORE + MAX_PLY) {
+            return value - ply;
+        }
+        return value;
+    }
+
+    private static double fromTableValue(double value, int ply) {
+        if (value > WIN_SCORE - MAX_PLY) {
+            return value - ply;
+        } else if (value < -WIN_SCORE + MAX_PLY) {
+            return value + ply;
+        }
+        return value;
+    }
+
+    /**
+     * Collects the free fields with the highest scores, the given preferred
+     * field first. Fields the side to move mustn't play (see
+     * OpponentEngine#isForbidden) and fields outside the candidate radius (see
+     * OpponentEngine#isCandidate) are skipped.
+     *
+     * @param ply ply the moves are stored for
+     * @param count maximum number of fields
+     * @param preferred field index searched first or -1
+     * @param type type of the stones of the side to move
+     * @return number of collected fields
+     */
+    private int generateMoves(int ply, int count, int preferred, int type) {
+        if (moves[ply] == null || moves[ply].length < count) {
+            moves[ply] = new int[count];
+            moveScores[ply] = new double[count];
+        }
+        int[] cells = moves[ply];
+        double[] scores = moveScores[ply];
+        int size = 0;
+        int columns = engine.getNumberOfColumns();
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                if (engine.getFieldType(i, j) != OpponentEngine.FREE_FIELD) {
+                    continue;
+                }
+                int cell = i * rows + j;
+                double score = cell == preferred ? INFINITY : engine.getScore(i, j);
+                if ((size < count || score > scores[size - 1]) && engine.isCandidate(i, j)
+                        && !engine.isForbidden(i, j, type)) {
+                    int k = size < count ? size++ : size - 1;
+                    while (k > 0 && scores[k - 1] < score) {
+                        cells[k] = cells[k - 1];
+                        scores[k] = scores[k - 1];
+                        k--;
+                    }
+                    cells[k] = cell;
+                    scores[k] = score;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static void sortMoves(int[] cells, double[] values, int count) {
+        for (int i = 1; i < count; i++) {
+            int cell = cells[i];
+            double value = values[i];
+            int k = i;
+            while (k > 0 && values[k - 1] < value) {
+                cells[k] = cells[k - 1];
+                values[k] = values[k - 1];
+                k--;
+            }
+            cells[k] = cell;
+            values[k] = value;
+        }
+    }
+
+    private Position[] getPrincipalVariation() {
+        Position[] variation = new Position[pvLength[0]];
+        for (int i = 0; i < variation.length; i++) {
+            variation[i] = new Position(pv[0][i] / rows, pv[0][i] % rows);
+        }
+        return variation;
+    }
+
+    private void reportProgress(long time) {
+        if (progressListener != null && best.length > 0) {
+            nextProgressTime = time + progressInterval;
+            long elapsed = Math.max(1, time - startTime);
+            progressListener.searchProgress(currentDepth, nodes, nodes * 1000000000 / elapsed, best[0]);
+        }
+    }
+
+    /**
+     * Sets the listener informed about the progress of the search, on the
+     * searching thread.
+     *
+     * @param listener listener or null
+     * @param intervalMillis minimum time between two progress reports in
+     * milliseconds (a report is also sent after each completed depth)
+     */
+    public void setProgressListener(ProgressListener listener, long intervalMillis) {
+        this.progressListener = listener;
+        this.progressInterval = intervalMillis * 1000000;
+    }
+
+    /**
+     * Stops the running search, it returns the result of the last completed
+     * depth. Can be called from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     *
+     * @return number of positions visited by the last search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     *
+     * @return the deepest completed depth of the last search
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Listener informed about the progress of a search.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called periodically while searching.
+         *
+         * @param depth depth currently searched
+         * @param nodes number of positions visited so far
+         * @param nodesPerSecond positions visited per second
+         * @param best best move of the last completed depth
+         */
+        void searchProgress(int depth, long nodes, long nodesPerSecond, Candidate best);
+    }
+
+    /**
+     * A move found by the search, with its value and principal variation.
+     */
+    public static class Candidate extends BoardMatrix.MatrixValueContainer {
+
+        private Position[] principalVariation;
+
+        /**
+         * Constructs a candidate.
+         *
+         * @param column column number, 0 is the first column
+         * @param row row number, 0 is the first row
+         * @param value value of the move for the player placing it
+         * @param principalVariation expected continuation starting with this
+         * move, the players alternating
+         */
+        public Candidate(int column, int row, double value, Position[] principalVariation) {
+            super(column, row, value);
+            this.principalVariation = principalVariation;
+        }
+
+        /**
+         *
+         * @return expected continuation starting with this move
+         */
+        public Position[] getPrincipalVariation() {
+            return principalVariation;
+        }
+    }
+}
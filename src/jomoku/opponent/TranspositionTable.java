@@ -0,0 +1,123 @@
+package jomoku.opponent;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size hash table storing search results by position hash, so positions
+ * reached by different move orders are searched only once.
+ *
+ * The table is kept between the searches of an engine, the entries of
+ * earlier searches stay valid. Every entry stores the generation of the search
+ * that stored it: an entry of the current search is only replaced by a result
+ * of at least the same depth, entries of earlier searches are always
+ * replaced.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+class TranspositionTable {
+
+    /**
+     * The stored value is exact.
+     */
+    static final byte EXACT = 0;
+    /**
+     * The stored value is a lower bound (the search failed high).
+     */
+    static final byte LOWER_BOUND = 1;
+    /**
+     * The stored value is an upper bound (the search failed low).
+     */
+    static final byte UPPER_BOUND = 2;
+    private final long[] keys;
+    private final double[] values;
+    private final byte[] depths;
+    private final byte[] flags;
+    private final int[] moves;
+    private final byte[] generations;
+    private final int mask;
+    private byte generation;
+
+    /**
+     * Constructs a table.
+     *
+     * @param size number of entries, rounded down to a power of two
+     */
+    TranspositionTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size, 16));
+        keys = new long[capacity];
+        values = new double[capacity];
+        depths = new byte[capacity];
+        flags = new byte[capacity];
+        moves = new int[capacity];
+        generations = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Starts a new search, the entries stored so far become replaceable.
+     */
+    void nextGeneration() {
+        generation++;
+    }
+
+    /**
+     * Removes all entries, e.g. when the board changes.
+     */
+    void clear() {
+        Arrays.fill(keys, 0);
+    }
+
+    /**
+     * Looks up the given position.
+     *
+     * @param key hash of the position
+     * @return slot of the entry or -1 if there's none
+     */
+    int probe(long key) {
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        if (keys[slot] == key && key != 0) {
+            return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a search result, unless the slot holds a deeper result of
+     * another position of the current search.
+     *
+     * @param key hash of the position
+     * @param depth remaining search depth of the result
+     * @param value value of the position
+     * @param flag EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param move index of the best field or -1
+     */
+    void store(long key, int depth, double value, byte flag, int move) {
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        if (keys[slot] != key && generations[slot] == generation && depths[slot] > depth) {
+            return;
+        }
+        keys[slot] = key;
+        generations[slot] = generation;
+        values[slot] = value;
+        depths[slot] = (byte) depth;
+        flags[slot] = flag;
+        moves[slot] = move;
+    }
+
+    double getValue(int slot) {
+        return values[slot];
+    }
+
+    int getDepth(int slot) {
+        return depths[slot];
+    }
+
+    byte getFlag(int slot) {
+        return flags[slot];
+    }
+
+    int getMove(int slot) {
+        return moves[slot];
+    }
+}
@@ -0,0 +1,671 @@
+package jomoku.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import jomoku.Game;
+import jomoku.Stone;
+import jomoku.WinRule;
+import jomoku.Zobrist;
+
+/**
+ * Database of recorded games, answering which games have reached a position
+ * and which moves have been played next with which results.
+ *
+ * The database is a directory with three files:
+ * <ul>
+ * <li>games.dat - the game records in the format of the GameRecordWriter,
+ * appended and read through memory mapped chunks</li>
+ * <li>positions.idx - open addressing hash table (16 byte slots: position key,
+ * head of the occurrence list) mapping the position key to its latest
+ * occurrence</li>
+ * <li>occurrences.dat - occurrences (16 bytes: game offset and ply, next
+ * occurrence of the same position), linked from the newest to the oldest</li>
+ * </ul>
+ * All three are accessed through memory mapped buffers, so the heap usage
+ * doesn't depend on the number of games or positions. If the index doesn't
+ * match the games file when the database is opened (e.g. because it hasn't
+ * been closed properly) it's rebuilt from the games.
+ *
+ * The methods are synchronized, the database may be shared by several
+ * threads.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class GameDatabase implements Closeable {
+
+    /**
+     * Name of the file the games are stored in.
+     */
+    public static final String GAMES_FILE_NAME = "games.dat";
+    /**
+     * Name of the position index file.
+     */
+    public static final String INDEX_FILE_NAME = "positions.idx";
+    /**
+     * Name of the occurrence file.
+     */
+    public static final String OCCURRENCES_FILE_NAME = "occurrences.dat";
+    /**
+     * Field types used for the position keys.
+     */
+    public static final int BLACK_KEY_TYPE = 1, WHITE_KEY_TYPE = 2, JOKER_KEY_TYPE = 3, BLOCKED_KEY_TYPE = 4;
+    private static final int INDEX_MAGIC = 0x4A4D4B49;
+    private static final int INDEX_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0, VERSION_OFFSET = 4, CLEAN_OFFSET = 8, CAPACITY_OFFSET = 16,
+            POSITIONS_OFFSET = 24, OCCURRENCES_OFFSET = 32, GAMES_OFFSET = 40, GAMES_SIZE_OFFSET = 48;
+    private static final int ENTRY_SIZE = 16;
+    private static final int ENTRIES_PER_CHUNK_BITS = 20;
+    private static final long ENTRY_INDEX_MASK = (1L << ENTRIES_PER_CHUNK_BITS) - 1;
+    private static final long INITIAL_CAPACITY = 1 << 16;
+    private static final long GAMES_CHUNK_SIZE = 1L << 30;
+    /**
+     * Games chunks overlap by this number of bytes, so every record lies in
+     * the chunk it starts in.
+     */
+    private static final long GAMES_CHUNK_OVERLAP = GameRecordReader.MAX_RECORD_LENGTH + 8;
+    private static final int PLY_BITS = 16;
+    private static final int MAX_PLY = (1 << PLY_BITS) - 1;
+    private static final Comparator<MoveStatistics> COUNT_COMPARATOR = new Comparator<MoveStatistics>() {
+        @Override
+        public int compare(MoveStatistics o1, MoveStatistics o2) {
+            return Integer.compare(o2.getNumberOfGames(), o1.getNumberOfGames());
+        }
+    };
+    private Path directory;
+    private FileChannel gamesChannel;
+    private GameRecordWriter writer;
+    /**
+     * Size of the games file including the records still buffered by the
+     * writer.
+     */
+    private long gamesSize;
+    private long flushedGamesSize;
+    private MappedByteBuffer[] gamesChunks = new MappedByteBuffer[0];
+    private FileChannel indexChannel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer[] slotChunks;
+    private long capacity;
+    private long numberOfPositions;
+    private FileChannel occurrencesChannel;
+    private MappedByteBuffer[] occurrenceChunks = new MappedByteBuffer[0];
+    private long numberOfOccurrences;
+    private long numberOfGames;
+
+    /**
+     * Opens the database in the given directory, creates it if it doesn't
+     * exist.
+     *
+     * @param directory directory of the database
+     * @throws IOException the files can't be opened or contain corrupt data
+     */
+    public GameDatabase(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        gamesChannel = FileChannel.open(directory.resolve(GAMES_FILE_NAME), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        gamesSize = gamesChannel.size();
+        flushedGamesSize = gamesSize;
+        gamesChannel.position(gamesSize);
+        writer = new GameRecordWriter(Channels.newOutputStream(gamesChannel));
+        if (!openIndex()) {
+            rebuildIndex();
+        }
+        header.putInt(CLEAN_OFFSET, 0);
+        header.force();
+    }
+
+    /**
+     * Opens the index files.
+     *
+     * @return false if the index has to be rebuilt
+     */
+    private boolean openIndex() throws IOException {
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE_NAME), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        occurrencesChannel = FileChannel.open(directory.resolve(OCCURRENCES_FILE_NAME), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean valid = indexChannel.size() >= HEADER_SIZE;
+        header = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        valid = valid && header.getInt(MAGIC_OFFSET) == INDEX_MAGIC && header.getInt(VERSION_OFFSET) == INDEX_VERSION
+                && header.getInt(CLEAN_OFFSET) == 1 && header.getLong(GAMES_SIZE_OFFSET) == gamesSize;
+        if (!valid) {
+            return false;
+        }
+        capacity = header.getLong(CAPACITY_OFFSET);
+        numberOfPositions = header.getLong(POSITIONS_OFFSET);
+        numberOfOccurrences = header.getLong(OCCURRENCES_OFFSET);
+        numberOfGames = header.getLong(GAMES_OFFSET);
+        slotChunks = mapEntries(indexChannel, HEADER_SIZE, capacity);
+        occurrenceChunks = mapEntries(occurrencesChannel, 0,
+                (numberOfOccurrences + ENTRY_INDEX_MASK) & ~ENTRY_INDEX_MASK);
+        return true;
+    }
+
+    /**
+     * Clears the index and adds the occurrences of all games again.
+     */
+    private void rebuildIndex() throws IOException {
+        occurrenceChunks = new MappedByteBuffer[0];
+        occurrencesChannel.truncate(0);
+        indexChannel.truncate(HEADER_SIZE);
+        for (int i = 0; i < HEADER_SIZE; i += 8) {
+            header.putLong(i, 0);
+        }
+        header.putInt(MAGIC_OFFSET, INDEX_MAGIC);
+        header.putInt(VERSION_OFFSET, INDEX_VERSION);
+        capacity = INITIAL_CAPACITY;
+        numberOfPositions = 0;
+        numberOfOccurrences = 0;
+        numberOfGames = 0;
+        slotChunks = mapEntries(indexChannel, HEADER_SIZE, capacity);
+        long offset = 0;
+        while (offset < gamesSize) {
+            ByteBuffer buffer = getGamesBuffer(offset);
+            int start = buffer.position();
+            GameRecord record = GameRecordReader.decode(buffer);
+            addOccurrences(record, offset);
+            offset += buffer.position() - start;
+        }
+        writeHeader();
+    }
+
+    /**
+     * Maps the entries of a file in chunks.
+     *
+     * @param channel file
+     * @param start offset of the first entry
+     * @param numberOfEntries number of mapped entries
+     * @return mapped chunks
+     */
+    private static MappedByteBuffer[] mapEntries(FileChannel channel, long start, long numberOfEntries)
+            throws IOException {
+        int numberOfChunks = (int) ((numberOfEntries + ENTRY_INDEX_MASK) >>> ENTRIES_PER_CHUNK_BITS);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[numberOfChunks];
+        for (int i = 0; i < numberOfChunks; i++) {
+            long entries = Math.min(numberOfEntries - ((long) i << ENTRIES_PER_CHUNK_BITS), 1L << ENTRIES_PER_CHUNK_BITS);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    start + ((long) i << ENTRIES_PER_CHUNK_BITS) * ENTRY_SIZE, entries * ENTRY_SIZE);
+        }
+        return chunks;
+    }
+
+    private static long getEntryLong(MappedByteBuffer[] chunks, long entry, int field) {
+        return chunks[(int) (entry >>> ENTRIES_PER_CHUNK_BITS)]
+                .getLong((int) (entry & ENTRY_INDEX_MASK) * ENTRY_SIZE + field);
+    }
+
+    private static void putEntryLong(MappedByteBuffer[] chunks, long entry, int field, long value) {
+        chunks[(int) (entry >>> ENTRIES_PER_CHUNK_BITS)]
+                .putLong((int) (entry & ENTRY_INDEX_MASK) * ENTRY_SIZE + field, value);
+    }
+
+    /**
+     * Appends the given game and indexes all of its positions.
+     *
+     * @param record game record
+     * @return offset of the record in the games file
+     * @throws IOException writing failed
+     */
+    public synchronized long add(GameRecord record) throws IOException {
+        long offset = gamesSize;
+        gamesSize += writer.write(record);
+        addOccurrences(record, offset);
+        return offset;
+    }
+
+    /**
+     * Adds all records read by the given reader.
+     *
+     * @param reader record reader
+     * @return number of added records
+     * @throws IOException reading or writing failed
+     */
+    public synchronized long addAll(GameRecordReader reader) throws IOException {
+        long count = 0;
+        GameRecord record;
+        while ((record = reader.read()) != null) {
+            add(record);
+            count++;
+        }
+        return count;
+    }
+
+    private void addOccurrences(GameRecord record, long offset) throws IOException {
+        long[] keys = getPositionKeys(record);
+        for (int ply = 0; ply < keys.length && ply <= MAX_PLY; ply++) {
+            addOccurrence(keys[ply], offset << PLY_BITS | ply);
+        }
+        numberOfGames++;
+    }
+
+    private void addOccurrence(long key, long occurrence) throws IOException {
+        if ((numberOfPositions + 1) * 2 > capacity) {
+            growIndex();
+        }
+        long storedKey = toStoredKey(key);
+        long slot = findSlot(slotChunks, capacity, storedKey);
+        long head = getEntryLong(slotChunks, slot, 8);
+        if (head == 0) {
+            putEntryLong(slotChunks, slot, 0, storedKey);
+            numberOfPositions++;
+        }
+        long entry = numberOfOccurrences++;
+        if ((entry >>> ENTRIES_PER_CHUNK_BITS) >= occurrenceChunks.length) {
+            occurrenceChunks = Arrays.copyOf(occurrenceChunks, occurrenceChunks.length + 1);
+            occurrenceChunks[occurrenceChunks.length - 1] = occurrencesChannel.map(FileChannel.MapMode.READ_WRITE,
+                    (entry >>> ENTRIES_PER_CHUNK_BITS << ENTRIES_PER_CHUNK_BITS) * ENTRY_SIZE,
+                    (1L << ENTRIES_PER_CHUNK_BITS) * ENTRY_SIZE);
+        }
+        putEntryLong(occurrenceChunks, entry, 0, occurrence);
+        putEntryLong(occurrenceChunks, entry, 8, head);
+        putEntryLong(slotChunks, slot, 8, entry + 1);
+    }
+
+    /**
+     * Keys are stored with the lowest bit set, an empty slot has the key 0.
+     */
+    private static long toStoredKey(long key) {
+        return key | 1;
+    }
+
+    /**
+     * Returns the slot with the given key or the empty slot it would be stored
+     * in.
+     */
+    private static long findSlot(MappedByteBuffer[] slots, long capacity, long storedKey) {
+        long mask = capacity - 1;
+        long slot = (storedKey ^ (storedKey >>> 32)) & mask;
+        long key;
+        while ((key = getEntryLong(slots, slot, 0)) != 0 && key != storedKey) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the capacity of the hash table by rehashing it into a new file,
+     * which replaces the old one.
+     */
+    private void growIndex() throws IOException {
+        long newCapacity = capacity * 2;
+        Path newPath = directory.resolve(INDEX_FILE_NAME + ".tmp");
+        try (FileChannel newChannel = FileChannel.open(newPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer newHeader = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            MappedByteBuffer[] newSlots = mapEntries(newChannel, HEADER_SIZE, newCapacity);
+            for (long i = 0; i < capacity; i++) {
+                long key = getEntryLong(slotChunks, i, 0);
+                if (key != 0) {
+                    long slot = findSlot(newSlots, newCapacity, key);
+                    putEntryLong(newSlots, slot, 0, key);
+                    putEntryLong(newSlots, slot, 8, getEntryLong(slotChunks, i, 8));
+                }
+            }
+            for (int i = 0; i < HEADER_SIZE; i += 8) {
+                newHeader.putLong(i, header.getLong(i));
+            }
+            header = newHeader;
+            slotChunks = newSlots;
+            capacity = newCapacity;
+            writeHeader();
+        }
+        indexChannel.close();
+        Files.move(newPath, directory.resolve(INDEX_FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE_NAME), StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    private void writeHeader() {
+        header.putLong(CAPACITY_OFFSET, capacity);
+        header.putLong(POSITIONS_OFFSET, numberOfPositions);
+        header.putLong(OCCURRENCES_OFFSET, numberOfOccurrences);
+        header.putLong(GAMES_OFFSET, numberOfGames);
+        header.putLong(GAMES_SIZE_OFFSET, gamesSize);
+    }
+
+    /**
+     * Returns a buffer positioned at the given offset of the games file,
+     * containing at least the complete record starting there.
+     */
+    private ByteBuffer getGamesBuffer(long offset) throws IOException {
+        if (offset >= flushedGamesSize) {
+            writer.flush();
+            flushedGamesSize = gamesSize;
+        }
+        int chunk = (int) (offset / GAMES_CHUNK_SIZE);
+        long chunkStart = chunk * GAMES_CHUNK_SIZE;
+        long chunkEnd = Math.min(chunkStart + GAMES_CHUNK_SIZE + GAMES_CHUNK_OVERLAP, flushedGamesSize);
+        if (chunk >= gamesChunks.length) {
+            gamesChunks = Arrays.copyOf(gamesChunks, chunk + 1);
+        }
+        if (gamesChunks[chunk] == null || gamesChunks[chunk].capacity() < chunkEnd - chunkStart) {
+            gamesChunks[chunk] = gamesChannel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart);
+        }
+        ByteBuffer buffer = gamesChunks[chunk].duplicate();
+        buffer.position((int) (offset - chunkStart));
+        return buffer;
+    }
+
+    /**
+     * Reads the record at the given offset of the games file.
+     *
+     * @param offset offset of the record, as returned by add or given by an
+     * occurrence
+     * @return game record
+     * @throws IOException reading failed or the file contains corrupt data
+     */
+    public synchronized GameRecord getRecord(long offset) throws IOException {
+        if (offset < 0 || offset >= gamesSize) {
+            throw new IllegalArgumentException("No record at offset " + offset + ".");
+        }
+        return GameRecordReader.decode(getGamesBuffer(offset));
+    }
+
+    /**
+     * Returns the occurrences of the position with the given key, the newest
+     * first.
+     *
+     * @param positionKey key of the position
+     * @param maxOccurrences maximum number of returned occurrences
+     * @return occurrences
+     */
+    public synchronized List<Occurrence> find(long positionKey, int maxOccurrences) {
+        ArrayList<Occurrence> occurrences = new ArrayList<>();
+        long storedKey = toStoredKey(positionKey);
+        long slot = findSlot(slotChunks, capacity, storedKey);
+        long entry = getEntryLong(slotChunks, slot, 8);
+        while (entry != 0 && occurrences.size() < maxOccurrences) {
+            long occurrence = getEntryLong(occurrenceChunks, entry - 1, 0);
+            occurrences.add(new Occurrence(occurrence >>> PLY_BITS, (int) (occurrence & MAX_PLY)));
+            entry = getEntryLong(occurrenceChunks, entry - 1, 8);
+        }
+        return occurrences;
+    }
+
+    /**
+     * Returns the moves played next in the games having reached the position
+     * of the given game, the most frequent first.
+     *
+     * @param game game in the position
+     * @param maxGames maximum number of examined games (the newest are
+     * examined)
+     * @return statistics of the next moves
+     * @throws IOException reading a game failed
+     */
+    public List<MoveStatistics> getNextMoves(Game game, int maxGames) throws IOException {
+        return getNextMoves(getPositionKey(game), maxGames);
+    }
+
+    /**
+     * Returns the moves played next in the games having reached the position
+     * with the given key, the most frequent first.
+     *
+     * @param positionKey key of the position
+     * @param maxGames maximum number of examined games (the newest are
+     * examined)
+     * @return statistics of the next moves
+     * @throws IOException reading a game failed
+     */
+    public synchronized List<MoveStatistics> getNextMoves(long positionKey, int maxGames) throws IOException {
+        HashMap<Integer, MoveStatistics> statistics = new HashMap<>();
+        for (Occurrence occurrence : find(positionKey, maxGames)) {
+            GameRecord record = getRecord(occurrence.getGameOffset());
+            if (occurrence.getPly() >= record.getNumberOfMoves()) {
+                continue;
+            }
+            int move = record.getMoves()[occurrence.getPly()];
+            MoveStatistics moveStatistics = statistics.get(move);
+            if (moveStatistics == null) {
+                moveStatistics = new MoveStatistics(record.getMovePosition(occurrence.getPly()),
+                        record.isWhiteMove(occurrence.getPly()));
+                statistics.put(move, moveStatistics);
+            }
+            moveStatistics.add(record.getResult());
+        }
+        ArrayList<MoveStatistics> list = new ArrayList<>(statistics.values());
+        Collections.sort(list, COUNT_COMPARATOR);
+        return list;
+    }
+
+    /**
+     * Returns the position key of the current position of the given game.
+     *
+     * @param game game
+     * @return position key
+     */
+    public static long getPositionKey(Game game) {
+        int rows = game.getNumberOfRows();
+        long key = getBoardKey(game.getNumberOfColumns(), rows, game.getNumberOfStonesInARowToWin(),
+                game.getWinRule());
+        for (int i = 0; i < game.getNumberOfColumns(); i++) {
+            for (int j = 0; j < rows; j++) {
+                int type = 0;
+                switch (game.getFieldType(i, j)) {
+                    case BLACK:
+                        type = BLACK_KEY_TYPE;
+                        break;
+                    case WHITE:
+                        type = WHITE_KEY_TYPE;
+                        break;
+                    case JOKER:
+                        type = JOKER_KEY_TYPE;
+                        break;
+                    case BLOCKED:
+                        type = BLOCKED_KEY_TYPE;
+                        break;
+                    default:
+                }
+                key ^= Zobrist.key(i * rows + j, type);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Returns the position keys of all positions of the given game, from the
+     * initial position (index 0) to the final position.
+     *
+     * @param record game record
+     * @return position keys
+     */
+    public static long[] getPositionKeys(GameRecord record) {
+        long key = getBoardKey(record.getNumberOfColumns(), record.getNumberOfRows(),
+                record.getNumberOfStonesInARowToWin(), record.getWinRule());
+        for (int cell : record.getBlockedCells()) {
+            key ^= Zobrist.key(cell, BLOCKED_KEY_TYPE);
+        }
+        for (int cell : record.getJokerCells()) {
+            key ^= Zobrist.key(cell, JOKER_KEY_TYPE);
+        }
+        int[] moves = record.getMoves();
+        long[] keys = new long[moves.length + 1];
+        keys[0] = key;
+        for (int i = 0; i < moves.length; i++) {
+            key ^= Zobrist.key(moves[i] >>> 1, (moves[i] & 1) != 0 ? WHITE_KEY_TYPE : BLACK_KEY_TYPE);
+            keys[i + 1] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Key distinguishing the positions of games with different rules.
+     */
+    private static long getBoardKey(int columns, int rows, int stonesInARowToWin, WinRule winRule) {
+        return Zobrist.key(columns << 16 | rows, 16 + stonesInARowToWin) ^ Zobrist.ruleKey(winRule);
+    }
+
+    /**
+     *
+     * @return number of games in the database
+     */
+    public synchronized long getNumberOfGames() {
+        return numberOfGames;
+    }
+
+    /**
+     *
+     * @return number of distinct positions in the database
+     */
+    public synchronized long getNumberOfPositions() {
+        return numberOfPositions;
+    }
+
+    /**
+     * Writes the buffered games and the index header to disk.
+     *
+     * @throws IOException writing failed
+     */
+    public synchronized void flush() throws IOException {
+        writer.flush();
+        flushedGamesSize = gamesSize;
+        writeHeader();
+    }
+
+    /**
+     * Flushes and closes the database, the index is marked as matching the
+     * games file.
+     *
+     * @throws IOException writing failed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+            for (MappedByteBuffer chunk : slotChunks) {
+                chunk.force();
+            }
+            for (MappedByteBuffer chunk : occurrenceChunks) {
+                chunk.force();
+            }
+            header.putInt(CLEAN_OFFSET, 1);
+            header.force();
+        } finally {
+            writer.close();
+            indexChannel.close();
+            occurrencesChannel.close();
+        }
+    }
+
+    /**
+     * Occurrence of a position in a game.
+     */
+    public static class Occurrence {
+
+        private long gameOffset;
+        private int ply;
+
+        /**
+         * Constructs an occurrence.
+         *
+         * @param gameOffset offset of the game record in the games file
+         * @param ply number of stones placed by the players before the
+         * position has been reached
+         */
+        public Occurrence(long gameOffset, int ply) {
+            this.gameOffset = gameOffset;
+            this.ply = ply;
+        }
+
+        /**
+         * @return the gameOffset
+         */
+        public long getGameOffset() {
+            return gameOffset;
+        }
+
+        /**
+         * @return the ply
+         */
+        public int getPly() {
+            return ply;
+        }
+    }
+
+    /**
+     * Number of games and results in which a move has been played.
+     */
+    public static class MoveStatistics {
+
+        private Stone.Position position;
+        private boolean white;
+        private int[] results = new int[GameRecord.Result.values().length];
+        private int numberOfGames = 0;
+
+        /**
+         * Constructs empty move statistics.
+         *
+         * @param position position of the move
+         * @param white Is it a move of the white player?
+         */
+        public MoveStatistics(Stone.Position position, boolean white) {
+            this.position = position;
+            this.white = white;
+        }
+
+        /**
+         * Adds a game in which the move has been played.
+         *
+         * @param result result of the game
+         */
+        public void add(GameRecord.Result result) {
+            results[result.ordinal()]++;
+            numberOfGames++;
+        }
+
+        /**
+         * @return the position
+         */
+        public Stone.Position getPosition() {
+            return position;
+        }
+
+        /**
+         *
+         * @return Is it a move of the white player?
+         */
+        public boolean isWhite() {
+            return white;
+        }
+
+        /**
+         * @return the numberOfGames
+         */
+        public int getNumberOfGames() {
+            return numberOfGames;
+        }
+
+        /**
+         * Returns the number of games with the given result.
+         *
+         * @param result result
+         * @return number of games
+         */
+        public int getNumberOfGames(GameRecord.Result result) {
+            return results[result.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            return position + " " + numberOfGames + " (" + results[GameRecord.Result.BLACK_WINS.ordinal()] + "/"
+                    + results[GameRecord.Result.WHITE_WINS.ordinal()] + "/"
+                    + results[GameRecord.Result.DRAWN.ordinal()] + ")";
+        }
+    }
+}
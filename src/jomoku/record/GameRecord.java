@@ -0,0 +1,227 @@
+package jomoku.record;
+
+import jomoku.Game;
+import jomoku.Stone;
+import jomoku.WinRule;
+
+/**
+ * Record of a game: the board, the win rule, the blocked fields, the joker
+ * stones, the stones of the players in the order they have been placed and
+ * the result.
+ *
+ * Fields are given by their cell index (column * number of rows + row), moves
+ * by their cell index shifted left by one, the lowest bit is set for stones of
+ * the white player.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class GameRecord {
+
+    private int numberOfColumns;
+    private int numberOfRows;
+    private int numberOfStonesInARowToWin;
+    private WinRule winRule;
+    private int[] blockedCells;
+    private int[] jokerCells;
+    private int[] moves;
+    private Result result;
+
+    /**
+     * Constructs a record of a freestyle game.
+     *
+     * @param numberOfColumns number of columns of the board
+     * @param numberOfRows number of rows of the board
+     * @param numberOfStonesInARowToWin minimum number of stones in a row to
+     * win
+     * @param blockedCells cell indices of the blocked fields
+     * @param jokerCells cell indices of the joker stones
+     * @param moves encoded moves in the order they have been placed
+     * @param result result of the game
+     */
+    public GameRecord(int numberOfColumns, int numberOfRows, int numberOfStonesInARowToWin,
+            int[] blockedCells, int[] jokerCells, int[] moves, Result result) {
+        this(numberOfColumns, numberOfRows, numberOfStonesInARowToWin, WinRule.FREESTYLE, blockedCells, jokerCells,
+                moves, result);
+    }
+
+    /**
+     * Constructs a game record.
+     *
+     * @param numberOfColumns number of columns of the board
+     * @param numberOfRows number of rows of the board
+     * @param numberOfStonesInARowToWin minimum number of stones in a row to
+     * win
+     * @param winRule rule deciding which rows win and which moves are allowed
+     * @param blockedCells cell indices of the blocked fields
+     * @param jokerCells cell indices of the joker stones
+     * @param moves encoded moves in the order they have been placed
+     * @param result result of the game
+     */
+    public GameRecord(int numberOfColumns, int numberOfRows, int numberOfStonesInARowToWin, WinRule winRule,
+            int[] blockedCells, int[] jokerCells, int[] moves, Result result) {
+        this.numberOfColumns = numberOfColumns;
+        this.numberOfRows = numberOfRows;
+        this.numberOfStonesInARowToWin = numberOfStonesInARowToWin;
+        this.winRule = winRule;
+        this.blockedCells = blockedCells;
+        this.jokerCells = jokerCells;
+        this.moves = moves;
+        this.result = result;
+    }
+
+    /**
+     * Encodes a move.
+     *
+     * @param cell cell index of the stone
+     * @param white Is it a stone of the white player?
+     * @return encoded move
+     */
+    public static int encodeMove(int cell, boolean white) {
+        return cell << 1 | (white ? 1 : 0);
+    }
+
+    /**
+     * Returns the cell index of the given position.
+     *
+     * @param position position on the board
+     * @return cell index
+     */
+    public int getCell(Stone.Position position) {
+        return position.getColumn() * numberOfRows + position.getRow();
+    }
+
+    /**
+     * Returns the position of the given cell index.
+     *
+     * @param cell cell index
+     * @return position on the board
+     */
+    public Stone.Position getPosition(int cell) {
+        return new Stone.Position(cell / numberOfRows, cell % numberOfRows);
+    }
+
+    /**
+     *
+     * @return number of recorded stones of the players
+     */
+    public int getNumberOfMoves() {
+        return moves.length;
+    }
+
+    /**
+     * Returns the position of the stone placed as the given move.
+     *
+     * @param index index of the move, 0 is the first stone
+     * @return position of the stone
+     */
+    public Stone.Position getMovePosition(int index) {
+        return getPosition(moves[index] >>> 1);
+    }
+
+    /**
+     * Is the stone placed as the given move a stone of the white player?
+     *
+     * @param index index of the move, 0 is the first stone
+     * @return Is it a stone of the white player?
+     */
+    public boolean isWhiteMove(int index) {
+        return (moves[index] & 1) != 0;
+    }
+
+    /**
+     * Creates a game with the board, the rule, the blocked fields and the
+     * joker stones of this record, without the moves.
+     *
+     * @return new game
+     */
+    public Game createGame() {
+        Game game = new Game(numberOfColumns, numberOfRows, numberOfStonesInARowToWin, winRule);
+        for (int cell : blockedCells) {
+            game.blockStonePosition(getPosition(cell));
+        }
+        for (int cell : jokerCells) {
+            game.placeJokerStone(getPosition(cell));
+        }
+        return game;
+    }
+
+    /**
+     * @return the numberOfColumns
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * @return the numberOfRows
+     */
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * @return the numberOfStonesInARowToWin
+     */
+    public int getNumberOfStonesInARowToWin() {
+        return numberOfStonesInARowToWin;
+    }
+
+    /**
+     * @return rule deciding which rows win and which moves are allowed
+     */
+    public WinRule getWinRule() {
+        return winRule;
+    }
+
+    /**
+     * @return cell indices of the blocked fields, not to be modified
+     */
+    public int[] getBlockedCells() {
+        return blockedCells;
+    }
+
+    /**
+     * @return cell indices of the joker stones, not to be modified
+     */
+    public int[] getJokerCells() {
+        return jokerCells;
+    }
+
+    /**
+     * @return the encoded moves, not to be modified
+     */
+    public int[] getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return the result
+     */
+    public Result getResult() {
+        return result;
+    }
+
+    /**
+     * Result of a recorded game.
+     */
+    public static enum Result {
+
+        /**
+         * The game hasn't ended (e.g. it has been aborted).
+         */
+        UNFINISHED,
+        /**
+         * The black player has won.
+         */
+        BLACK_WINS,
+        /**
+         * The white player has won.
+         */
+        WHITE_WINS,
+        /**
+         * The game has ended drawn.
+         */
+        DRAWN;
+    }
+}
@@ -0,0 +1,193 @@
+package jomoku.record;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import jomoku.WinRule;
+
+/**
+ * Reads the game records written by a GameRecordWriter from a stream, one
+ * after the other. The reader uses a fixed size buffer, so its memory usage
+ * doesn't depend on the number of records in the stream.
+ *
+ * @see GameRecordWriter
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class GameRecordReader implements Closeable {
+
+    /**
+     * Maximum length of a record in bytes, longer records are treated as
+     * corrupt data.
+     */
+    public static final int MAX_RECORD_LENGTH = 1 << 24;
+    private InputStream in;
+    private byte[] buffer;
+    private int position = 0;
+    private int limit = 0;
+    private byte[] recordBuffer = new byte[256];
+
+    /**
+     * Constructs a reader with the default buffer size.
+     *
+     * @param in stream the records are read from
+     */
+    public GameRecordReader(InputStream in) {
+        this(in, GameRecordWriter.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a reader.
+     *
+     * @param in stream the records are read from
+     * @param bufferSize size of the buffer in bytes
+     */
+    public GameRecordReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the next record or null if the end of the stream is reached
+     * @throws IOException reading failed or the stream contains corrupt data
+     */
+    public GameRecord read() throws IOException {
+        if (position == limit && !fill()) {
+            return null;
+        }
+        int length = readStreamVarint();
+        if (length > MAX_RECORD_LENGTH) {
+            throw new IOException("Corrupt game record: length of " + length + " bytes.");
+        }
+        if (recordBuffer.length < length) {
+            recordBuffer = new byte[Math.max(length, recordBuffer.length * 2)];
+        }
+        int read = 0;
+        while (read < length) {
+            if (position == limit && !fill()) {
+                throw new EOFException("Truncated game record.");
+            }
+            int count = Math.min(length - read, limit - position);
+            System.arraycopy(buffer, position, recordBuffer, read, count);
+            position += count;
+            read += count;
+        }
+        return decodeRecord(ByteBuffer.wrap(recordBuffer, 0, length));
+    }
+
+    /**
+     * Decodes the length prefixed record at the position of the given buffer
+     * and moves the position behind it.
+     *
+     * @param buffer buffer containing records
+     * @return the decoded record
+     * @throws IOException the buffer contains corrupt data
+     */
+    static GameRecord decode(ByteBuffer buffer) throws IOException {
+        int length = nextRecordVarint(buffer);
+        if (length > buffer.remaining()) {
+            throw new IOException("Corrupt game record: length of " + length + " bytes.");
+        }
+        ByteBuffer record = buffer.slice();
+        record.limit(length);
+        buffer.position(buffer.position() + length);
+        return decodeRecord(record);
+    }
+
+    private static GameRecord decodeRecord(ByteBuffer record) throws IOException {
+        int version = nextRecordByte(record);
+        if (version < 1 || version > GameRecordWriter.FORMAT_VERSION) {
+            throw new IOException("Unsupported game record format version " + version + ".");
+        }
+        int columns = nextRecordVarint(record);
+        int rows = nextRecordVarint(record);
+        int stonesInARowToWin = nextRecordVarint(record);
+        WinRule winRule = WinRule.FREESTYLE;
+        if (version > 1) {
+            int rule = nextRecordByte(record);
+            if (rule >= WinRule.values().length) {
+                throw new IOException("Corrupt game record: unknown win rule " + rule + ".");
+            }
+            winRule = WinRule.values()[rule];
+        }
+        int result = nextRecordByte(record);
+        if (result >= GameRecord.Result.values().length) {
+            throw new IOException("Corrupt game record: unknown result " + result + ".");
+        }
+        int[] blockedCells = nextRecordVarints(record);
+        int[] jokerCells = nextRecordVarints(record);
+        int[] moves = nextRecordVarints(record);
+        return new GameRecord(columns, rows, stonesInARowToWin, winRule, blockedCells, jokerCells, moves,
+                GameRecord.Result.values()[result]);
+    }
+
+    private static int[] nextRecordVarints(ByteBuffer record) throws IOException {
+        int count = nextRecordVarint(record);
+        if (count > record.remaining()) {
+            throw new IOException("Corrupt game record: " + count + " values exceed the record.");
+        }
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = nextRecordVarint(record);
+        }
+        return values;
+    }
+
+    private static int nextRecordByte(ByteBuffer record) throws IOException {
+        if (!record.hasRemaining()) {
+            throw new IOException("Corrupt game record: unexpected end of the record.");
+        }
+        return record.get() & 0xff;
+    }
+
+    private static int nextRecordVarint(ByteBuffer record) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = nextRecordByte(record);
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt game record: varint too long.");
+    }
+
+    private int readStreamVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position == limit && !fill()) {
+                throw new EOFException("Truncated game record.");
+            }
+            int b = buffer[position++] & 0xff;
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt game record: varint too long.");
+    }
+
+    /**
+     * Refills the buffer.
+     *
+     * @return false if the end of the stream is reached
+     */
+    private boolean fill() throws IOException {
+        int count = in.read(buffer, 0, buffer.length);
+        if (count <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = count;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,166 @@
+package jomoku.record;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes game records to a stream in a compact binary format. Every record is
+ * prefixed with its length, so streams of records can be concatenated (e.g.
+ * by appending to a file).
+ *
+ * A record consists of varints (7 bits per byte, the highest bit marks a
+ * following byte) and bytes:
+ * <pre>
+ * [length of the rest of the record]
+ * [format version byte] [columns] [rows] [stones in a row to win] [win rule byte] [result byte]
+ * [number of blocked cells] [cell]...
+ * [number of joker cells] [cell]...
+ * [number of moves] [move]...
+ * </pre> The win rule byte is the ordinal of the jomoku.WinRule. Records of
+ * the format version 1 have no win rule byte, they are read as freestyle
+ * games. A game on a 19x19 board takes about two bytes per move.
+ *
+ * The writer uses a fixed size buffer, so its memory usage doesn't depend on
+ * the number of written records.
+ *
+ * @see GameRecord
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class GameRecordWriter implements Closeable, Flushable {
+
+    /**
+     * Version of the format, written in each record.
+     */
+    public static final int FORMAT_VERSION = 2;
+    /**
+     * Default size of the buffer in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_VARINT_LENGTH = 5;
+    private OutputStream out;
+    private byte[] buffer;
+    private int position = 0;
+    /**
+     * Buffer a record is encoded in before its length is known.
+     */
+    private byte[] recordBuffer = new byte[256];
+
+    /**
+     * Constructs a writer with the default buffer size.
+     *
+     * @param out stream the records are written to
+     */
+    public GameRecordWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a writer.
+     *
+     * @param out stream the records are written to
+     * @param bufferSize size of the buffer in bytes
+     */
+    public GameRecordWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[Math.max(bufferSize, MAX_VARINT_LENGTH)];
+    }
+
+    /**
+     * Writes the given record.
+     *
+     * @param record game record
+     * @return number of bytes the record takes in the stream
+     * @throws IOException writing to the stream failed
+     */
+    public int write(GameRecord record) throws IOException {
+        int maxLength = 3 + MAX_VARINT_LENGTH * (6 + record.getBlockedCells().length
+                + record.getJokerCells().length + record.getMoves().length);
+        if (recordBuffer.length < maxLength) {
+            recordBuffer = new byte[Math.max(maxLength, recordBuffer.length * 2)];
+        }
+        byte[] data = recordBuffer;
+        int length = 0;
+        data[length++] = FORMAT_VERSION;
+        length = putVarint(data, length, record.getNumberOfColumns());
+        length = putVarint(data, length, record.getNumberOfRows());
+        length = putVarint(data, length, record.getNumberOfStonesInARowToWin());
+        data[length++] = (byte) record.getWinRule().ordinal();
+        data[length++] = (byte) record.getResult().ordinal();
+        length = putVarints(data, length, record.getBlockedCells());
+        length = putVarints(data, length, record.getJokerCells());
+        length = putVarints(data, length, record.getMoves());
+        if (buffer.length - position < MAX_VARINT_LENGTH) {
+            flushBuffer();
+        }
+        int start = position;
+        position = putVarint(buffer, position, length);
+        int totalLength = position - start + length;
+        if (buffer.length - position < length) {
+            flushBuffer();
+        }
+        if (length > buffer.length) {
+            out.write(data, 0, length);
+        } else {
+            System.arraycopy(data, 0, buffer, position, length);
+            position += length;
+        }
+        return totalLength;
+    }
+
+    private static int putVarints(byte[] data, int offset, int[] values) {
+        offset = putVarint(data, offset, values.length);
+        for (int value : values) {
+            offset = putVarint(data, offset, value);
+        }
+        return offset;
+    }
+
+    /**
+     * Writes the given non negative value as a varint.
+     *
+     * @return offset following the varint
+     */
+    static int putVarint(byte[] data, int offset, int value) {
+        while ((value & ~0x7f) != 0) {
+            data[offset++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        data[offset++] = (byte) value;
+        return offset;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * Writes the buffered records to the stream and flushes it.
+     *
+     * @throws IOException writing to the stream failed
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Writes the buffered records and closes the stream.
+     *
+     * @throws IOException writing to or closing the stream failed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+}
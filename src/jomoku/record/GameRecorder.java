@@ -0,0 +1,125 @@
+package jomoku.record;
+
+import java.util.Arrays;
+import jomoku.Game;
+import jomoku.GameListener;
+import jomoku.Player;
+import jomoku.Stone;
+
+/**
+ * Records the fields of a game while it's being played.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class GameRecorder implements GameListener {
+
+    private Game game;
+    private int[] blockedCells = new int[8];
+    private int numberOfBlockedCells = 0;
+    private int[] jokerCells = new int[8];
+    private int numberOfJokerCells = 0;
+    private int[] moves = new int[64];
+    private int numberOfMoves = 0;
+
+    /**
+     * Constructs a recorder and starts recording the given game. The fields
+     * already blocked and the joker stones already placed are recorded too.
+     *
+     * @param game recorded game, no stones of the players may be placed yet
+     * (see GameRecorder(Game, GameRecord, int) for replayed games)
+     */
+    public GameRecorder(Game game) {
+        this.game = game;
+        for (int i = 0; i < game.getNumberOfColumns(); i++) {
+            for (int j = 0; j < game.getNumberOfRows(); j++) {
+                Stone.Position position = new Stone.Position(i, j);
+                switch (game.getFieldType(position)) {
+                    case BLOCKED:
+                        stonePositionBlocked(position);
+                        break;
+                    case JOKER:
+                        jokerStonePlaced(position);
+                        break;
+                    default:
+                }
+            }
+        }
+        game.addGameListener(this);
+    }
+
+    /**
+     * Constructs a recorder continuing the record of a game that has been
+     * replayed from a record (see GameReplay), the record starts with the
+     * fields and the replayed moves of the given record.
+     *
+     * @param game recorded game in the position after the replayed moves
+     * @param record record the game has been replayed from
+     * @param numberOfMoves number of replayed moves of the record
+     */
+    public GameRecorder(Game game, GameRecord record, int numberOfMoves) {
+        this.game = game;
+        numberOfBlockedCells = record.getBlockedCells().length;
+        blockedCells = Arrays.copyOf(record.getBlockedCells(), Math.max(numberOfBlockedCells, 8));
+        numberOfJokerCells = record.getJokerCells().length;
+        jokerCells = Arrays.copyOf(record.getJokerCells(), Math.max(numberOfJokerCells, 8));
+        this.numberOfMoves = Math.min(numberOfMoves, record.getNumberOfMoves());
+        moves = Arrays.copyOf(Arrays.copyOf(record.getMoves(), this.numberOfMoves),
+                Math.max(this.numberOfMoves * 2, 64));
+        game.addGameListener(this);
+    }
+
+    @Override
+    public void stonePlaced(Player player, Stone.Position position) {
+        if (numberOfMoves == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[numberOfMoves++] = GameRecord.encodeMove(getCell(position), player.isWhite());
+    }
+
+    @Override
+    public void jokerStonePlaced(Stone.Position position) {
+        if (numberOfJokerCells == jokerCells.length) {
+            jokerCells = Arrays.copyOf(jokerCells, jokerCells.length * 2);
+        }
+        jokerCells[numberOfJokerCells++] = getCell(position);
+    }
+
+    @Override
+    public void stonePositionBlocked(Stone.Position position) {
+        if (numberOfBlockedCells == blockedCells.length) {
+            blockedCells = Arrays.copyOf(blockedCells, blockedCells.length * 2);
+        }
+        blockedCells[numberOfBlockedCells++] = getCell(position);
+    }
+
+    private int getCell(Stone.Position position) {
+        return position.getColumn() * game.getNumberOfRows() + position.getRow();
+    }
+
+    /**
+     * Stops recording the game.
+     */
+    public void stop() {
+        game.removeGameListener(this);
+    }
+
+    /**
+     * Returns the record of the game so far, the result is taken from the
+     * current state of the game.
+     *
+     * @return game record
+     */
+    public GameRecord toRecord() {
+        GameRecord.Result result = GameRecord.Result.UNFINISHED;
+        Player winner = game.winner();
+        if (winner != null) {
+            result = winner.isWhite() ? GameRecord.Result.WHITE_WINS : GameRecord.Result.BLACK_WINS;
+        } else if (game.drawn()) {
+            result = GameRecord.Result.DRAWN;
+        }
+        return new GameRecord(game.getNumberOfColumns(), game.getNumberOfRows(),
+                game.getNumberOfStonesInARowToWin(), game.getWinRule(), Arrays.copyOf(blockedCells, numberOfBlockedCells),
+                Arrays.copyOf(jokerCells, numberOfJokerCells), Arrays.copyOf(moves, numberOfMoves), result);
+    }
+}
@@ -0,0 +1,186 @@
+package jomoku.record;
+
+import java.util.ArrayList;
+import jomoku.Game;
+import jomoku.PositionSnapshot;
+import jomoku.Stone;
+import jomoku.opponent.OpponentEngine;
+
+/**
+ * Replays a recorded game, allowing to seek to any move.
+ *
+ * Snapshots of the position are stored as checkpoints every few moves when
+ * the replay is constructed, they share the unchanged parts of the board. Seeking forward places the stones following the
+ * current move, seeking backward (or far forward) restores the nearest
+ * checkpoint before the requested move and places the stones following it.
+ * The attached engines aren't rebuilt, the fields changed between the current
+ * and the requested move are updated in them (stones are removed by setting
+ * their fields free).
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class GameReplay {
+
+    /**
+     * Default number of moves between two checkpoints.
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+    private GameRecord record;
+    private int checkpointInterval;
+    /**
+     * The checkpoint i is the position after i * checkpointInterval moves.
+     */
+    private PositionSnapshot[] checkpoints;
+    private Game game;
+    private int move;
+    private ArrayList<OpponentEngine> engines = new ArrayList<>(2);
+
+    /**
+     * Constructs a replay with the default checkpoint interval, positioned at
+     * the beginning of the game.
+     *
+     * @param record replayed game
+     */
+    public GameReplay(GameRecord record) {
+        this(record, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Constructs a replay positioned at the beginning of the game.
+     *
+     * @param record replayed game
+     * @param checkpointInterval number of moves between two checkpoints
+     */
+    public GameReplay(GameRecord record, int checkpointInterval) {
+        this.record = record;
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+        int[] moves = record.getMoves();
+        int rows = record.getNumberOfRows();
+        checkpoints = new PositionSnapshot[moves.length / this.checkpointInterval + 1];
+        this.game = record.createGame();
+        PositionSnapshot snapshot = PositionSnapshot.of(game);
+        checkpoints[0] = snapshot;
+        for (int i = 0; i < moves.length; i++) {
+            int cell = moves[i] >>> 1;
+            snapshot = snapshot.with(cell / rows, cell % rows,
+                    (moves[i] & 1) != 0 ? Game.FieldType.WHITE : Game.FieldType.BLACK);
+            if ((i + 1) % this.checkpointInterval == 0) {
+                checkpoints[(i + 1) / this.checkpointInterval] = snapshot;
+            }
+        }
+        this.move = 0;
+    }
+
+    /**
+     * Moves to the position after the given number of moves.
+     *
+     * @param targetMove number of moves, 0 is the beginning of the game
+     * @return the game in the requested position, it's replaced by a new game
+     * when seeking backward or far forward
+     */
+    public Game seek(int targetMove) {
+        if (targetMove < 0 || targetMove > record.getNumberOfMoves()) {
+            throw new IllegalArgumentException("There's no move " + targetMove + " in the game.");
+        }
+        updateEngines(targetMove);
+        int checkpoint = targetMove / checkpointInterval;
+        if (targetMove < move || checkpoint * checkpointInterval > move) {
+            restoreCheckpoint(checkpoint);
+        }
+        while (move < targetMove) {
+            game.placeStone(record.isWhiteMove(move) ? game.getWhitePlayer() : game.getBlackPlayer(),
+                    record.getMovePosition(move));
+            move++;
+        }
+        return game;
+    }
+
+    private void restoreCheckpoint(int checkpoint) {
+        game = checkpoints[checkpoint].toGame();
+        move = checkpoint * checkpointInterval;
+    }
+
+    /**
+     * Sets the fields of the moves between the current and the target move in
+     * the attached engines.
+     */
+    private void updateEngines(int targetMove) {
+        for (OpponentEngine engine : engines) {
+            for (int i = move - 1; i >= targetMove; i--) {
+                engine.setStoneType(record.getMovePosition(i), Game.FieldType.FREE);
+            }
+            for (int i = move; i < targetMove; i++) {
+                engine.setStoneType(record.getMovePosition(i),
+                        record.isWhiteMove(i) ? Game.FieldType.WHITE : Game.FieldType.BLACK);
+            }
+        }
+    }
+
+    /**
+     * Creates an engine for the given player initialized with the current
+     * position, which is kept up to date while seeking.
+     *
+     * @param white Is it the engine of the white player?
+     * @return the engine
+     */
+    public OpponentEngine createEngine(boolean white) {
+        OpponentEngine engine = new OpponentEngine(white ? game.getWhitePlayer() : game.getBlackPlayer());
+        engine.init();
+        engines.add(engine);
+        return engine;
+    }
+
+    /**
+     * Stops keeping the given engine up to date.
+     *
+     * @param engine engine created by this replay
+     */
+    public void removeEngine(OpponentEngine engine) {
+        engines.remove(engine);
+    }
+
+    /**
+     * Is it the turn of the white player after the current move? If the game
+     * hasn't ended it's the player of the next recorded move, otherwise the
+     * opponent of the player of the last move.
+     *
+     * @return Is it the turn of the white player?
+     */
+    public boolean isWhiteToMove() {
+        if (move < record.getNumberOfMoves()) {
+            return record.isWhiteMove(move);
+        }
+        return move > 0 && !record.isWhiteMove(move - 1);
+    }
+
+    /**
+     * Returns the position of the stone placed last.
+     *
+     * @return position or null at the beginning of the game
+     */
+    public Stone.Position getLastMovePosition() {
+        return move > 0 ? record.getMovePosition(move - 1) : null;
+    }
+
+    /**
+     * @return the game in the current position
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * @return number of moves played in the current position
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * @return the record
+     */
+    public GameRecord getRecord() {
+        return record;
+    }
+}
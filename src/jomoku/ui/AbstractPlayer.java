@@ -1,5 +1,10 @@
 package jomoku.ui;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import jomoku.Game;
 import jomoku.Player;
 import jomoku.Stone;
@@ -35,11 +40,74 @@ public abstract class AbstractPlayer {
 
     /**
      * Returns the position of the next stone the player wants to place.
+     * Should return soon (e.g. by throwing a CancellationException) when the
+     * thread is interrupted, see requestNextPosition.
      *
      * @return the position of the next stone
      */
     public abstract Stone.Position getNextPosition();
 
+    /**
+     * Asks the player for the position of the next stone without blocking the
+     * caller. Runs getNextPosition on the given executor by default, players
+     * waiting for events (e.g. mouse clicks) should complete the returned
+     * future from the event instead.
+     *
+     * If the future is completed before getNextPosition returns (the move is
+     * cancelled or timed out), the thread running getNextPosition is
+     * interrupted, its result is dropped. The interrupt is cleared before the
+     * thread returns to the executor.
+     *
+     * @param executor executor to run blocking work on
+     * @return future completing with the position of the next stone
+     */
+    public CompletableFuture<Stone.Position> requestNextPosition(Executor executor) {
+        final CompletableFuture<Stone.Position> future = new CompletableFuture<>();
+        //Holds the thread running getNextPosition, taken by whoever finishes first.
+        //Taking it and interrupting it are done under its lock, so an interrupt
+        //can't reach the thread after it has left the task.
+        final AtomicReference<Thread> worker = new AtomicReference<>();
+        future.whenComplete(new BiConsumer<Stone.Position, Throwable>() {
+            @Override
+            public void accept(Stone.Position position, Throwable ex) {
+                synchronized (worker) {
+                    Thread thread = worker.getAndSet(null);
+                    if (thread != null) {
+                        thread.interrupt();
+                    }
+                }
+            }
+        });
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                worker.set(Thread.currentThread());
+                Stone.Position position = null;
+                Throwable failure = null;
+                if (!future.isDone()) {
+                    try {
+                        position = getNextPosition();
+                    } catch (Throwable t) {
+                        failure = t;
+                    }
+                }
+                synchronized (worker) {
+                    if (worker.getAndSet(null) == null) {
+                        //The request has been abandoned, the interrupt mustn't reach the next task
+                        Thread.interrupted();
+                        return;
+                    }
+                }
+                if (failure != null) {
+                    future.completeExceptionally(new CompletionException(failure));
+                } else {
+                    future.complete(position);
+                }
+            }
+        });
+        return future;
+    }
+
     /**
      * Handles an error (i.e. "You can't place a stone there").
      *
@@ -54,6 +122,52 @@ public abstract class AbstractPlayer {
      */
     public abstract void otherPlayerAction(Stone.Position position);
 
+    /**
+     * Chooses one of the proposed openings of an opening protocol. Returns the
+     * first one by default.
+     *
+     * @param proposals proposed openings, the stones of each are placed
+     * alternately starting with the player to move
+     * @param whiteToMove Does the white player place the next stone in the
+     * current position?
+     * @return index of the chosen opening
+     */
+    public int chooseOpening(Stone.Position[][] proposals, boolean whiteToMove) {
+        return 0;
+    }
+
+    /**
+     * Chooses the color after the opening stones have been placed. Keeps the
+     * current color by default.
+     *
+     * @param whiteToMove Does the white player place the next stone?
+     * @return Does this player want to play white?
+     */
+    public boolean choosesWhite(boolean whiteToMove) {
+        return isWhite();
+    }
+
+    /**
+     * Decides whether to place two more opening stones and let the other
+     * player choose the color, instead of choosing it (Swap2). Doesn't extend
+     * the opening by default.
+     *
+     * @param whiteToMove Does the white player place the next stone?
+     * @return Does this player extend the opening?
+     */
+    public boolean extendsOpening(boolean whiteToMove) {
+        return false;
+    }
+
+    /**
+     * Lets this player play the other color, the player is initialized again
+     * by the UI afterwards.
+     */
+    protected void swapColor() {
+        player = player.isWhite() ? getGame().getBlackPlayer() : getGame().getWhitePlayer();
+        opponent = getGame().getOpponent(player);
+    }
+
     /**
      *
      * @return Whether this player is the white player
@@ -107,6 +221,7 @@ public abstract class AbstractPlayer {
      */
     public void replay(Game game) {
         player = isWhite() ? game.getWhitePlayer() : game.getBlackPlayer();
+        opponent = game.getOpponent(player);
         init();
     }
 }
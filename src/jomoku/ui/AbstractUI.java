@@ -60,6 +60,18 @@ public abstract class AbstractUI {
         this.whitePlayer = whitePlayer;
     }
 
+    /**
+     * Swaps the colors of the two players, e.g. when a player chooses the
+     * other color in an opening protocol.
+     */
+    public void swapPlayers() {
+        AbstractPlayer formerWhitePlayer = whitePlayer;
+        whitePlayer = blackPlayer;
+        blackPlayer = formerWhitePlayer;
+        whitePlayer.swapColor();
+        blackPlayer.swapColor();
+    }
+
     /**
      *
      * @return game this object is the UI for
@@ -0,0 +1,242 @@
+package jomoku.ui;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import jomoku.Game;
+import jomoku.Player;
+import jomoku.Stone;
+import jomoku.jfr.MoveReceivedEvent;
+import jomoku.jfr.MoveRequestedEvent;
+
+/**
+ * Plays one game between the two players of an AbstractUI without blocking
+ * the calling thread. The players are asked for their moves through futures,
+ * so a player waiting for a user (e.g. a mouse click) doesn't park a thread.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class GameSession {
+
+    private final AbstractUI abstractUI;
+    private final Game game;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final long moveTimeout;
+    /**
+     * Completes with the winning player or null if the game ended drawn.
+     */
+    private final CompletableFuture<Player> result = new CompletableFuture<>();
+    private volatile CompletableFuture<Stone.Position> pendingMove;
+    private volatile boolean whitePlayersTurn;
+    /**
+     * Number of stones placed by the players in this session.
+     */
+    private volatile int moveNumber;
+
+    /**
+     * Constructs a game session without move time limit.
+     *
+     * @param abstractUI UI holding the two players and the game
+     * @param executor executor the players and the game logic run on
+     */
+    public GameSession(AbstractUI abstractUI, Executor executor) {
+        this(abstractUI, executor, null, 0);
+    }
+
+    /**
+     * Constructs a game session.
+     *
+     * @param abstractUI UI holding the two players and the game
+     * @param executor executor the players and the game logic run on
+     * @param scheduler scheduler used to time out moves, may be null if there's
+     * no move time limit
+     * @param moveTimeout maximum time in milliseconds a player may take for a
+     * move, 0 means no limit. A player exceeding it loses the game and is
+     * interrupted.
+     */
+    public GameSession(AbstractUI abstractUI, Executor executor, ScheduledExecutorService scheduler,
+            long moveTimeout) {
+        if (moveTimeout > 0 && scheduler == null) {
+            throw new IllegalArgumentException("A move time limit needs a scheduler.");
+        }
+        this.abstractUI = abstractUI;
+        this.game = abstractUI.getGame();
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.moveTimeout = moveTimeout;
+    }
+
+    /**
+     * Starts the game. Returns immediately.
+     *
+     * @param whiteBegins Does the white player place the first stone?
+     * @return future completing with the winning player (of the game) or null
+     * if the game ended drawn
+     */
+    public CompletableFuture<Player> start(boolean whiteBegins) {
+        whitePlayersTurn = whiteBegins;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                play();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Cancels the game, the player currently asked for a move is interrupted
+     * (see AbstractPlayer#requestNextPosition) and its move is dropped.
+     *
+     * @return false if the game has already ended, true otherwise
+     */
+    public boolean cancel() {
+        boolean cancelled = result.cancel(false);
+        CompletableFuture<Stone.Position> move = pendingMove;
+        if (move != null) {
+            move.cancel(true);
+        }
+        return cancelled;
+    }
+
+    /**
+     *
+     * @return future completing with the winning player or null if the game
+     * ended drawn
+     */
+    public CompletableFuture<Player> getResult() {
+        return result;
+    }
+
+    /**
+     * Asks the players for their moves until a move isn't available
+     * immediately, then continues asynchronously when it's available. Looping
+     * instead of recursing keeps the stack flat for synchronous players.
+     */
+    private void play() {
+        while (!result.isDone()) {
+            final AbstractPlayer current = whitePlayersTurn ? abstractUI.getWhitePlayer() : abstractUI.getBlackPlayer();
+            final CompletableFuture<Stone.Position> move = requestMove(current);
+            if (!move.isDone()) {
+                move.whenCompleteAsync(new BiConsumer<Stone.Position, Throwable>() {
+                    @Override
+                    public void accept(Stone.Position position, Throwable ex) {
+                        if (handleMove(current, position, ex)) {
+                            play();
+                        }
+                    }
+                }, executor);
+                return;
+            }
+            Stone.Position position = null;
+            Throwable ex = null;
+            try {
+                position = move.join();
+            } catch (Throwable t) {
+                ex = t;
+            }
+            if (!handleMove(current, position, ex)) {
+                return;
+            }
+        }
+    }
+
+    private CompletableFuture<Stone.Position> requestMove(AbstractPlayer current) {
+        MoveRequestedEvent requestedEvent = new MoveRequestedEvent();
+        if (requestedEvent.shouldCommit()) {
+            requestedEvent.player = current.getPlayer().toString();
+            requestedEvent.moveNumber = moveNumber;
+            requestedEvent.commit();
+        }
+        MoveReceivedEvent receivedEvent = new MoveReceivedEvent();
+        receivedEvent.begin();
+        final CompletableFuture<Stone.Position> move = current.requestNextPosition(executor);
+        pendingMove = move;
+        if (receivedEvent.isEnabled()) {
+            recordReceivedMove(move, receivedEvent, current.getPlayer().toString(), moveNumber);
+        }
+        if (moveTimeout > 0 && !move.isDone()) {
+            final ScheduledFuture<?> timeout = scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    move.completeExceptionally(new TimeoutException("Move time limit of " + moveTimeout
+                            + "ms exceeded."));
+                }
+            }, moveTimeout, TimeUnit.MILLISECONDS);
+            move.whenComplete(new BiConsumer<Stone.Position, Throwable>() {
+                @Override
+                public void accept(Stone.Position position, Throwable ex) {
+                    timeout.cancel(false);
+                }
+            });
+        }
+        return move;
+    }
+
+    /**
+     * Commits the given event when the move is received.
+     */
+    private static void recordReceivedMove(CompletableFuture<Stone.Position> move, final MoveReceivedEvent event,
+            final String player, final int moveNumber) {
+        move.whenComplete(new BiConsumer<Stone.Position, Throwable>() {
+            @Override
+            public void accept(Stone.Position position, Throwable ex) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.player = player;
+                    event.moveNumber = moveNumber;
+                    event.position = position == null ? "" : position.toString();
+                    event.failure = ex == null ? "" : String.valueOf(ex.getMessage());
+                    event.commit();
+                }
+            }
+        });
+    }
+
+    /**
+     * Places the stone of the given player and checks whether the game has
+     * ended.
+     *
+     * @param current player having made the move
+     * @param position position of the move, null if the move failed
+     * @param ex exception occurred while waiting for the move or null
+     * @return Has the game to be continued?
+     */
+    private boolean handleMove(AbstractPlayer current, Stone.Position position, Throwable ex) {
+        if (result.isDone()) {
+            return false;
+        }
+        if (ex != null) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof TimeoutException) {
+                current.handleError(cause.getMessage());
+                result.complete(game.getOpponent(current.getPlayer()));
+            } else {
+                result.completeExceptionally(cause);
+            }
+            return false;
+        }
+        if (!game.placeStone(current.getPlayer(), position)) {
+            current.handleError(game.canStoneBePlacedAtPosition(position)
+                    ? "This move is forbidden by the rules." : "You can't place a stone at this position.");
+            return true;
+        }
+        moveNumber++;
+        AbstractPlayer other = current.isWhite() ? abstractUI.getBlackPlayer() : abstractUI.getWhitePlayer();
+        abstractUI.handlePlayerActionOccured(current, position);
+        other.otherPlayerAction(position);
+        whitePlayersTurn = !whitePlayersTurn;
+        Player winner = game.winner();
+        if (winner != null || game.drawn()) {
+            result.complete(winner);
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,166 @@
+package jomoku.ui;
+
+import java.util.Random;
+import jomoku.Game;
+import jomoku.Stone;
+
+/**
+ * Plays the opening of a game by an opening rule: places the opening stones
+ * and lets the players choose their colors, swapping the players of the
+ * AbstractUI if necessary.
+ *
+ * The openings of SWAP and SWAP2 are proposed randomly near the center of the
+ * board, the player placing them picks one of several proposals (see
+ * AbstractPlayer#chooseOpening). In consecutive games the players change
+ * their roles, so a match of an even number of games is balanced: the player
+ * opening the first game opens every game with an even index, the other one
+ * every game with an odd index, whatever colors were chosen in the previous
+ * game.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class OpeningProtocol {
+
+    /**
+     * Number of random openings proposed to the player placing them.
+     */
+    public static final int NUMBER_OF_PROPOSALS = 8;
+    /**
+     * Maximum distance of the proposed stones from the center.
+     */
+    private static final int PROPOSAL_RADIUS = 3;
+    private final OpeningRule rule;
+    private final OpeningSuite suite;
+    private final Random random;
+    /**
+     * Player opening the games with an even index, null before the first
+     * game.
+     */
+    private AbstractPlayer firstOpener;
+
+    /**
+     * Constructs a protocol.
+     *
+     * @param rule opening rule
+     * @param suite opening suite, only needed for the rule SUITE
+     * @param random random number generator used for the proposed openings
+     */
+    public OpeningProtocol(OpeningRule rule, OpeningSuite suite, Random random) {
+        if (rule == OpeningRule.SUITE && suite == null) {
+            throw new IllegalArgumentException("The opening rule SUITE needs an opening suite.");
+        }
+        this.rule = rule;
+        this.suite = suite;
+        this.random = random;
+    }
+
+    /**
+     * Plays the opening of a game whose players haven't placed stones yet and
+     * initializes the players again afterwards. The opener of the game places
+     * the black stones of the opening.
+     *
+     * @param ui UI holding the game and the players
+     * @param gameIndex index of the game in the match, 0 is the first
+     * @return Does the white player place the next stone?
+     */
+    public boolean play(AbstractUI ui, int gameIndex) {
+        if (rule == OpeningRule.FREE) {
+            return random.nextBoolean();
+        }
+        if (firstOpener == null) {
+            firstOpener = gameIndex % 2 == 0 ? ui.getBlackPlayer() : ui.getWhitePlayer();
+        }
+        AbstractPlayer opener = gameIndex % 2 == 0 ? firstOpener
+                : (ui.getBlackPlayer() == firstOpener ? ui.getWhitePlayer() : ui.getBlackPlayer());
+        if (ui.getBlackPlayer() != opener) {
+            ui.swapPlayers();
+        }
+        boolean whiteToMove;
+        if (rule == OpeningRule.SUITE) {
+            Stone.Position[] opening = suite.get(gameIndex / 2);
+            whiteToMove = place(ui, opening, false);
+        } else {
+            AbstractPlayer chooser = ui.getWhitePlayer();
+            Stone.Position[][] proposals = propose(ui.getGame(), 3);
+            whiteToMove = place(ui, proposals[opener.chooseOpening(proposals, false)], false);
+            if (rule == OpeningRule.SWAP2 && chooser.extendsOpening(whiteToMove)) {
+                proposals = propose(ui.getGame(), 2);
+                whiteToMove = place(ui, proposals[chooser.chooseOpening(proposals, whiteToMove)], whiteToMove);
+                chooser = opener;
+            }
+            if (chooser.choosesWhite(whiteToMove) != chooser.isWhite()) {
+                ui.swapPlayers();
+            }
+        }
+        ui.init();
+        return whiteToMove;
+    }
+
+    /**
+     * Places the given stones alternately, starting with the given color.
+     *
+     * @return Does the white player place the next stone?
+     */
+    private static boolean place(AbstractUI ui, Stone.Position[] stones, boolean whiteToMove) {
+        for (Stone.Position position : stones) {
+            AbstractPlayer player = whiteToMove ? ui.getWhitePlayer() : ui.getBlackPlayer();
+            if (!ui.getGame().placeStone(player.getPlayer(), position)) {
+                throw new IllegalArgumentException("The opening stone " + position + " can't be placed.");
+            }
+            ui.handlePlayerActionOccured(player, position);
+            whiteToMove = !whiteToMove;
+        }
+        return whiteToMove;
+    }
+
+    /**
+     * Proposes random openings of the given number of stones on free fields
+     * near the center.
+     */
+    private Stone.Position[][] propose(Game game, int numberOfStones) {
+        Stone.Position[][] proposals = new Stone.Position[NUMBER_OF_PROPOSALS][];
+        for (int i = 0; i < proposals.length; i++) {
+            proposals[i] = randomOpening(game, numberOfStones, random);
+        }
+        return proposals;
+    }
+
+    /**
+     * Returns a random opening of the given number of stones on free fields
+     * near the center of the board of the given game.
+     *
+     * @param game game the opening is played in
+     * @param numberOfStones number of stones
+     * @param random random number generator
+     * @return positions of the stones, in placing order
+     */
+    public static Stone.Position[] randomOpening(Game game, int numberOfStones, Random random) {
+        int columns = game.getNumberOfColumns();
+        int rows = game.getNumberOfRows();
+        int radius = Math.min(PROPOSAL_RADIUS, Math.min(columns, rows) / 2);
+        Stone.Position[] stones = new Stone.Position[numberOfStones];
+        for (int j = 0; j < numberOfStones; j++) {
+            Stone.Position position;
+            int attempts = 0;
+            do {
+                if (++attempts > columns * rows * 4) {
+                    throw new IllegalStateException("There are no free fields for the opening stones.");
+                }
+                position = new Stone.Position(columns / 2 + random.nextInt(2 * radius + 1) - radius,
+                        rows / 2 + random.nextInt(2 * radius + 1) - radius);
+            } while (!game.canStoneBePlacedAtPosition(position) || contains(stones, j, position));
+            stones[j] = position;
+        }
+        return stones;
+    }
+
+    private static boolean contains(Stone.Position[] stones, int length, Stone.Position position) {
+        for (int i = 0; i < length; i++) {
+            if (stones[i].equals(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
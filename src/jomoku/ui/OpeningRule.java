@@ -0,0 +1,45 @@
+package jomoku.ui;
+
+import java.util.Locale;
+
+/**
+ * Protocol deciding the first stones and the colors of the players before a
+ * game starts (see OpeningProtocol).
+ *
+ * @see http://en.wikipedia.org/wiki/Gomoku#Opening_rules
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public enum OpeningRule {
+
+    /**
+     * No opening stones, a random player places the first stone.
+     */
+    FREE,
+    /**
+     * The first player places two black stones and a white stone, the
+     * second player chooses its color then.
+     */
+    SWAP,
+    /**
+     * Like SWAP, but instead of choosing its color, the second player may
+     * place a white and a black stone and let the first player choose.
+     */
+    SWAP2,
+    /**
+     * The opening stones are taken from an opening suite, every opening is
+     * played twice with swapped colors.
+     */
+    SUITE;
+
+    /**
+     * Returns the rule with the given name, ignoring the case.
+     *
+     * @param name name of the rule, e.g. "swap2"
+     * @return rule
+     * @throws IllegalArgumentException if there's no rule with this name
+     */
+    public static OpeningRule fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,83 @@
+package jomoku.ui;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import jomoku.Stone;
+
+/**
+ * Fixed list of openings, read from a text file with one opening per line.
+ * An opening is a list of positions, the stones are placed alternately
+ * starting with a black stone:
+ * <pre>
+ * # comment
+ * 7x7, 8x8, 7x8
+ * 7x7, 6x8, 9x7, 8x6
+ * </pre>
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class OpeningSuite {
+
+    private final List<Stone.Position[]> openings;
+
+    /**
+     * Constructs a suite of the given openings.
+     *
+     * @param openings openings, the stones of each alternately black and
+     * white
+     */
+    public OpeningSuite(List<Stone.Position[]> openings) {
+        if (openings.isEmpty()) {
+            throw new IllegalArgumentException("The opening suite is empty.");
+        }
+        this.openings = new ArrayList<>(openings);
+    }
+
+    /**
+     * Reads the opening suite in the given file.
+     *
+     * @param file text file, one opening per line
+     * @return opening suite
+     * @throws IOException reading the file failed
+     * @throws NumberFormatException a line has the wrong format
+     */
+    public static OpeningSuite read(Path file) throws IOException {
+        List<Stone.Position[]> openings = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                openings.add(ParseHelper.parseStringAsPositionArray(line));
+            } catch (NumberFormatException ex) {
+                throw new NumberFormatException("Line " + lineNumber + ": " + ex.getMessage());
+            }
+        }
+        return new OpeningSuite(openings);
+    }
+
+    /**
+     * Returns the opening with the given index, the openings are repeated.
+     *
+     * @param index index, 0 is the first opening
+     * @return positions of the stones, alternately black and white
+     */
+    public Stone.Position[] get(int index) {
+        return openings.get(index % openings.size()).clone();
+    }
+
+    /**
+     * @return number of openings
+     */
+    public int size() {
+        return openings.size();
+    }
+}
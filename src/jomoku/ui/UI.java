@@ -1,14 +1,53 @@
 package jomoku.ui;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import jomoku.Board;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
 import jomoku.Game;
 import jomoku.Player;
-import jomoku.Stone;
+import jomoku.WinRule;
+import jomoku.opponent.EngineConfig;
+import jomoku.opponent.EngineConfigFile;
+import jomoku.opponent.EngineMetrics;
+import jomoku.opponent.EvaluationWeights;
+import jomoku.opponent.LinePatternCache;
+import jomoku.opponent.Network;
+import jomoku.opponent.PiskvorkAdapter;
+import jomoku.record.GameDatabase;
+import jomoku.record.GameRecord;
+import jomoku.record.GameRecordReader;
+import jomoku.record.GameRecordWriter;
+import jomoku.record.GameRecorder;
+import jomoku.record.GameReplay;
+import jomoku.ui.analysis.BatchAnalyser;
+import jomoku.ui.analysis.FeatureTable;
+import jomoku.ui.analysis.MatchRunner;
+import jomoku.ui.analysis.Sprt;
+import jomoku.ui.analysis.TexelTuner;
 import jomoku.ui.console.ConsoleUI;
 import jomoku.ui.gui.GUI;
+import jomoku.ui.server.Server;
 
 /**
  * Main UI, handling the console arguments.
@@ -28,14 +67,32 @@ public class UI {
     private PrintStream err;
     private Game game;
     private AbstractUI abstractUI;
+    /**
+     * Does the white player place the next stone in the loaded game? Null if
+     * no game has been loaded.
+     */
+    private Boolean loadedWhiteToMove = null;
+    /**
+     * Record of the loaded game and the number of its replayed moves, the
+     * recording of the game continues it. Null if no game has been loaded.
+     */
+    private GameRecord loadedRecord = null;
+    private int loadedMove = 0;
     private String[][] optionsArr = {
         {"help", null, "Shows this help", ""},
         {"gui", "", "Shows a gui", ""},
         {"noIntro", null, "Starts the game without any introduction", ""},
         {"printNoBoards", null,
             "Prohibits the game from printing the current board on the console after a stone is placed on it.", ""},
+        {"ansi", null, "Redraws only the changed fields of the board on the console using ANSI escape sequences",
+            ""},
         {"size", "19x19", "Size of the board being played on", "[number of columns]x[number of rows]"},
         {"xInARow", "5", "Minimum number of stones a player has to place in a row to win", "[number of stones]"},
+        {"winRule", "freestyle", "Rule deciding which rows win: freestyle (at least xInARow stones), exact "
+            + "(exactly xInARow stones), caro (at least xInARow stones, not blocked at both ends) or renju",
+            "[freestyle, exact, caro or renju]"},
+        {"renju", null, "Plays by the Renju rules: the black player wins only with exactly xInARow stones in a "
+            + "row and mustn't place overlines, double threes or double fours (same as -winRule renju)", ""},
         {"block", "",
             "Blocks the given positions for players to set their stone on.",
             "[column of blocked position]x[row of blocked position], [column]x[row] [,...]"},
@@ -45,9 +102,112 @@ public class UI {
             "[see -block]"},
         {"whiteAuto", null, "The white player is played automatically played", ""},
         {"blackAuto", null, "The black player is played automatically", ""},
-        {"showAutoDebugMatrix", "", "Shows the debug matrix for every automatic action", ""}
+        {"showAutoDebugMatrix", null, "Shows the debug matrix for every automatic action", ""},
+        {"showHeatMap", null, "Shows the field scores of the automatic players as heat map on the free fields "
+            + "(gui only, replaces the debug matrix)", ""},
+        {"engineConfig", null, "Properties file with the settings of the automatic players' engines (see "
+            + "jomoku.opponent.EngineConfig), read again before a new game if it has been modified", "[file]"},
+        {"engine", "", "Settings of the automatic players' engines overriding -engineConfig, e.g. "
+            + "searchDepth, searchTime, threads, hashSize, candidateRadius, opponentFactor or weights",
+            "[name]=[value], [name]=[value] [,...]"},
+        {"searchDepth", null, "Search depth of the automatic players in plies (0 places the stone on the field "
+            + "with the highest score, the default), overrides -engineConfig", "[number of plies]"},
+        {"searchTime", null, "Maximum time the automatic players search a move, the best move found so far is "
+            + "played then (0 means no limit, the default), overrides -engineConfig", "[milliseconds]"},
+        {"weights", null, "Weights file of the evaluation of the automatic players "
+            + "(see jomoku.opponent.EvaluationWeights and -tune), overrides -engineConfig", "[file]"},
+        {"patternCacheSize", String.valueOf(LinePatternCache.DEFAULT_CAPACITY), "Number of entries of each "
+            + "shared line pattern cache of the row scores (see jomoku.opponent.LinePatternCache, 0 disables it)",
+            "[number of entries]"},
+        {"patternCache", null, "File with line patterns the pattern caches are filled with at startup, one row "
+            + "per line (see jomoku.opponent.LinePatternCache and -patternCacheDump)", "[file]"},
+        {"patternCacheDump", null, "Writes the patterns of the pattern caches to the given file when the program "
+            + "exits, for -patternCache", "[file]"},
+        {"metrics", null, "Prints the engine metrics (see jomoku.opponent.EngineMetrics) on the error stream "
+            + "after every game, after the analysis and after the -sprt test", ""},
+        {"opening", "free", "Opening rule: free (a random player begins), swap, swap2 or suite (the openings of "
+            + "-openings, each played twice with swapped colors)", "[free, swap, swap2 or suite]"},
+        {"openings", null, "File with the opening suite, one opening per line "
+            + "(see jomoku.ui.OpeningSuite)", "[file]"},
+        {"moveTimeout", "0", "Maximum time a player may take for a move, the player loses if exceeding it "
+            + "(0 means no limit)", "[milliseconds]"},
+        {"record", null, "Appends a record of every played game to the given file "
+            + "(binary format, see jomoku.record.GameRecordWriter)", "[file]"},
+        {"load", null, "Continues the game recorded in the given file (see -record)", "[file]"},
+        {"loadGame", "0", "Index of the game loaded from the record file, 0 is the first", "[index]"},
+        {"loadMove", "-1", "Number of moves of the loaded game being replayed (-1 means all), the game mustn't "
+            + "have ended after them", "[number of moves]"},
+        {"database", null, "Adds every played game to the game database in the given directory "
+            + "(see jomoku.record.GameDatabase), -databaseQuery queries it", "[directory]"},
+        {"databaseQuery", null, "Prints the moves played next in the games of the -database directory which have "
+            + "reached the position to play (the loaded one, see -load, or the initial one), the most frequent "
+            + "first, with the number of games won by black, won by white and drawn",
+            "[maximum number of examined games, the newest are examined]"},
+        {"server", null, "Runs a game server on localhost, each connection plays against the engine "
+            + "(line based protocol, see jomoku.ui.server.Server)", "[port, default " + Server.DEFAULT_PORT + "]"},
+        {"piskvork", null, "Lets the engine play via the piskvork (Gomocup) brain protocol on the standard streams", ""},
+        {"analyse", null, "Analyses the positions in the given file (or the standard input) line by line and writes "
+            + "the best moves as JSON lines, see jomoku.ui.analysis.BatchAnalyser for the position format",
+            "[file or - for the standard input]"},
+        {"analyseTop", "5", "Number of best moves written per analysed position", "[number of moves]"},
+        {"analyseDepth", "2", "Search depth of the analysis in plies (0 only ranks the field scores)",
+            "[number of plies]"},
+        {"analyseThreads", "0", "Number of threads analysing positions (0 means the threads engine setting or "
+            + "one per processor)", "[number of threads]"},
+        {"sprt", null, "Plays the engine with the given settings against the engine with the -sprtBase settings "
+            + "in game pairs with swapped colors, until a sequential probability ratio test decides (see "
+            + "jomoku.ui.analysis.MatchRunner). Both engines start with the settings of the automatic players, "
+            + "the pairs start with the openings of -openings or random ones",
+            "[name]=[value], [name]=[value] [,...] (see jomoku.opponent.EngineConfig)"},
+        {"sprtBase", "", "Settings of the engine the -sprt engine is compared with", "[see -sprt]"},
+        {"sprtElo", "0,5", "Elo differences of the hypotheses of the -sprt test: the engine isn't stronger than "
+            + "elo0 (H0) or at least elo1 stronger (H1)", "[elo0],[elo1]"},
+        {"sprtPairs", "10000", "Maximum number of game pairs of the -sprt test", "[number of pairs]"},
+        {"sprtThreads", "0", "Number of threads playing the -sprt games (0 means the threads engine setting or "
+            + "one per processor)", "[number of threads]"},
+        {"extractFeatures", null, "Extracts the evaluation features and results of the positions of the finished "
+            + "games in the given record file (see -record) into the -features file, for -tune",
+            "[record file]"},
+        {"extractMinPly", "4", "Number of moves skipped at the beginning of every game by -extractFeatures",
+            "[number of moves]"},
+        {"features", "features.dat", "Feature file written by -extractFeatures "
+            + "(see jomoku.ui.analysis.FeatureTable)", "[file]"},
+        {"tune", null, "Fits the evaluation weights (starting with -weights) to the results of the positions in "
+            + "the given feature file and writes them to the -tuneOutput file (see jomoku.ui.analysis.TexelTuner)",
+            "[feature file]"},
+        {"tuneOutput", "weights.properties", "Weights file written by -tune", "[file]"},
+        {"tuneIterations", "1000", "Number of gradient descent steps of -tune", "[number of steps]"},
+        {"tuneRate", "1", "Initial step size of each weight of -tune", "[step size]"},
+        {"tuneThreads", "0", "Number of threads of -tune (0 means the threads engine setting or one per "
+            + "processor)", "[number of threads]"},
+        {"writeNetwork", null, "Writes the window counter network (see jomoku.opponent.Network) with windows of "
+            + "xInARow fields to the given file, a starting point for trained networks of the network engine setting",
+            "[file]"}
     };
     private HashMap<String, String> options = new HashMap<>();
+    /**
+     * Configuration of the automatic players' engines if there's no
+     * configuration file.
+     */
+    private EngineConfig engineConfig = EngineConfig.DEFAULT;
+    private EngineConfigFile engineConfigFile;
+    /**
+     * Creates daemon threads, so the players' threads don't keep the program
+     * alive.
+     */
+    private static final ThreadFactory DAEMON_THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+    /**
+     * Error probabilities of the -sprt test.
+     */
+    private static final double SPRT_ALPHA = 0.05;
+    private static final double SPRT_BETA = 0.05;
     /**
      * (Beginning of the) help text
      */
@@ -127,17 +287,93 @@ public class UI {
      * @param args console arguments
      */
     public void run(String[] args) {
-        initGame(args);
+        initOptionsMap(args);
+        initEngineConfig();
+        initPatternCache();
+        if (options.get("piskvork") != null) {
+            new PiskvorkAdapter(new BufferedReader(new InputStreamReader(System.in)), out, getEngineConfig()).run();
+            return;
+        }
+        initGame();
         if (options.get("help") != null) {
             help();
+        } else if (options.get("server") != null) {
+            runServer();
+        } else if (options.get("databaseQuery") != null) {
+            runDatabaseQuery();
+        } else if (options.get("analyse") != null) {
+            runAnalysis();
+        } else if (options.get("sprt") != null) {
+            runSprt();
+        } else if (options.get("extractFeatures") != null) {
+            runFeatureExtraction();
+        } else if (options.get("tune") != null) {
+            runTuning();
+        } else if (options.get("writeNetwork") != null) {
+            writeNetwork();
         } else {
             abstractUI.init(options.get("whiteAuto") != null, options.get("blackAuto") != null);
             playGame();
         }
     }
 
-    private void initGame(String[] args) {
-        initOptionsMap(args);
+    /**
+     * Reads the engine configuration from the engineConfig file, overridden by
+     * the engine, searchDepth, searchTime and weights arguments.
+     */
+    private void initEngineConfig() {
+        Map<String, String> overrides = new LinkedHashMap<>();
+        for (String name : new String[]{"searchDepth", "searchTime", "weights"}) {
+            if (options.get(name) != null) {
+                overrides.put(name, options.get(name));
+            }
+        }
+        try {
+            overrides.putAll(EngineConfig.parseSettings(options.get("engine")));
+            if (options.get("engineConfig") != null) {
+                engineConfigFile = new EngineConfigFile(Paths.get(options.get("engineConfig")), EngineConfig.DEFAULT,
+                        overrides);
+            } else {
+                engineConfig = EngineConfig.DEFAULT.with(overrides);
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            handleSevereError("Can't configure the engine: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Sets the size of the line pattern caches, reads the patternCache file
+     * and registers the writing of the patternCacheDump file at exit.
+     */
+    private void initPatternCache() {
+        try {
+            LinePatternCache.setCapacity(Integer.parseInt(options.get("patternCacheSize")));
+        } catch (IllegalArgumentException ex) {
+            handleSevereError("patternCacheSize parameter argument has the wrong format.");
+        }
+        if (options.get("patternCache") != null) {
+            try {
+                LinePatternCache.readWarmUpPatterns(Paths.get(options.get("patternCache")));
+            } catch (IOException ex) {
+                handleSevereError("Can't read the pattern file: " + ex.getMessage());
+            }
+        }
+        if (options.get("patternCacheDump") != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try (Writer writer = Files.newBufferedWriter(Paths.get(options.get("patternCacheDump")),
+                            StandardCharsets.UTF_8)) {
+                        LinePatternCache.writePatterns(writer);
+                    } catch (IOException ex) {
+                        err.println("Can't write the pattern file: " + ex.getMessage());
+                    }
+                }
+            }));
+        }
+    }
+
+    private void initGame() {
         String size_arg = options.get("size");
         int stones_to_win = 5;
         try {
@@ -145,15 +381,64 @@ public class UI {
         } catch (Exception ex) {
             handleSevereError("xInARow parameter argument has the wrong format.");
         }
+        WinRule winRule = WinRule.FREESTYLE;
+        try {
+            winRule = options.get("renju") != null ? WinRule.RENJU : WinRule.fromName(options.get("winRule"));
+        } catch (IllegalArgumentException ex) {
+            handleSevereError("winRule parameter argument has the wrong format.");
+        }
         try {
             int[] arr = ParseHelper.parseStringAsIntegerValuePair(size_arg);
-            game = new Game(arr[0], arr[1], stones_to_win);
-            initBlockedFields();
-            initJokerFields();
-            abstractUI = getAbstractUIAccordingToOptions(game);
+            game = new Game(arr[0], arr[1], stones_to_win, winRule);
+            initBlockedFields(game);
+            initJokerFields(game);
         } catch (Exception e) {
             handleSevereError("Size parameter argument has the wrong format.");
         }
+        if (options.get("load") != null) {
+            loadGame();
+        }
+        abstractUI = getAbstractUIAccordingToOptions(game);
+    }
+
+    /**
+     * Replaces the game by the one given by the load, loadGame and loadMove
+     * arguments.
+     */
+    private void loadGame() {
+        int index = 0;
+        int move = 0;
+        try {
+            index = Integer.parseInt(options.get("loadGame"));
+            move = Integer.parseInt(options.get("loadMove"));
+        } catch (NumberFormatException ex) {
+            handleSevereError("loadGame or loadMove parameter argument has the wrong format.");
+        }
+        GameRecord record = null;
+        try (InputStream in = Files.newInputStream(Paths.get(options.get("load")))) {
+            GameRecordReader reader = new GameRecordReader(in);
+            for (int i = 0; i <= index; i++) {
+                record = reader.read();
+                if (record == null) {
+                    handleSevereError("The record file contains less than " + (index + 1) + " games.");
+                }
+            }
+        } catch (IOException ex) {
+            handleSevereError("Can't load the game: " + ex.getMessage());
+        }
+        if (move < 0 || move > record.getNumberOfMoves()) {
+            move = record.getNumberOfMoves();
+        }
+        GameReplay gameReplay = new GameReplay(record);
+        game = gameReplay.seek(move);
+        if (game.winner() != null || game.drawn()
+                || (move == record.getNumberOfMoves() && record.getResult() != GameRecord.Result.UNFINISHED)) {
+            handleSevereError("The loaded game has already ended after move " + move
+                    + ", choose an earlier move with the loadMove parameter.");
+        }
+        loadedWhiteToMove = move > 0 ? gameReplay.isWhiteToMove() : null;
+        loadedRecord = record;
+        loadedMove = move;
     }
 
     private AbstractUI getAbstractUIAccordingToOptions(Game game) {
@@ -164,37 +449,337 @@ public class UI {
         }
     }
 
+    private void runServer() {
+        String port_arg = options.get("server");
+        int port = Server.DEFAULT_PORT;
+        if (!port_arg.equals("true")) {
+            try {
+                port = Integer.parseInt(port_arg);
+            } catch (NumberFormatException ex) {
+                handleSevereError("Server parameter argument has the wrong format.");
+            }
+        }
+        try {
+            Server server = new Server(this, port);
+            out.println("Jomoku server listening on localhost:" + server.getPort());
+            server.run();
+        } catch (IOException ex) {
+            handleSevereError("Server error: " + ex.getMessage());
+        }
+    }
+
+    private void runAnalysis() {
+        String file = options.get("analyse");
+        int candidates = 0;
+        int depth = 0;
+        int threads = 0;
+        try {
+            candidates = Integer.parseInt(options.get("analyseTop"));
+            depth = Integer.parseInt(options.get("analyseDepth"));
+            threads = Integer.parseInt(options.get("analyseThreads"));
+        } catch (NumberFormatException ex) {
+            handleSevereError("analyseTop, analyseDepth or analyseThreads parameter argument has the wrong format.");
+        }
+        BatchAnalyser analyser = new BatchAnalyser(game.getNumberOfColumns(), game.getNumberOfRows(),
+                game.getNumberOfStonesInARowToWin(), game.getWinRule(), candidates, depth,
+                getNumberOfThreads(threads), getEngineConfig());
+        try (BufferedReader in = file.equals("true") || file.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            analyser.analyse(in, writer);
+        } catch (IOException ex) {
+            handleSevereError("Analysis failed: " + ex.getMessage());
+        }
+        printMetrics();
+    }
+
+    private void runSprt() {
+        EngineConfig base = getEngineConfig();
+        EngineConfig candidate = null;
+        Sprt sprt = null;
+        long pairs = 0;
+        int threads = 0;
+        try {
+            base = base.with(options.get("sprtBase"));
+            candidate = base.with(options.get("sprt").equals("true") ? "" : options.get("sprt"));
+            String[] elo = options.get("sprtElo").split(",");
+            sprt = new Sprt(Double.parseDouble(elo[0].trim()), Double.parseDouble(elo[1].trim()), SPRT_ALPHA,
+                    SPRT_BETA);
+            pairs = Long.parseLong(options.get("sprtPairs"));
+            threads = Integer.parseInt(options.get("sprtThreads"));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            handleSevereError("sprt parameter argument has the wrong format: " + ex.getMessage());
+        }
+        threads = getNumberOfThreads(threads);
+        OpeningSuite suite = null;
+        if (options.get("openings") != null) {
+            try {
+                suite = OpeningSuite.read(Paths.get(options.get("openings")));
+            } catch (IOException | IllegalArgumentException ex) {
+                handleSevereError("Can't read the opening suite: " + ex.getMessage());
+            }
+        }
+        out.println("candidate: " + candidate);
+        out.println("base:      " + base);
+        MatchRunner runner = new MatchRunner(new Supplier<Game>() {
+            @Override
+            public Game get() {
+                return newGame();
+            }
+        }, candidate, base, sprt, suite, threads, pairs, System.nanoTime());
+        try {
+            Sprt.Decision decision = runner.run(out);
+            switch (decision) {
+                case H1:
+                    out.println("H1 accepted: the candidate is stronger.");
+                    break;
+                case H0:
+                    out.println("H0 accepted: the candidate isn't stronger.");
+                    break;
+                default:
+                    out.println("No decision after " + pairs + " pairs.");
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            handleSevereError("The match has been aborted: " + ex.getMessage());
+        }
+        printMetrics();
+    }
+
+    private void runFeatureExtraction() {
+        int minPly = 0;
+        try {
+            minPly = Integer.parseInt(options.get("extractMinPly"));
+        } catch (NumberFormatException ex) {
+            handleSevereError("extractMinPly parameter argument has the wrong format.");
+        }
+        try (InputStream in = Files.newInputStream(Paths.get(options.get("extractFeatures")));
+                OutputStream featureStream = Files.newOutputStream(Paths.get(options.get("features")))) {
+            FeatureTable table = FeatureTable.extract(new GameRecordReader(in), game.getNumberOfStonesInARowToWin(),
+                    minPly);
+            table.write(featureStream);
+            out.println("Extracted " + table.size() + " positions into " + options.get("features") + ".");
+        } catch (IOException ex) {
+            handleSevereError("Feature extraction failed: " + ex.getMessage());
+        }
+    }
+
+    private void runTuning() {
+        int iterations = 0;
+        double rate = 0;
+        int threads = 0;
+        try {
+            iterations = Integer.parseInt(options.get("tuneIterations"));
+            rate = Double.parseDouble(options.get("tuneRate"));
+            threads = Integer.parseInt(options.get("tuneThreads"));
+        } catch (NumberFormatException ex) {
+            handleSevereError("tuneIterations, tuneRate or tuneThreads parameter argument has the wrong format.");
+        }
+        threads = getNumberOfThreads(threads);
+        FeatureTable table = null;
+        try (InputStream in = Files.newInputStream(Paths.get(options.get("tune")))) {
+            table = FeatureTable.read(in);
+        } catch (IOException ex) {
+            handleSevereError("Can't read the feature file: " + ex.getMessage());
+        }
+        int stonesInARowToWin = table.getStonesInARowToWin();
+        out.println("Tuning with " + table.size() + " positions.");
+        try {
+            double[] weights = new TexelTuner(table, threads).tune(
+                    getEngineConfig().getWeights().toFeatureWeights(stonesInARowToWin), iterations, rate, out);
+            EvaluationWeights.fromFeatureWeights(weights, options.get("tuneOutput"))
+                    .write(Paths.get(options.get("tuneOutput")), stonesInARowToWin);
+            out.println("Wrote the weights to " + options.get("tuneOutput") + ".");
+        } catch (InterruptedException | ExecutionException ex) {
+            handleSevereError("The tuning has been aborted: " + ex.getMessage());
+        } catch (IOException ex) {
+            handleSevereError("Can't write the weights file: " + ex.getMessage());
+        }
+    }
+
+    private void writeNetwork() {
+        Network network = null;
+        try {
+            network = Network.createWindowCounter(game.getNumberOfStonesInARowToWin());
+        } catch (IllegalArgumentException ex) {
+            handleSevereError("The network windows can't be longer than " + Network.MAX_WINDOW_LENGTH
+                    + " fields, choose a smaller xInARow.");
+        }
+        try (OutputStream networkStream = Files.newOutputStream(Paths.get(options.get("writeNetwork")))) {
+            network.write(networkStream);
+            out.println("Wrote the network to " + options.get("writeNetwork") + ".");
+        } catch (IOException ex) {
+            handleSevereError("Can't write the network file: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of threads of a multi-threaded task.
+     *
+     * @param threads number of threads given by the option of the task, 0 for
+     * the threads setting of the engine configuration
+     * @return number of threads, one per processor if neither is set
+     */
+    private int getNumberOfThreads(int threads) {
+        if (threads <= 0) {
+            threads = getEngineConfig().getThreads();
+        }
+        return threads <= 0 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    /**
+     * Prints the engine metrics if the metrics option is set.
+     */
+    private void printMetrics() {
+        if (options.get("metrics") != null) {
+            err.print(EngineMetrics.getGlobal().snapshot());
+            err.flush();
+        }
+    }
+
     private void playGame() {
-        boolean is_white_player = new Random().nextBoolean();
-        AbstractPlayer current;
-        AbstractPlayer other;
-        while (true) {
-            if (is_white_player) {
-                current = abstractUI.getWhitePlayer();
-                other = abstractUI.getBlackPlayer();
+        ExecutorService executor = Executors.newCachedThreadPool(DAEMON_THREAD_FACTORY);
+        ScheduledExecutorService scheduler = null;
+        long moveTimeout = 0;
+        try {
+            moveTimeout = Long.parseLong(options.get("moveTimeout"));
+        } catch (NumberFormatException ex) {
+            handleSevereError("moveTimeout parameter argument has the wrong format.");
+        }
+        if (moveTimeout > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(DAEMON_THREAD_FACTORY);
+        }
+        GameRecordWriter recordWriter = openRecordWriter();
+        GameDatabase database = openDatabase();
+        OpeningProtocol openingProtocol = createOpeningProtocol();
+        int gameIndex = 0;
+        boolean replay = true;
+        while (replay) {
+            GameSession session = new GameSession(abstractUI, executor, scheduler, moveTimeout);
+            GameRecorder recorder = null;
+            if (recordWriter != null || database != null) {
+                recorder = loadedRecord != null ? new GameRecorder(abstractUI.getGame(), loadedRecord, loadedMove)
+                        : new GameRecorder(abstractUI.getGame());
+            }
+            loadedRecord = null;
+            Player winner = null;
+            boolean whiteBegins = loadedWhiteToMove != null ? loadedWhiteToMove
+                    : openingProtocol.play(abstractUI, gameIndex);
+            loadedWhiteToMove = null;
+            gameIndex++;
+            try {
+                winner = session.start(whiteBegins).get();
+            } catch (InterruptedException | ExecutionException ex) {
+                handleSevereError("The game has been aborted: " + ex.getMessage());
+            }
+            if (recorder != null) {
+                writeRecord(recordWriter, database, recorder);
+            }
+            printMetrics();
+            if (winner != null) {
+                replay = abstractUI.handleWin(winner.isWhite() ? abstractUI.getWhitePlayer() : abstractUI.getBlackPlayer());
             } else {
-                current = abstractUI.getBlackPlayer();
-                other = abstractUI.getWhitePlayer();
+                replay = abstractUI.handleDrawn();
             }
-            Stone.Position nextPosition = current.getNextPosition();
-            game.placeStone(current.getPlayer(), nextPosition);
-            abstractUI.handlePlayerActionOccured(current, nextPosition);
-            other.otherPlayerAction(nextPosition);
-            is_white_player = !is_white_player;
-            Player winner = game.winner();
-            boolean replay;
-            if (winner != null || game.drawn()) {
-                if (winner != null) {
-                    replay = abstractUI.handleWin(winner.isWhite() ? abstractUI.getWhitePlayer() : abstractUI.getBlackPlayer());
-                } else {
-                    replay = abstractUI.handleDrawn();
-                }
-                if (replay) {
-                    replay();
-                } else {
-                    System.exit(0);
-                }
+            if (replay) {
+                replay();
+            }
+        }
+        if (database != null) {
+            try {
+                database.close();
+            } catch (IOException ex) {
+                handleError("Can't close the game database: " + ex.getMessage());
+            }
+        }
+        System.exit(0);
+    }
+
+    private void runDatabaseQuery() {
+        int maxGames = Integer.MAX_VALUE;
+        if (!options.get("databaseQuery").equals("true")) {
+            try {
+                maxGames = Integer.parseInt(options.get("databaseQuery"));
+            } catch (NumberFormatException ex) {
+                handleSevereError("databaseQuery parameter argument has the wrong format.");
+            }
+        }
+        GameDatabase database = openDatabase();
+        if (database == null) {
+            handleSevereError("DatabaseQuery parameter needs a database argument.");
+        }
+        try {
+            List<GameDatabase.MoveStatistics> moves = database.getNextMoves(game, maxGames);
+            out.println(database.getNumberOfGames() + " games in the database, moves played next in the position "
+                    + "([move] [games] ([black wins]/[white wins]/[drawn])):");
+            for (GameDatabase.MoveStatistics move : moves) {
+                out.println(move);
+            }
+            database.close();
+        } catch (IOException ex) {
+            handleSevereError("Can't query the game database: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Opens the file given by the record argument for appending game records.
+     *
+     * @return record writer or null if no games are recorded
+     */
+    private GameRecordWriter openRecordWriter() {
+        String file = options.get("record");
+        if (file == null) {
+            return null;
+        }
+        if (file.equals("true")) {
+            handleSevereError("Record parameter needs a file argument.");
+        }
+        try {
+            OutputStream stream = Files.newOutputStream(Paths.get(file), StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            return new GameRecordWriter(stream);
+        } catch (IOException ex) {
+            handleSevereError("Can't open the record file: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the game database in the directory given by the database
+     * argument.
+     *
+     * @return game database or null if no games are added to a database
+     */
+    private GameDatabase openDatabase() {
+        String directory = options.get("database");
+        if (directory == null) {
+            return null;
+        }
+        if (directory.equals("true")) {
+            handleSevereError("Database parameter needs a directory argument.");
+        }
+        try {
+            return new GameDatabase(Paths.get(directory));
+        } catch (IOException ex) {
+            handleSevereError("Can't open the game database: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRecord(GameRecordWriter recordWriter, GameDatabase database, GameRecorder recorder) {
+        recorder.stop();
+        GameRecord record = recorder.toRecord();
+        try {
+            if (recordWriter != null) {
+                recordWriter.write(record);
+                recordWriter.flush();
             }
+            if (database != null) {
+                database.add(record);
+                database.flush();
+            }
+        } catch (IOException ex) {
+            handleError("Can't write the game record: " + ex.getMessage());
         }
     }
 
@@ -202,11 +787,48 @@ public class UI {
      * Configures the UI to replay.
      */
     public void replay() {
-        game = new Game(game.getNumberOfColumns(), game.getNumberOfRows(), game.getNumberOfStonesInARowToWin());
-        initBlockedFields();
-        initJokerFields();
+        game = newGame();
         abstractUI.replay(game);
-        Board.resetNumberOfFreeFields(game);
+    }
+
+    /**
+     * Creates the opening protocol given by the opening and openings
+     * arguments.
+     *
+     * @return opening protocol
+     */
+    private OpeningProtocol createOpeningProtocol() {
+        OpeningRule rule = OpeningRule.FREE;
+        try {
+            rule = OpeningRule.fromName(options.get("opening"));
+        } catch (IllegalArgumentException ex) {
+            handleSevereError("opening parameter argument has the wrong format.");
+        }
+        OpeningSuite suite = null;
+        if (options.get("openings") != null) {
+            try {
+                suite = OpeningSuite.read(Paths.get(options.get("openings")));
+            } catch (IOException | IllegalArgumentException ex) {
+                handleSevereError("Can't read the opening suite: " + ex.getMessage());
+            }
+        } else if (rule == OpeningRule.SUITE) {
+            handleSevereError("The opening rule suite needs an opening suite (-openings).");
+        }
+        return new OpeningProtocol(rule, suite, new Random());
+    }
+
+    /**
+     * Creates a new game with the size, the blocked fields and the joker
+     * stones given by the console arguments.
+     *
+     * @return new game
+     */
+    public Game newGame() {
+        Game newGame = new Game(game.getNumberOfColumns(), game.getNumberOfRows(), game.getNumberOfStonesInARowToWin(),
+                game.getWinRule());
+        initBlockedFields(newGame);
+        initJokerFields(newGame);
+        return newGame;
     }
 
     private void initOptionsMap(String[] args) {
@@ -229,10 +851,11 @@ public class UI {
     }
 
     /**
-     * Important: Call this method only after the variable game is
-     * instantiated!!!
+     * Blocks the fields given by the block argument in the given game.
+     *
+     * @param game given game
      */
-    private void initBlockedFields() {
+    private void initBlockedFields(Game game) {
         try {
             game.blockStonePositions(ParseHelper.parseStringAsPositionArray(options.get("block")));
         } catch (NumberFormatException ex) {
@@ -241,10 +864,11 @@ public class UI {
     }
 
     /**
-     * Important: Call this method only after the variable game is
-     * instantiated!!!
+     * Places the joker stones given by the joker argument in the given game.
+     *
+     * @param game given game
      */
-    private void initJokerFields() {
+    private void initJokerFields(Game game) {
         try {
             game.placeJokerStones(ParseHelper.parseStringAsPositionArray(options.get("joker")));
         } catch (NumberFormatException ex) {
@@ -271,6 +895,29 @@ public class UI {
         System.exit(1);
     }
 
+    /**
+     * Returns the configuration of the automatic players' engines. The
+     * configuration file is read again if it has been modified, the previous
+     * configuration is kept if it can't be read.
+     *
+     * @return configuration of the automatic players' engines
+     */
+    public EngineConfig getEngineConfig() {
+        if (engineConfigFile == null) {
+            return engineConfig;
+        }
+        try {
+            if (engineConfigFile.reloadIfModified()) {
+                //The weights may have changed, the engines of the next games build new caches
+                LinePatternCache.clearAll();
+                err.println("Reloaded the engine configuration: " + engineConfigFile.get());
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            handleError("Can't reload the engine configuration, keeping the previous one: " + ex.getMessage());
+        }
+        return engineConfigFile.get();
+    }
+
     /**
      * Returns the value of the option.
      * 
@@ -0,0 +1,276 @@
+package jomoku.ui.analysis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jomoku.Game;
+import jomoku.Player;
+import jomoku.Stone;
+import jomoku.WinRule;
+import jomoku.opponent.EngineConfig;
+import jomoku.opponent.OpponentEngine;
+import jomoku.opponent.Search;
+import jomoku.ui.ParseHelper;
+
+/**
+ * Non-interactive analysis of a stream of positions. Reads one position per
+ * line and writes the best moves of each (with their principal variations) as
+ * a JSON line, in input order.
+ *
+ * A position line consists of arguments like the console arguments, position
+ * lists have the format of the -block argument:
+ * <pre>
+ * -black 7x7,8x8 -white 7x8 [-block 0x0,1x1] [-joker 3x3] [-toMove white] [-size 15x15] [-xInARow 5]
+ * [-winRule renju] [-id name]
+ * </pre> The player to move defaults to black if both players have placed
+ * the same number of stones, to white otherwise. Size, stones in a row to
+ * win and win rule (see jomoku.WinRule) default to the console arguments.
+ *
+ * A line that can't be analysed (e.g. it has the wrong format or an
+ * unsupported board size) results in a JSON line with an "error" field, the
+ * other lines are analysed nevertheless. Results already written are
+ * flushed before an I/O error is thrown.
+ *
+ * Only a bounded window of positions is in flight at any time, so the memory
+ * usage doesn't depend on the length of the input.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class BatchAnalyser {
+
+    /**
+     * Maximum number of columns and rows of an analysed board.
+     */
+    public static final int MAX_BOARD_SIZE = 255;
+    private int columns;
+    private int rows;
+    private int stonesInARowToWin;
+    private WinRule winRule;
+    private int numberOfCandidates;
+    private int depth;
+    private int numberOfThreads;
+    private EngineConfig config;
+
+    /**
+     * Constructs a batch analyser.
+     *
+     * @param columns default number of columns
+     * @param rows default number of rows
+     * @param stonesInARowToWin default number of stones in a row to win
+     * @param winRule default win rule
+     * @param numberOfCandidates number of best moves written per position
+     * @param depth search depth in plies, 0 writes the moves with the highest
+     * field scores
+     * @param numberOfThreads number of worker threads
+     * @param config configuration of the engines, its search depth isn't used
+     */
+    public BatchAnalyser(int columns, int rows, int stonesInARowToWin, WinRule winRule, int numberOfCandidates,
+            int depth, int numberOfThreads, EngineConfig config) {
+        this.columns = columns;
+        this.rows = rows;
+        this.stonesInARowToWin = stonesInARowToWin;
+        this.winRule = winRule;
+        this.numberOfCandidates = numberOfCandidates;
+        this.depth = depth;
+        this.numberOfThreads = numberOfThreads;
+        this.config = config;
+    }
+
+    /**
+     * Analyses all positions of the input and writes the results.
+     *
+     * @param in input, one position per line
+     * @param out output, one JSON object per line
+     * @throws IOException reading or writing failed
+     */
+    public void analyse(BufferedReader in, Writer out) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        int window = numberOfThreads * 4;
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>(window);
+        try {
+            String line;
+            long lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber += 1;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                final String positionLine = line;
+                final long number = lineNumber;
+                pending.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return analyseLine(positionLine, number);
+                    }
+                }));
+                if (pending.size() >= window) {
+                    write(pending.poll(), out);
+                }
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), out);
+            }
+            out.flush();
+        } catch (IOException ex) {
+            try {
+                out.flush();
+            } catch (IOException flushException) {
+                ex.addSuppressed(flushException);
+            }
+            throw ex;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void write(Future<String> result, Writer out) throws IOException {
+        try {
+            out.write(result.get());
+            out.write('\n');
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Analyses the position given by the line.
+     *
+     * @param line position line
+     * @param lineNumber number of the line in the input, the first is 1
+     * @return the JSON result
+     */
+    public String analyseLine(String line, long lineNumber) {
+        StringBuilder json = new StringBuilder(64 + numberOfCandidates * 32);
+        json.append("{\"line\":").append(lineNumber);
+        HashMap<String, String> arguments = new HashMap<>();
+        try {
+            parseArguments(line, arguments);
+            if (arguments.containsKey("id")) {
+                json.append(",\"id\":");
+                appendString(json, arguments.get("id"));
+            }
+            Game game = createGame(arguments);
+            Player player = getPlayerToMove(game, arguments);
+            OpponentEngine engine = new OpponentEngine(player, config);
+            engine.init();
+            Search.Candidate[] best = engine.analyse(numberOfCandidates, depth, config.getSearchTime());
+            json.append(",\"toMove\":\"").append(player.getType()).append('"');
+            if (best.length > 0) {
+                json.append(",\"best\":\"").append(best[0].getColumn()).append('x').append(best[0].getRow());
+                json.append("\",\"score\":").append(best[0].getValue());
+            }
+            json.append(",\"candidates\":[");
+            for (int i = 0; i < best.length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append("{\"move\":\"").append(best[i].getColumn()).append('x').append(best[i].getRow());
+                json.append("\",\"score\":").append(best[i].getValue()).append(",\"pv\":[");
+                Stone.Position[] variation = best[i].getPrincipalVariation();
+                for (int j = 0; j < variation.length; j++) {
+                    json.append(j > 0 ? ",\"" : "\"").append(variation[j]).append('"');
+                }
+                json.append("]}");
+            }
+            json.append(']');
+        } catch (RuntimeException ex) {
+            json.append(",\"error\":");
+            appendString(json, ex.getMessage() != null ? ex.getMessage() : ex.toString());
+        }
+        return json.append('}').toString();
+    }
+
+    private static void parseArguments(String line, HashMap<String, String> arguments) {
+        String[] tokens = line.trim().split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            if (!tokens[i].startsWith("-") || i == tokens.length - 1) {
+                throw new IllegalArgumentException("Expected \"-[name] [value]\" pairs.");
+            }
+            arguments.put(tokens[i].substring(1), tokens[i + 1]);
+            i += 1;
+        }
+    }
+
+    private Game createGame(HashMap<String, String> arguments) {
+        int gameColumns = columns;
+        int gameRows = rows;
+        int inARow = stonesInARowToWin;
+        WinRule rule = winRule;
+        if (arguments.containsKey("size")) {
+            int[] size = ParseHelper.parseStringAsIntegerValuePair(arguments.get("size"));
+            gameColumns = size[0];
+            gameRows = size[1];
+        }
+        if (arguments.containsKey("xInARow")) {
+            inARow = Integer.parseInt(arguments.get("xInARow"));
+        }
+        if (arguments.containsKey("winRule")) {
+            rule = WinRule.fromName(arguments.get("winRule"));
+        }
+        if (gameColumns <= 0 || gameRows <= 0 || gameColumns > MAX_BOARD_SIZE || gameRows > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("The board size " + gameColumns + "x" + gameRows
+                    + " isn't between 1x1 and " + MAX_BOARD_SIZE + "x" + MAX_BOARD_SIZE + ".");
+        }
+        if (inARow <= 0 || inARow > Math.max(gameColumns, gameRows)) {
+            throw new IllegalArgumentException("The number of stones in a row to win " + inARow
+                    + " isn't between 1 and the number of columns or rows.");
+        }
+        Game game = new Game(gameColumns, gameRows, inARow, rule);
+        game.blockStonePositions(ParseHelper.parseStringAsPositionArray(arguments.get("block")));
+        game.placeJokerStones(ParseHelper.parseStringAsPositionArray(arguments.get("joker")));
+        placeStones(game, game.getBlackPlayer(), arguments.get("black"));
+        placeStones(game, game.getWhitePlayer(), arguments.get("white"));
+        return game;
+    }
+
+    private static void placeStones(Game game, Player player, String positions) {
+        for (Stone.Position position : ParseHelper.parseStringAsPositionArray(positions)) {
+            if (!game.placeStone(player, position)) {
+                throw new IllegalArgumentException("Can't place a stone at " + position + ".");
+            }
+        }
+    }
+
+    private static Player getPlayerToMove(Game game, HashMap<String, String> arguments) {
+        String toMove = arguments.get("toMove");
+        if (toMove == null) {
+            int black = ParseHelper.parseStringAsPositionArray(arguments.get("black")).length;
+            int white = ParseHelper.parseStringAsPositionArray(arguments.get("white")).length;
+            return black == white ? game.getBlackPlayer() : game.getWhitePlayer();
+        }
+        switch (toMove.toLowerCase()) {
+            case "black":
+                return game.getBlackPlayer();
+            case "white":
+                return game.getWhitePlayer();
+            default:
+                throw new IllegalArgumentException("toMove has to be black or white.");
+        }
+    }
+
+    private static void appendString(StringBuilder json, String str) {
+        json.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
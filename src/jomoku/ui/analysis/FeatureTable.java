@@ -0,0 +1,242 @@
+package jomoku.ui.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import jomoku.opponent.OpponentEngine;
+import jomoku.record.GameRecord;
+import jomoku.record.GameRecordReader;
+import jomoku.record.GameReplay;
+
+/**
+ * Evaluation features (see OpponentEngine#extractFeatures) and game results
+ * of recorded positions, stored column by column: one byte array holds the
+ * results of all positions, one byte array per feature holds its values. A
+ * tuner reads each column sequentially and the file takes one byte per
+ * position and feature.
+ *
+ * The file format (big endian):
+ * <pre>
+ * [magic int] [format version int] [stones in a row to win int]
+ * [number of features int] [number of positions int]
+ * [result byte]... ([number of positions] bytes)
+ * [feature byte]... ([number of positions] bytes per feature)
+ * </pre> A result is the score of the player to move times two (0 loss, 1
+ * draw, 2 win).
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class FeatureTable {
+
+    /**
+     * Magic number at the beginning of a feature file ("JFT" + 0).
+     */
+    public static final int MAGIC = 0x4A465400;
+    /**
+     * Version of the format.
+     */
+    public static final int FORMAT_VERSION = 1;
+    private int stonesInARowToWin;
+    private int size;
+    private byte[] results;
+    private byte[][] columns;
+
+    /**
+     * Constructs an empty table.
+     *
+     * @param stonesInARowToWin number of stones in a row to win of the
+     * positions
+     * @param capacity initial number of positions the table can hold
+     */
+    public FeatureTable(int stonesInARowToWin, int capacity) {
+        this.stonesInARowToWin = stonesInARowToWin;
+        this.results = new byte[Math.max(capacity, 1)];
+        this.columns = new byte[OpponentEngine.getNumberOfFeatures(stonesInARowToWin)][results.length];
+    }
+
+    /**
+     * Extracts the features of the positions of the finished games of the
+     * given stream of records, seen by the player to move. The positions
+     * before the given ply and the final positions are skipped, records with
+     * a different number of stones in a row to win are ignored.
+     *
+     * @param reader reader of the game records
+     * @param stonesInARowToWin number of stones in a row to win
+     * @param minPly number of moves skipped at the beginning of every game
+     * @return table of the extracted positions
+     * @throws IOException reading the records failed
+     */
+    public static FeatureTable extract(GameRecordReader reader, int stonesInARowToWin, int minPly)
+            throws IOException {
+        FeatureTable table = new FeatureTable(stonesInARowToWin, 1 << 12);
+        int[] features = null;
+        GameRecord record;
+        while ((record = reader.read()) != null) {
+            if (record.getNumberOfStonesInARowToWin() != stonesInARowToWin
+                    || record.getResult() == GameRecord.Result.UNFINISHED) {
+                continue;
+            }
+            GameReplay replay = new GameReplay(record);
+            OpponentEngine engine = replay.createEngine(false);
+            for (int ply = Math.max(minPly, 0); ply < record.getNumberOfMoves(); ply++) {
+                replay.seek(ply);
+                boolean whiteToMove = replay.isWhiteToMove();
+                features = engine.extractFeatures(!whiteToMove, features);
+                table.add(score(record.getResult(), whiteToMove), features);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the score of the given player times two.
+     */
+    private static int score(GameRecord.Result result, boolean white) {
+        switch (result) {
+            case BLACK_WINS:
+                return white ? 0 : 2;
+            case WHITE_WINS:
+                return white ? 2 : 0;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Adds a position.
+     *
+     * @param result score of the player to move times two
+     * @param features features of the position, the values are clamped to
+     * the byte range
+     */
+    public void add(int result, int[] features) {
+        if (size == results.length) {
+            results = Arrays.copyOf(results, size * 2);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Arrays.copyOf(columns[i], size * 2);
+            }
+        }
+        results[size] = (byte) result;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i][size] = (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, features[i]));
+        }
+        size++;
+    }
+
+    /**
+     * Writes the table.
+     *
+     * @param out stream the table is written to, not closed
+     * @throws IOException writing failed
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(stonesInARowToWin);
+        data.writeInt(columns.length);
+        data.writeInt(size);
+        data.write(results, 0, size);
+        for (byte[] column : columns) {
+            data.write(column, 0, size);
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a table.
+     *
+     * @param in stream the table is read from, not closed
+     * @return table
+     * @throws IOException reading failed or the stream doesn't contain a
+     * table
+     */
+    public static FeatureTable read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+            throw new IOException("The stream doesn't contain a feature table of version " + FORMAT_VERSION + ".");
+        }
+        int stonesInARowToWin = data.readInt();
+        int numberOfFeatures = data.readInt();
+        int size = data.readInt();
+        if (numberOfFeatures != OpponentEngine.getNumberOfFeatures(stonesInARowToWin) || size < 0) {
+            throw new IOException("The feature table has an invalid header.");
+        }
+        FeatureTable table = new FeatureTable(stonesInARowToWin, size);
+        data.readFully(table.results, 0, size);
+        for (byte[] column : table.columns) {
+            data.readFully(column, 0, size);
+        }
+        table.size = size;
+        return table;
+    }
+
+    /**
+     * @return number of stones in a row to win of the positions
+     */
+    public int getStonesInARowToWin() {
+        return stonesInARowToWin;
+    }
+
+    /**
+     * @return number of positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of features per position
+     */
+    public int getNumberOfFeatures() {
+        return columns.length;
+    }
+
+    /**
+     * Returns the result of a position.
+     *
+     * @param position index of the position
+     * @return score of the player to move times two
+     */
+    public int getResult(int position) {
+        return results[position];
+    }
+
+    /**
+     * Returns the value of a feature of a position.
+     *
+     * @param feature index of the feature
+     * @param position index of the position
+     * @return value of the feature
+     */
+    public int getFeature(int feature, int position) {
+        return columns[feature][position];
+    }
+
+    /**
+     * Returns the results of all positions (the first size() entries),
+     * without copying them.
+     *
+     * @return column of the results, not to be changed
+     */
+    byte[] getResults() {
+        return results;
+    }
+
+    /**
+     * Returns the values of a feature of all positions (the first size()
+     * entries), without copying them.
+     *
+     * @param feature index of the feature
+     * @return column of the feature, not to be changed
+     */
+    byte[] getColumn(int feature) {
+        return columns[feature];
+    }
+}
@@ -0,0 +1,149 @@
+package jomoku.ui.analysis;
+
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import jomoku.Game;
+import jomoku.Player;
+import jomoku.Stone;
+import jomoku.opponent.EngineConfig;
+import jomoku.ui.OpeningProtocol;
+import jomoku.ui.OpeningSuite;
+
+/**
+ * Plays an engine configuration (the candidate) against another one (the
+ * base) in game pairs on several threads, until a sequential probability
+ * ratio test decides whether the candidate is stronger.
+ *
+ * Both games of a pair start with the same opening, the candidate plays black
+ * in the first and white in the second game. The openings are taken from an
+ * opening suite or chosen randomly near the center (three stones, the same
+ * for the same seed and pair).
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class MatchRunner {
+
+    /**
+     * Number of stones of the random openings.
+     */
+    private static final int RANDOM_OPENING_STONES = 3;
+    private final Supplier<Game> games;
+    private final EngineConfig candidate;
+    private final EngineConfig base;
+    private final OpeningSuite suite;
+    private final int numberOfThreads;
+    private final long maxPairs;
+    private final long seed;
+    private final AtomicLong nextPair = new AtomicLong();
+    private final Sprt sprt;
+    private volatile boolean decided;
+
+    /**
+     * Constructs a match runner.
+     *
+     * @param games creates the new games, e.g. with blocked fields
+     * @param candidate configuration being tested
+     * @param base configuration the candidate is compared with
+     * @param sprt test fed with the pair results
+     * @param suite opening suite or null for random openings
+     * @param numberOfThreads number of threads playing games
+     * @param maxPairs maximum number of game pairs
+     * @param seed seed of the random openings
+     */
+    public MatchRunner(Supplier<Game> games, EngineConfig candidate, EngineConfig base, Sprt sprt,
+            OpeningSuite suite, int numberOfThreads, long maxPairs, long seed) {
+        this.games = games;
+        this.candidate = candidate;
+        this.base = base;
+        this.sprt = sprt;
+        this.suite = suite;
+        this.numberOfThreads = numberOfThreads;
+        this.maxPairs = maxPairs;
+        this.seed = seed;
+    }
+
+    /**
+     * Plays game pairs until the test decides or the maximum number of pairs
+     * is reached. Pairs started before the decision are finished and
+     * counted.
+     *
+     * @param progress stream the state of the test is printed on after every
+     * pair, may be null
+     * @return decision of the test, CONTINUE if the maximum number of pairs
+     * has been reached before
+     * @throws InterruptedException interrupted while waiting for the games
+     * @throws ExecutionException a game failed
+     */
+    public Sprt.Decision run(final PrintStream progress) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        try {
+            Future<?>[] workers = new Future<?>[numberOfThreads];
+            for (int i = 0; i < numberOfThreads; i++) {
+                workers[i] = executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        playPairs(progress);
+                    }
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        synchronized (sprt) {
+            return sprt.getDecision();
+        }
+    }
+
+    private void playPairs(PrintStream progress) {
+        long pair;
+        while (!decided && (pair = nextPair.getAndIncrement()) < maxPairs) {
+            Stone.Position[] opening = getOpening(pair);
+            double firstScore = score(new SelfPlay(candidate, base).play(games.get(), opening), false);
+            double secondScore = score(new SelfPlay(base, candidate).play(games.get(), opening), true);
+            synchronized (sprt) {
+                sprt.addPair(firstScore, secondScore);
+                if (sprt.getDecision() != Sprt.Decision.CONTINUE) {
+                    decided = true;
+                }
+                if (progress != null) {
+                    progress.println(sprt);
+                }
+            }
+        }
+    }
+
+    private Stone.Position[] getOpening(long pair) {
+        if (suite != null) {
+            return suite.get((int) (pair % suite.size()));
+        }
+        return OpeningProtocol.randomOpening(games.get(), RANDOM_OPENING_STONES, new Random(seed + pair));
+    }
+
+    /**
+     * Returns the score of the candidate.
+     */
+    private static double score(Player winner, boolean candidateIsWhite) {
+        if (winner == null) {
+            return 0.5;
+        }
+        return winner.isWhite() == candidateIsWhite ? 1 : 0;
+    }
+
+    /**
+     * @return the test fed with the pair results, to be read while
+     * synchronized on it
+     */
+    public Sprt getSprt() {
+        return sprt;
+    }
+}
@@ -0,0 +1,87 @@
+package jomoku.ui.analysis;
+
+import jomoku.Game;
+import jomoku.Player;
+import jomoku.Stone;
+import jomoku.opponent.EngineConfig;
+import jomoku.opponent.EngineMetrics;
+import jomoku.opponent.OpponentEngine;
+import jomoku.opponent.Search;
+
+/**
+ * Plays a game between two engine configurations without any UI, on the
+ * calling thread. The time of every move is recorded in the engine metrics,
+ * like the moves of the automatic players.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class SelfPlay {
+
+    private final EngineConfig blackConfig;
+    private final EngineConfig whiteConfig;
+
+    /**
+     * Constructs a self play.
+     *
+     * @param blackConfig configuration of the engine playing black
+     * @param whiteConfig configuration of the engine playing white
+     */
+    public SelfPlay(EngineConfig blackConfig, EngineConfig whiteConfig) {
+        this.blackConfig = blackConfig;
+        this.whiteConfig = whiteConfig;
+    }
+
+    /**
+     * Places the opening stones in the given game and lets the engines play
+     * the rest of it.
+     *
+     * @param game new game, only blocked fields and joker stones may have
+     * been placed
+     * @param opening positions of the opening stones, alternately black and
+     * white
+     * @return the winner or null if the game ended drawn
+     * @throws IllegalArgumentException an opening stone can't be placed
+     */
+    public Player play(Game game, Stone.Position[] opening) {
+        Player player = game.getBlackPlayer();
+        for (Stone.Position position : opening) {
+            if (!game.placeStone(player, position)) {
+                throw new IllegalArgumentException("The opening stone " + position + " can't be placed.");
+            }
+            player = game.getOpponent(player);
+        }
+        OpponentEngine blackEngine = new OpponentEngine(game.getBlackPlayer(), blackConfig);
+        OpponentEngine whiteEngine = new OpponentEngine(game.getWhitePlayer(), whiteConfig);
+        blackEngine.init();
+        whiteEngine.init();
+        Player winner = game.winner();
+        while (winner == null && !game.drawn()) {
+            OpponentEngine engine = player.isWhite() ? whiteEngine : blackEngine;
+            long startTime = System.nanoTime();
+            Stone.Position position = examineNextPosition(engine);
+            engine.flushMetrics();
+            EngineMetrics.getGlobal().recordMoveLatency(System.nanoTime() - startTime);
+            if (!game.placeStone(player, position)) {
+                //The engine has no legal move (e.g. only forbidden ones left)
+                return game.getOpponent(player);
+            }
+            blackEngine.setStoneType(position, player.getFieldType());
+            whiteEngine.setStoneType(position, player.getFieldType());
+            winner = game.winner();
+            player = game.getOpponent(player);
+        }
+        return winner;
+    }
+
+    private static Stone.Position examineNextPosition(OpponentEngine engine) {
+        EngineConfig config = engine.getConfig();
+        if (config.getSearchDepth() > 0) {
+            Search.Candidate[] best = engine.analyse(1, config.getSearchDepth(), config.getSearchTime());
+            if (best.length > 0) {
+                return best[0];
+            }
+        }
+        return engine.examineBestPosition();
+    }
+}
@@ -0,0 +1,222 @@
+package jomoku.ui.analysis;
+
+import java.util.Locale;
+
+/**
+ * Sequential probability ratio test deciding whether an engine is stronger
+ * than another by elo1 (H1) or by at most elo0 (H0), from the results of game
+ * pairs. Both games of a pair are played from the same opening with swapped
+ * colors, so the pair results (pentanomial: 0, 0.5, 1, 1.5 or 2 points) are
+ * hardly biased by the opening.
+ *
+ * The log-likelihood ratio is approximated with the normal distribution of
+ * the mean pair score (generalized SPRT), the test stops when it leaves the
+ * bounds given by the error probabilities alpha and beta. The variance is
+ * estimated with PSEUDO_COUNT pairs added to each of the five results, so
+ * one-sided results (e.g. only won or only drawn pairs) have a positive
+ * variance and lead to a decision too.
+ *
+ * @see http://en.wikipedia.org/wiki/Sequential_probability_ratio_test
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class Sprt {
+
+    /**
+     * Result of the test.
+     */
+    public static enum Decision {
+
+        /**
+         * More games are needed.
+         */
+        CONTINUE,
+        /**
+         * The engine isn't stronger by more than elo0.
+         */
+        H0,
+        /**
+         * The engine is stronger by at least elo1.
+         */
+        H1
+    }
+    /**
+     * Number of pairs added to each result when estimating the variance.
+     */
+    public static final double PSEUDO_COUNT = 0.25;
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+    /**
+     * Number of pairs by points of the first engine times two (0 to 4).
+     */
+    private final long[] pairs = new long[5];
+    private long wins;
+    private long draws;
+    private long losses;
+
+    /**
+     * Constructs a test.
+     *
+     * @param elo0 Elo difference of the null hypothesis
+     * @param elo1 Elo difference of the alternative hypothesis, greater than
+     * elo0
+     * @param alpha probability of accepting H1 although H0 holds
+     * @param beta probability of accepting H0 although H1 holds
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0 || alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+            throw new IllegalArgumentException("Expected elo0 < elo1 and error probabilities between 0 and 1.");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Adds the result of a game pair.
+     *
+     * @param firstScore score of the engine in the first game (1 win, 0.5
+     * draw, 0 loss)
+     * @param secondScore score of the engine in the second game
+     */
+    public void addPair(double firstScore, double secondScore) {
+        pairs[(int) Math.round((firstScore + secondScore) * 2)]++;
+        count(firstScore);
+        count(secondScore);
+    }
+
+    private void count(double score) {
+        if (score > 0.5) {
+            wins++;
+        } else if (score < 0.5) {
+            losses++;
+        } else {
+            draws++;
+        }
+    }
+
+    /**
+     * @return number of game pairs
+     */
+    public long getNumberOfPairs() {
+        long n = 0;
+        for (long count : pairs) {
+            n += count;
+        }
+        return n;
+    }
+
+    /**
+     * @return mean score of the engine per game, 0.5 if no pairs are added
+     */
+    public double getMeanScore() {
+        long n = getNumberOfPairs();
+        if (n == 0) {
+            return 0.5;
+        }
+        double sum = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            sum += pairs[i] * (i / 4.0);
+        }
+        return sum / n;
+    }
+
+    /**
+     * @return variance of the score per pair (in games) of the results with
+     * PSEUDO_COUNT pairs added to each result, always positive
+     */
+    private double getVariance() {
+        double n = getNumberOfPairs() + PSEUDO_COUNT * pairs.length;
+        double sum = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            sum += (pairs[i] + PSEUDO_COUNT) * (i / 4.0);
+        }
+        double mean = sum / n;
+        double squares = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            double deviation = i / 4.0 - mean;
+            squares += (pairs[i] + PSEUDO_COUNT) * deviation * deviation;
+        }
+        return squares / n;
+    }
+
+    /**
+     * @return log-likelihood ratio of H1 against H0, 0 if no pairs are added
+     */
+    public double getLlr() {
+        double variance = getVariance();
+        double s0 = expectedScore(elo0);
+        double s1 = expectedScore(elo1);
+        return getNumberOfPairs() * (s1 - s0) * (2 * getMeanScore() - s0 - s1) / (2 * variance);
+    }
+
+    /**
+     * @return log-likelihood ratio at or below which H0 is accepted
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * @return log-likelihood ratio at or above which H1 is accepted
+     */
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * @return decision of the test by the current results
+     */
+    public Decision getDecision() {
+        double llr = getLlr();
+        if (llr >= upperBound) {
+            return Decision.H1;
+        } else if (llr <= lowerBound) {
+            return Decision.H0;
+        }
+        return Decision.CONTINUE;
+    }
+
+    /**
+     * @return estimated Elo difference of the engine
+     */
+    public double getElo() {
+        return elo(getMeanScore());
+    }
+
+    /**
+     * @return half width of the 95% confidence interval of the Elo
+     * difference, infinite if no pairs are added
+     */
+    public double getEloError() {
+        long n = getNumberOfPairs();
+        if (n == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double variance = getVariance();
+        double deviation = 1.96 * Math.sqrt(variance / n);
+        double mean = getMeanScore();
+        return (elo(Math.min(mean + deviation, 1)) - elo(Math.max(mean - deviation, 0))) / 2;
+    }
+
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    private static double elo(double score) {
+        score = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * Returns the current state of the test as one line.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "pairs %d, W/D/L %d/%d/%d, elo %.1f +- %.1f, llr %.2f [%.2f, %.2f]",
+                getNumberOfPairs(), wins, draws, losses, getElo(), getEloError(), getLlr(), lowerBound, upperBound);
+    }
+}
@@ -0,0 +1,202 @@
+package jomoku.ui.analysis;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fits the evaluation weights to the results of recorded games (Texel
+ * tuning): the evaluation of a position (the scalar product of its features
+ * and the weights) is mapped to an expected score by the logistic function
+ * 1 / (1 + e^(-scale * evaluation)), the tuner minimizes the mean squared
+ * error between the expected scores and the results.
+ *
+ * The scale is fitted to the initial weights first, then the weights are
+ * improved by batch gradient descent with per-weight step sizes (AdaGrad), as
+ * the weights differ by orders of magnitude. The positions are split into one
+ * contiguous block per thread, each thread computes the error and the
+ * gradient of its block column by column.
+ *
+ * @see FeatureTable
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class TexelTuner {
+
+    /**
+     * Smallest and largest scale tried when fitting the scale.
+     */
+    private static final double MIN_SCALE = 1e-4, MAX_SCALE = 1;
+    private static final int SCALE_STEPS = 80;
+    private static final double EPSILON = 1e-12;
+    private final FeatureTable table;
+    private final int numberOfThreads;
+    private double scale = 1;
+
+    /**
+     * Constructs a tuner.
+     *
+     * @param table features and results of the positions
+     * @param numberOfThreads number of threads computing the gradient
+     */
+    public TexelTuner(FeatureTable table, int numberOfThreads) {
+        this.table = table;
+        this.numberOfThreads = Math.max(1, Math.min(numberOfThreads, table.size()));
+    }
+
+    /**
+     * Fits the scale to the given weights and improves the weights.
+     *
+     * @param initialWeights weights to start with (see
+     * jomoku.opponent.EvaluationWeights#toFeatureWeights)
+     * @param iterations number of gradient descent steps
+     * @param learningRate initial step size of each weight
+     * @param progress stream the error is printed on every 100 iterations,
+     * may be null
+     * @return improved weights
+     * @throws InterruptedException interrupted while waiting for the threads
+     * @throws ExecutionException a thread failed
+     */
+    public double[] tune(double[] initialWeights, int iterations, double learningRate, PrintStream progress)
+            throws InterruptedException, ExecutionException {
+        double[] weights = initialWeights.clone();
+        double[] squaredGradientSums = new double[weights.length];
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        try {
+            fitScale(executor, weights);
+            if (progress != null) {
+                progress.println(String.format(Locale.ROOT, "scale %.6f, error %.6f", scale,
+                        computeError(executor, weights, null)));
+            }
+            double[] gradient = new double[weights.length];
+            for (int iteration = 1; iteration <= iterations; iteration++) {
+                double error = computeError(executor, weights, gradient);
+                for (int i = 0; i < weights.length; i++) {
+                    squaredGradientSums[i] += gradient[i] * gradient[i];
+                    weights[i] -= learningRate * gradient[i] / Math.sqrt(squaredGradientSums[i] + EPSILON);
+                }
+                if (progress != null && (iteration % 100 == 0 || iteration == iterations)) {
+                    progress.println(String.format(Locale.ROOT, "iteration %d, error %.6f", iteration, error));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return weights;
+    }
+
+    /**
+     * Sets the scale with the lowest error for the given weights, trying
+     * logarithmically spaced scales.
+     */
+    private void fitScale(ExecutorService executor, double[] weights) throws InterruptedException,
+            ExecutionException {
+        double bestScale = 1;
+        double bestError = Double.POSITIVE_INFINITY;
+        for (int i = 0; i <= SCALE_STEPS; i++) {
+            scale = MIN_SCALE * Math.pow(MAX_SCALE / MIN_SCALE, (double) i / SCALE_STEPS);
+            double error = computeError(executor, weights, null);
+            if (error < bestError) {
+                bestError = error;
+                bestScale = scale;
+            }
+        }
+        scale = bestScale;
+    }
+
+    /**
+     * Computes the mean squared error of the given weights and optionally its
+     * gradient.
+     *
+     * @param gradient buffer for the gradient or null
+     * @return mean squared error
+     */
+    private double computeError(ExecutorService executor, final double[] weights, double[] gradient)
+            throws InterruptedException, ExecutionException {
+        int size = table.size();
+        if (size == 0) {
+            return 0;
+        }
+        List<Future<double[]>> futures = new ArrayList<>(numberOfThreads);
+        final boolean withGradient = gradient != null;
+        for (int i = 0; i < numberOfThreads; i++) {
+            final int from = (int) ((long) size * i / numberOfThreads);
+            final int to = (int) ((long) size * (i + 1) / numberOfThreads);
+            futures.add(executor.submit(new Callable<double[]>() {
+                @Override
+                public double[] call() {
+                    return computeBlock(weights, from, to, withGradient);
+                }
+            }));
+        }
+        double error = 0;
+        if (withGradient) {
+            Arrays.fill(gradient, 0);
+        }
+        for (Future<double[]> future : futures) {
+            double[] block = future.get();
+            error += block[0];
+            if (withGradient) {
+                for (int i = 0; i < gradient.length; i++) {
+                    gradient[i] += block[i + 1] / size;
+                }
+            }
+        }
+        return error / size;
+    }
+
+    /**
+     * Computes the summed squared error and gradient of the positions from
+     * (inclusive) to (exclusive).
+     *
+     * @return the error followed by the gradient (if requested)
+     */
+    private double[] computeBlock(double[] weights, int from, int to, boolean withGradient) {
+        int length = to - from;
+        double[] evaluations = new double[length];
+        for (int feature = 0; feature < weights.length; feature++) {
+            byte[] column = table.getColumn(feature);
+            double weight = weights[feature];
+            if (weight == 0) {
+                continue;
+            }
+            for (int i = 0; i < length; i++) {
+                evaluations[i] += weight * column[from + i];
+            }
+        }
+        byte[] results = table.getResults();
+        double[] block = new double[withGradient ? weights.length + 1 : 1];
+        //evaluations become the derivatives of the error by the evaluations
+        for (int i = 0; i < length; i++) {
+            double expected = 1 / (1 + Math.exp(-scale * evaluations[i]));
+            double difference = results[from + i] / 2.0 - expected;
+            block[0] += difference * difference;
+            evaluations[i] = -2 * difference * expected * (1 - expected) * scale;
+        }
+        if (withGradient) {
+            for (int feature = 0; feature < weights.length; feature++) {
+                byte[] column = table.getColumn(feature);
+                double sum = 0;
+                for (int i = 0; i < length; i++) {
+                    sum += evaluations[i] * column[from + i];
+                }
+                block[feature + 1] = sum;
+            }
+        }
+        return block;
+    }
+
+    /**
+     * @return scale of the logistic function fitted to the initial weights
+     */
+    public double getScale() {
+        return scale;
+    }
+}
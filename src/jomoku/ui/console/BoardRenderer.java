@@ -0,0 +1,170 @@
+package jomoku.ui.console;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import jomoku.Game;
+
+/**
+ * Prints the board of a game on the console. The text is built in one
+ * reusable StringBuilder and written through a reusable byte buffer, so
+ * printing the board doesn't create objects.
+ *
+ * In ANSI mode the board is printed completely only once per game, later
+ * only the changed fields are redrawn by moving the cursor with ANSI escape
+ * sequences. The cursor is then placed on the line below the board, which is
+ * cleared for the following output.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class BoardRenderer {
+
+    private static final char ESCAPE = 27;
+    private static final int BUFFER_SIZE = 1 << 13;
+    private WritableByteChannel channel;
+    private boolean ansi;
+    private StringBuilder builder = new StringBuilder(BUFFER_SIZE);
+    private char[] chars = new char[BUFFER_SIZE];
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * Game whose board is currently shown (ANSI mode).
+     */
+    private Game shownGame;
+    /**
+     * Field types currently shown, by column * rows + row (ANSI mode).
+     */
+    private Game.FieldType[] shownFields;
+    private int headerLines;
+    private int rowLabelLength;
+
+    /**
+     * Constructs a renderer.
+     *
+     * @param out stream the board is printed on
+     * @param ansi Are only the changed fields redrawn using ANSI escape
+     * sequences?
+     */
+    public BoardRenderer(OutputStream out, boolean ansi) {
+        this.channel = Channels.newChannel(out);
+        this.ansi = ansi;
+    }
+
+    /**
+     * Prints the board of the given game.
+     *
+     * @param game game
+     */
+    public void render(Game game) {
+        builder.setLength(0);
+        if (!ansi) {
+            game.appendBoardStringRep(builder);
+            builder.append('\n');
+        } else if (game != shownGame) {
+            appendFullBoard(game);
+        } else {
+            appendChangedFields(game);
+        }
+        write();
+    }
+
+    /**
+     * Clears the screen and prints the complete board, remembering the shown
+     * fields.
+     */
+    private void appendFullBoard(Game game) {
+        int columns = game.getNumberOfColumns();
+        int rows = game.getNumberOfRows();
+        shownGame = game;
+        if (shownFields == null || shownFields.length != columns * rows) {
+            shownFields = new Game.FieldType[columns * rows];
+        }
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                shownFields[i * rows + j] = game.getFieldType(i, j);
+            }
+        }
+        headerLines = numberOfDigits(columns - 1);
+        rowLabelLength = numberOfDigits(rows - 1);
+        builder.append(ESCAPE).append("[2J").append(ESCAPE).append("[H");
+        game.appendBoardStringRep(builder);
+        appendCursorLine(rows);
+    }
+
+    /**
+     * Redraws the fields changed since the last call.
+     */
+    private void appendChangedFields(Game game) {
+        int columns = game.getNumberOfColumns();
+        int rows = game.getNumberOfRows();
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                Game.FieldType type = game.getFieldType(i, j);
+                if (shownFields[i * rows + j] != type) {
+                    shownFields[i * rows + j] = type;
+                    //Line and column of the field, the first is 1
+                    appendCursorPosition(headerLines + j + 1, rowLabelLength + i * 4 + 4);
+                    builder.append(type.toString());
+                }
+            }
+        }
+        appendCursorLine(rows);
+    }
+
+    /**
+     * Moves the cursor to the beginning of the line below the board and
+     * clears the screen from there.
+     */
+    private void appendCursorLine(int rows) {
+        appendCursorPosition(headerLines + rows + 1, 1);
+        builder.append(ESCAPE).append("[J");
+    }
+
+    private void appendCursorPosition(int line, int column) {
+        builder.append(ESCAPE).append('[').append(line).append(';').append(column).append('H');
+    }
+
+    private static int numberOfDigits(int number) {
+        int digits = 1;
+        while (number >= 10) {
+            number /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Writes the builder's content (only ASCII characters) to the channel.
+     */
+    private void write() {
+        int length = builder.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        builder.getChars(0, length, chars, 0);
+        byte[] bytes = buffer.array();
+        try {
+            int offset = 0;
+            while (offset < length) {
+                int count = Math.min(length - offset, bytes.length);
+                for (int i = 0; i < count; i++) {
+                    bytes[i] = (byte) chars[offset + i];
+                }
+                buffer.limit(count);
+                flushBuffer();
+                offset += count;
+            }
+        } catch (IOException ex) {
+            //The console has been closed
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -1,6 +1,12 @@
 package jomoku.ui.console;
 
-import java.util.Scanner;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
 import jomoku.Player;
 import jomoku.Stone;
 import jomoku.ui.AbstractPlayer;
@@ -10,11 +16,22 @@ import jomoku.ui.ParseHelper;
 /**
  * Builds the UI of a Jomoku player.
  *
+ * The standard input is read by a daemon thread shared by all console
+ * players, the players take its lines from a queue. So a player whose move
+ * has been cancelled (see AbstractPlayer#requestNextPosition) stops waiting
+ * when interrupted and doesn't take a line typed for the next game.
+ *
  * @author Johannes Bechberger
  */
 public class ConsolePlayer extends AbstractPlayer {
 
-    private Scanner scanner;
+    private static final BlockingQueue<String> LINES = new LinkedBlockingQueue<>();
+    /**
+     * Marks the end of the standard input in the queue, compared by
+     * identity.
+     */
+    private static final String END_OF_INPUT = new String("end of input");
+    private static boolean readerStarted = false;
 
     /**
      * Constructs an console player.
@@ -24,7 +41,56 @@ public class ConsolePlayer extends AbstractPlayer {
      */
     public ConsolePlayer(Player player, AbstractUI ui) {
         super(player, ui);
-        scanner = new Scanner(System.in);
+    }
+
+    /**
+     * Starts the thread reading the standard input, if it isn't running.
+     */
+    private static synchronized void startReader() {
+        if (readerStarted) {
+            return;
+        }
+        readerStarted = true;
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+                try {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        LINES.add(line);
+                    }
+                } catch (IOException ex) {
+                    System.err.println("Can't read the standard input: " + ex.getMessage());
+                }
+                LINES.add(END_OF_INPUT);
+            }
+        }, "Jomoku console input");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Waits for the next line of the standard input.
+     *
+     * @return line
+     * @throws NoSuchElementException the standard input has ended
+     * @throws CancellationException the thread has been interrupted
+     */
+    private static String readLine() {
+        startReader();
+        try {
+            String line = LINES.take();
+            if (line == END_OF_INPUT) {
+                //Let the other players see the end too
+                LINES.add(line);
+                throw new NoSuchElementException("No line found");
+            }
+            return line;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Waiting for the input has been cancelled.");
+        }
     }
 
     @Override
@@ -33,13 +99,17 @@ public class ConsolePlayer extends AbstractPlayer {
         String stringRep = isWhite() ? "White" : "Black";
         System.out.print(stringRep + " player: ");
         while (pos == null) {
-            String input = scanner.nextLine();
+            String input = readLine();
             try {
                 pos = ParseHelper.parseStringAsPosition(input);
                 if (!this.getGame().canStoneBePlacedAtPosition(pos)) {
                     pos = null;
                     handleError("You can't place a stone at this position.");
                     System.out.print("Try again: ");
+                } else if (this.getGame().isForbiddenMove(getPlayer(), pos)) {
+                    pos = null;
+                    handleError("This move is forbidden by the rules.");
+                    System.out.print("Try again: ");
                 }
             } catch (NumberFormatException ex) {
                 handleError(ex.getMessage());
@@ -49,6 +119,30 @@ public class ConsolePlayer extends AbstractPlayer {
         return pos;
     }
 
+    @Override
+    public boolean choosesWhite(boolean whiteToMove) {
+        return askYesNo((isWhite() ? "White" : "Black") + " player: Do you want to play white?");
+    }
+
+    @Override
+    public boolean extendsOpening(boolean whiteToMove) {
+        return askYesNo((isWhite() ? "White" : "Black") + " player: Do you want to place two more stones "
+                + "and let the other player choose the color?");
+    }
+
+    private boolean askYesNo(String question) {
+        System.out.print(question + " [y/n]: ");
+        while (true) {
+            String input = readLine().trim();
+            if (input.equalsIgnoreCase("y")) {
+                return true;
+            } else if (input.equalsIgnoreCase("n")) {
+                return false;
+            }
+            System.out.print("Please type y or n: ");
+        }
+    }
+
     @Override
     public void handleError(String msg) {
         System.err.println(msg);
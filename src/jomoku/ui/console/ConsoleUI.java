@@ -18,6 +18,7 @@ public class ConsoleUI extends AbstractUI {
     private final String WINNER_TEXT = "{{Player}}. You've won!!! (Overall actions: {{actions}})";
     private final String REMMI_TEXT = "Remmi. No Player has won after {{actions}}.";
     private int actions = 0;
+    private BoardRenderer boardRenderer;
 
     /**
      *
@@ -26,6 +27,7 @@ public class ConsoleUI extends AbstractUI {
      */
     public ConsoleUI(UI ui, Game game) {
         super(ui, game);
+        this.boardRenderer = new BoardRenderer(System.out, ui.getOption("ansi") != null);
     }
 
     /**
@@ -36,7 +38,7 @@ public class ConsoleUI extends AbstractUI {
         if (getUI().getOption("printNoBoards") != null) {
             return false;
         }
-        System.out.println(getGame().boardStringRep());
+        boardRenderer.render(getGame());
         return true;
     }
 
@@ -4,13 +4,14 @@ import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Graphics;
 import java.awt.Point;
-import java.awt.Rectangle;
-import java.util.ArrayList;
+import java.awt.image.BufferedImage;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.SynchronousQueue;
 import jomoku.Game;
 import jomoku.Game.FieldType;
 import jomoku.Stone;
 import jomoku.Stone.Position;
+import jomoku.opponent.OpponentEngine;
 import jomoku.ui.AbstractPlayer;
 
 /**
@@ -21,15 +22,55 @@ import jomoku.ui.AbstractPlayer;
 public class Frame extends javax.swing.JFrame {
 
     private Game game;
-    private Game.FieldType[][] fields;
+    /**
+     * Codes of the shown field types (see Game.FieldType#getCode) by column *
+     * rows + row.
+     */
+    private byte[] fields;
+    private int columns;
+    private int rows;
     private ConcurrentLinkedQueue<FieldTypePositionContainer> fieldsToAddQueue = new ConcurrentLinkedQueue<>();
-    private boolean forcePaintAll = false;
-    private Stone.Position currentStonePosition;
+    private volatile boolean forcePaintAll = false;
+    /**
+     * Hands the clicked positions over to a thread waiting in promptPosition,
+     * clicks while no thread waits are dropped.
+     */
+    private SynchronousQueue<Stone.Position> clickedPositions = new SynchronousQueue<>();
+    /**
+     * Action run on a click instead of handing over the clicked position, or
+     * null.
+     */
+    private volatile Runnable clickAction;
     private int shift = 15;
     private int yAddShift = 22;
     private int padding = 1;
 //    private Stone.Position currentPos;
-    private StonePositionGUIArea[][] guiAreas;
+    /**
+     * Offscreen image of the board with the grid and the stones, only the
+     * changed fields are drawn on it.
+     */
+    private BufferedImage boardImage;
+    /**
+     * Number of colors of the heat map.
+     */
+    private static final int HEAT_MAP_LEVELS = 32;
+    private Color[] heatMapColors;
+    /**
+     * Guards heatMapBuffer and heatMapChanged, the engine thread copies the
+     * scores into the buffer which is swapped with heatMap before painting.
+     */
+    private final Object heatMapLock = new Object();
+    private double[] heatMapBuffer;
+    private boolean heatMapChanged = false;
+    /**
+     * Scores shown as heat map by column * rows + row, or null. Only used on
+     * the event dispatch thread.
+     */
+    private double[] heatMap;
+    /**
+     * Logarithm of the highest shown score plus one.
+     */
+    private double heatMapLogMax;
 
     /**
      * Creates new form Frame
@@ -37,6 +78,7 @@ public class Frame extends javax.swing.JFrame {
     public Frame() {
         initComponents();
         this.game = new Game(14, 14);
+        copyFields();
     }
 
     /**
@@ -47,97 +89,246 @@ public class Frame extends javax.swing.JFrame {
     public Frame(Game game) {
         initComponents();
         this.game = game;
-        fields = game.getBoardFieldTypes();
-        guiAreas = new StonePositionGUIArea[fields.length][fields[0].length];
+        copyFields();
+    }
+
+    /**
+     * Copies the field types of the game, reusing the fields array if it's
+     * large enough.
+     */
+    private void copyFields() {
+        columns = game.getNumberOfColumns();
+        rows = game.getNumberOfRows();
+        fields = game.copyFieldTypes(fields);
     }
 
     @Override
     public void paint(Graphics g) {
         //super.paint(g);
-        int boardWidth = getWidth() - (shift * 2);
-        int boardHeight = getHeight() - (shift * 2) - yAddShift;
-        double fieldWidth = boardWidth * 1.0 / game.getNumberOfColumns();
-        double fieldHeight = boardHeight * 1.0 / game.getNumberOfRows();
-        int fieldWidthInt = (int) Math.round(fieldWidth);
-        int fieldHeightInt = (int) Math.round(fieldHeight);
-        int fieldStoneWidth = (int) Math.round(fieldWidth) - (padding * 2);
-        int fieldStoneHeight = (int) Math.round(fieldHeight) - (padding * 2);
-        int x, y;
-        if (!fieldsToAddQueue.isEmpty() && !forcePaintAll) {
-            FieldTypePositionContainer field = fieldsToAddQueue.poll();
-            while (field != null) {
-                fields[field.position.getColumn()][field.position.getRow()] = field.fieldType;
-                x = (int) Math.round(fieldWidth * field.position.getColumn()) + shift;
-                y = (int) Math.round(fieldHeight * field.position.getRow()) + shift + yAddShift;
-                if (field.fieldType != Game.FieldType.BLOCKED) {
-                    if (field.fieldType != Game.FieldType.FREE) {
-                        g.setColor(field.fieldType.getColor());
-                        g.fillOval(x + padding, y + padding, fieldStoneWidth, fieldStoneHeight);
-                    }
-                } else {
-                    g.setColor(field.fieldType.getColor());
-                    g.fillRect(x, y, fieldWidthInt, fieldHeightInt);
-                }
-                field = fieldsToAddQueue.poll();
-            }
+        int boardWidth = getBoardWidth();
+        int boardHeight = getBoardHeight();
+        if (boardWidth <= 0 || boardHeight <= 0) {
+            return;
+        }
+        if (swapHeatMap()) {
+            forcePaintAll = true;
+        }
+        if (forcePaintAll || boardImage == null || boardImage.getWidth() != boardWidth
+                || boardImage.getHeight() != boardHeight) {
+            forcePaintAll = false;
+            applyQueuedFields(null);
+            paintBoardImage(boardWidth, boardHeight);
         } else {
-            g.setColor(Game.FieldType.FREE.getColor());
-            g.fillRect(shift, shift + yAddShift, boardWidth, boardHeight);
-            for (int i = 0; i < fields.length; i++) {
-                Game.FieldType[] row = fields[i];
-                for (int j = 0; j < row.length; j++) {
-                    Game.FieldType type = row[j];
-                    x = (int) Math.round(fieldWidth * i) + shift;
-                    y = (int) Math.round(fieldHeight * j) + shift + yAddShift;
-                    if (type != Game.FieldType.BLOCKED) {
-                        if (type != Game.FieldType.FREE) {
-                            g.setColor(type.getColor());
-                            g.fillOval(x + padding, y + padding, fieldStoneWidth, fieldStoneHeight);
-                        }
-                    } else {
-                        g.setColor(type.getColor());
-                        g.fillRect(x, y, fieldWidthInt, fieldHeightInt);
-                    }
-                    guiAreas[i][j] = new StonePositionGUIArea(i, j, new Rectangle(x, y, fieldWidthInt, fieldHeightInt));
-                }
+            applyQueuedFields(boardImage.getGraphics());
+        }
+        //Only the clip area (e.g. the changed field) is actually copied
+        g.drawImage(boardImage, shift, shift + yAddShift, null);
+    }
+
+    /**
+     * Sets the queued field types and paints them on the given graphics.
+     *
+     * @param imageGraphics graphics of the board image or null if they
+     * aren't painted
+     */
+    private void applyQueuedFields(Graphics imageGraphics) {
+        FieldTypePositionContainer field = fieldsToAddQueue.poll();
+        while (field != null) {
+            fields[field.position.getColumn() * rows + field.position.getRow()] = field.fieldType.getCode();
+            if (imageGraphics != null) {
+                paintField(imageGraphics, field.position.getColumn(), field.position.getRow());
             }
-            g.setColor(Color.darkGray);
-            y = shift + yAddShift;
-            for (int i = 0; i < fields.length + 1; i++) {
-                x = (int) Math.round(fieldWidth * i) + shift;
-                g.drawLine(x, y, x, y + boardHeight);
+            field = fieldsToAddQueue.poll();
+        }
+        if (imageGraphics != null) {
+            imageGraphics.dispose();
+        }
+    }
+
+    /**
+     * Shows the current scores of the given engine as heat map on the free
+     * fields. Copies the scores into a reused buffer, it has to be called on
+     * the thread using the engine.
+     *
+     * @param engine engine of the current game
+     */
+    public void updateHeatMap(OpponentEngine engine) {
+        synchronized (heatMapLock) {
+            heatMapBuffer = engine.copyScores(heatMapBuffer);
+            heatMapChanged = true;
+        }
+        repaint();
+    }
+
+    /**
+     * Swaps the buffer filled by updateHeatMap with the shown heat map.
+     *
+     * @return Has the heat map changed?
+     */
+    private boolean swapHeatMap() {
+        synchronized (heatMapLock) {
+            if (!heatMapChanged) {
+                return false;
             }
-            x = shift;
-            for (int i = 0; i < fields[0].length + 1; i++) {
-                y = (int) Math.round(fieldHeight * i) + shift + yAddShift;
-                g.drawLine(x, y, x + boardWidth, y);
+            double[] shown = heatMap;
+            heatMap = heatMapBuffer;
+            heatMapBuffer = shown;
+            heatMapChanged = false;
+        }
+        double max = 0;
+        if (heatMap == null) {
+            return true;
+        }
+        if (heatMap.length < columns * rows) {
+            heatMap = null;
+            return true;
+        }
+        byte free = Game.FieldType.FREE.getCode();
+        for (int cell = 0; cell < columns * rows; cell++) {
+            if (fields[cell] == free) {
+                max = Math.max(max, heatMap[cell]);
             }
-            forcePaintAll = false;
+        }
+        heatMapLogMax = Math.log1p(max);
+        if (heatMapColors == null) {
+            heatMapColors = createHeatMapColors();
+        }
+        return true;
+    }
+
+    /**
+     * Creates the colors of the heat map, from the color of free fields to
+     * red.
+     */
+    private static Color[] createHeatMapColors() {
+        Color free = Game.FieldType.FREE.getColor();
+        Color[] colors = new Color[HEAT_MAP_LEVELS];
+        for (int i = 0; i < colors.length; i++) {
+            double ratio = i / (colors.length - 1.0);
+            colors[i] = new Color((int) Math.round(free.getRed() + (255 - free.getRed()) * ratio),
+                    (int) Math.round(free.getGreen() * (1 - ratio)),
+                    (int) Math.round(free.getBlue() * (1 - ratio)));
+        }
+        return colors;
+    }
+
+    /**
+     * Returns the background color of the given field, the heat map color for
+     * free fields if a heat map is shown.
+     */
+    private Color getFieldColor(Game.FieldType type, int column, int row) {
+        if (type == Game.FieldType.BLOCKED) {
+            return type.getColor();
+        }
+        if (type != Game.FieldType.FREE || heatMap == null || heatMapLogMax <= 0) {
+            return Game.FieldType.FREE.getColor();
+        }
+        double score = Math.max(0, heatMap[column * rows + row]);
+        int level = (int) (Math.log1p(score) / heatMapLogMax * (HEAT_MAP_LEVELS - 1));
+        return heatMapColors[Math.min(level, HEAT_MAP_LEVELS - 1)];
+    }
+
+    /**
+     * Paints the whole board on a new board image.
+     */
+    private void paintBoardImage(int boardWidth, int boardHeight) {
+        if (boardImage == null || boardImage.getWidth() != boardWidth || boardImage.getHeight() != boardHeight) {
+            boardImage = new BufferedImage(boardWidth, boardHeight, BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics g = boardImage.getGraphics();
+        g.setColor(Game.FieldType.FREE.getColor());
+        g.fillRect(0, 0, boardWidth, boardHeight);
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                paintField(g, i, j);
+            }
+        }
+        g.dispose();
+    }
+
+    /**
+     * Paints the field with its grid lines on the board image.
+     */
+    private void paintField(Graphics g, int column, int row) {
+        int x = getFieldX(column);
+        int y = getFieldY(row);
+        int width = getFieldX(column + 1) - x;
+        int height = getFieldY(row + 1) - y;
+        Game.FieldType type = Game.FieldType.fromCode(fields[column * rows + row]);
+        g.setColor(getFieldColor(type, column, row));
+        g.fillRect(x, y, width, height);
+        g.setColor(Color.darkGray);
+        g.drawRect(x, y, width, height);
+        if (type != Game.FieldType.BLOCKED && type != Game.FieldType.FREE) {
+            g.setColor(type.getColor());
+            g.fillOval(x + padding, y + padding, width - padding * 2, height - padding * 2);
         }
     }
 
+    private int getBoardWidth() {
+        return getWidth() - (shift * 2);
+    }
+
+    private int getBoardHeight() {
+        return getHeight() - (shift * 2) - yAddShift;
+    }
+
+    /**
+     *
+     * @return x coordinate of the given column on the board image
+     */
+    private int getFieldX(int column) {
+        return (int) Math.round(getBoardWidth() * 1.0 * column / columns);
+    }
+
+    /**
+     *
+     * @return y coordinate of the given row on the board image
+     */
+    private int getFieldY(int row) {
+        return (int) Math.round(getBoardHeight() * 1.0 * row / rows);
+    }
+
     /**
      * Prompts the given player to place a stone.
      *
      * @param player given player
-     * @return position of the stone placed by the given player
+     * @return position of the stone placed by the given player, null if the
+     * waiting thread has been interrupted
      */
     public Stone.Position promptPosition(AbstractPlayer player) {
         setTitle(player.toString().toUpperCase() + ": Please click to place a stone.");
-        while (currentStonePosition == null);
-        Stone.Position position = currentStonePosition;
-        currentStonePosition = null;
-        return position;
+        try {
+            return clickedPositions.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Sets the action run (on the event dispatch thread) when the board is
+     * clicked, instead of handing over the clicked position.
+     *
+     * @param action action or null to hand over the clicked positions again
+     */
+    public void setClickAction(Runnable action) {
+        this.clickAction = action;
     }
 
     /**
-     * Sets the type of the field specified by the given position.
+     * Sets the type of the field specified by the given position and repaints
+     * only this field.
      *
      * @param type new type of the field
      * @param position given position of the field
      */
     public void addField(Game.FieldType type, Stone.Position position) {
         fieldsToAddQueue.add(new FieldTypePositionContainer(type, position));
+        int x = getFieldX(position.getColumn());
+        int y = getFieldY(position.getRow());
+        repaint(x + shift, y + shift + yAddShift, getFieldX(position.getColumn() + 1) - x + 1,
+                getFieldY(position.getRow() + 1) - y + 1);
     }
 
     /**
@@ -184,7 +375,15 @@ public class Frame extends javax.swing.JFrame {
     }// </editor-fold>//GEN-END:initComponents
 
     private void formMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_formMouseClicked
-        currentStonePosition = pixelPointToStonePosition(evt.getPoint());
+        Runnable action = clickAction;
+        if (action != null) {
+            action.run();
+            return;
+        }
+        Stone.Position position = pixelPointToStonePosition(evt.getPoint());
+        if (position != null) {
+            clickedPositions.offer(position);
+        }
     }//GEN-LAST:event_formMouseClicked
 
     private void formComponentResized(java.awt.event.ComponentEvent evt) {//GEN-FIRST:event_formComponentResized
@@ -204,20 +403,27 @@ public class Frame extends javax.swing.JFrame {
      * @return the position of the stone
      */
     public Stone.Position pixelPointToStonePosition(Point point) {
-//        double fieldWidth = (getWidth() - (shift * 2)) / game.getNumberOfColumns();
-//        double fieldHeight = (getHeight() - (shift * 2) - yAddShift) / game.getNumberOfRows();
-//        Stone.Position pos = new Stone.Position((int) Math.round((point.getX() - shift) / fieldWidth),
-//                (int) Math.round((point.getY() - shift  - yAddShift) / fieldHeight));
-        for (int i = 0; i < guiAreas.length; i++) {
-            StonePositionGUIArea[] row = guiAreas[i];
-            for (int j = 0; j < row.length; j++) {
-                StonePositionGUIArea stonePositionGUIArea = row[j];
-                if (stonePositionGUIArea.isInGUIArea(point)) {
-                    return stonePositionGUIArea.getStonePosition();
-                }
-            }
+        int boardWidth = getBoardWidth();
+        int boardHeight = getBoardHeight();
+        int x = point.x - shift;
+        int y = point.y - shift - yAddShift;
+        if (boardWidth <= 0 || boardHeight <= 0 || x < 0 || y < 0 || x >= boardWidth || y >= boardHeight) {
+            return null;
+        }
+        int column = (int) ((long) x * columns / boardWidth);
+        int row = (int) ((long) y * rows / boardHeight);
+        //The field borders are rounded, the point may lie in a neighbouring field
+        if (column > 0 && x < getFieldX(column)) {
+            column--;
+        } else if (column < columns - 1 && x >= getFieldX(column + 1)) {
+            column++;
+        }
+        if (row > 0 && y < getFieldY(row)) {
+            row--;
+        } else if (row < rows - 1 && y >= getFieldY(row + 1)) {
+            row++;
         }
-        return null;
+        return new Stone.Position(column, row);
     }
 
     /**
@@ -227,7 +433,15 @@ public class Frame extends javax.swing.JFrame {
      */
     public void setGame(Game game) {
         this.game = game;
-        fields = game.getBoardFieldTypes();
+        fieldsToAddQueue.clear();
+        copyFields();
+        synchronized (heatMapLock) {
+            //Shows no heat map until the next update
+            if (heatMapBuffer != null) {
+                heatMapBuffer = null;
+                heatMapChanged = true;
+            }
+        }
         forcePaintAll = true;
         repaint();
     }
@@ -283,49 +497,4 @@ public class Frame extends javax.swing.JFrame {
             this.position = position;
         }
     }
-
-    private class StonePositionGUIArea extends Stone.Position {
-
-        private Rectangle guiArea;
-
-        /**
-         *
-         * @param column column number of the stone, 0 is the first column
-         * @param row row number of the stone, 0 is the first row
-         * @param guiArea area displaying this stone on the GUI
-         */
-        public StonePositionGUIArea(int column, int row, Rectangle guiArea) {
-            super(column, row);
-            this.guiArea = guiArea;
-        }
-
-        /**
-         *
-         * @return the inherited Stone.Position
-         */
-        public Stone.Position getStonePosition() {
-            return new Stone.Position(getColumn(), getRow());
-        }
-
-        /**
-         * Does the GUI Area of this point contains the given point?
-         *
-         * @param point given point
-         * @return Does the GUI Area of this point contains the given point?
-         */
-        public boolean isInGUIArea(Point point) {
-            return guiArea.contains(point);
-        }
-
-        /**
-         * Does the GUI Area of this point contains the given point?
-         *
-         * @param x x coordinate of the given point
-         * @param y y coordinate of the given point
-         * @return Does the GUI Area of this point contains the given point?
-         */
-        public boolean isInGUIArea(int x, int y) {
-            return guiArea.contains(x, y);
-        }
-    }
 }
@@ -1,5 +1,7 @@
 package jomoku.ui.gui;
 
+import java.awt.EventQueue;
+import java.lang.reflect.InvocationTargetException;
 import jomoku.Game;
 import jomoku.Player;
 import jomoku.Stone.Position;
@@ -50,9 +52,19 @@ public class GUI extends AbstractUI {
                 frame = new Frame(getGame());
                 frame.setVisible(true);
             }
-        }; 
-        frameRunnable.run();
-        while (frame == null);
+        };
+        if (EventQueue.isDispatchThread()) {
+            frameRunnable.run();
+        } else {
+            try {
+                EventQueue.invokeAndWait(frameRunnable);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while creating the frame.", ex);
+            } catch (InvocationTargetException ex) {
+                throw new IllegalStateException("The frame can't be created.", ex.getCause());
+            }
+        }
         /* Set the Nimbus look and feel */
         //<editor-fold defaultstate="collapsed" desc=" Look and feel setting code (optional) ">
         /* If Nimbus (introduced in Java SE 6) is not available, stay with the default look and feel.
@@ -96,7 +108,6 @@ public class GUI extends AbstractUI {
     @Override
     public void handlePlayerActionOccured(AbstractPlayer player, Position nextPosition) {
         frame.addField(player.isWhite() ? Game.FieldType.WHITE : Game.FieldType.BLACK, nextPosition);
-        frame.repaint();
         actions += 1;
     }
 
@@ -1,19 +1,46 @@
 package jomoku.ui.gui;
 
+import java.awt.EventQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import jomoku.Game;
 import jomoku.Player;
 import jomoku.Stone.Position;
 import jomoku.opponent.Opponent;
+import jomoku.opponent.OpponentEngine;
+import jomoku.opponent.Search;
 import jomoku.ui.AbstractUI;
 
 /**
  * Models an opponent GUI player.
- * 
+ *
+ * The engine thinks on a dedicated worker thread, so the frame keeps
+ * repainting meanwhile. While searching (see the searchDepth option) the
+ * frame title shows the search progress, a click on the board stops the
+ * search and the best move found so far is played. With the showHeatMap
+ * option the field scores of the engine are shown on the free fields.
+ *
  * @author Johannes Bechberger
  * @version 0.4
  */
 public class GUIOpponent extends Opponent {
 
+    /**
+     * Worker thread shared by the GUI opponents, only one of them thinks at a
+     * time.
+     */
+    private static final ExecutorService ENGINE_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Jomoku engine");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     /**
      * Contructs a GUI opponent.
      *
@@ -25,21 +52,79 @@ public class GUIOpponent extends Opponent {
         super(player, ui);
     }
 
+    /**
+     * Runs getNextPosition on the engine worker thread, the given executor
+     * isn't used.
+     */
+    @Override
+    public CompletableFuture<Position> requestNextPosition(Executor executor) {
+        return super.requestNextPosition(ENGINE_EXECUTOR);
+    }
+
     @Override
     public Position getNextPosition() {
-        String text = (isWhite() ? "White" : "Black") + " player: ";
+        String text = getPlayerName() + ": ";
         if (getUi().getUI().getOption("showAutoDebugMatrix") != null) {
             System.out.println(text);
         }
-        Position pos = super.getNextPosition();
+        Frame frame = ((GUI) getUi()).getFrame();
+        frame.setClickAction(new Runnable() {
+            @Override
+            public void run() {
+                stopThinking();
+            }
+        });
+        Position pos;
+        try {
+            pos = super.getNextPosition();
+        } finally {
+            frame.setClickAction(null);
+        }
         if (getUi().getUI().getOption("showAutoDebugMatrix") != null) {
             System.out.println("=> " + pos);
         } else {
-            ((GUI) getUi()).getFrame().setTitle(text + pos);
+            setTitle(text + pos);
         }
         return pos;
     }
 
+    @Override
+    protected void showScores(OpponentEngine engine) {
+        if (getUi().getUI().getOption("showHeatMap") != null) {
+            ((GUI) getUi()).getFrame().updateHeatMap(engine);
+        } else {
+            super.showScores(engine);
+        }
+    }
+
+    @Override
+    protected Search.ProgressListener getProgressListener() {
+        return new Search.ProgressListener() {
+            @Override
+            public void searchProgress(int depth, long nodes, long nodesPerSecond, Search.Candidate best) {
+                setTitle(getPlayerName() + " thinking: depth " + depth + ", " + nodesPerSecond / 1000
+                        + " kN/s, best " + best.getColumn() + "x" + best.getRow() + " (click to play it)");
+            }
+        };
+    }
+
+    private String getPlayerName() {
+        return (isWhite() ? "White" : "Black") + " player";
+    }
+
+    /**
+     * Sets the frame title on the event dispatch thread.
+     */
+    private void setTitle(final String title) {
+        final Frame frame = ((GUI) getUi()).getFrame();
+        EventQueue.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                frame.setTitle(title);
+            }
+        });
+    }
+
     @Override
     public void handleError(String msg) {
         System.err.println(msg);
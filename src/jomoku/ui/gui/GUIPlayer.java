@@ -2,8 +2,10 @@ package jomoku.ui.gui;
 
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import jomoku.Player;
 import jomoku.Stone;
 import jomoku.ui.AbstractPlayer;
@@ -20,6 +22,11 @@ public class GUIPlayer extends AbstractPlayer {
     private Frame frame;
     private Stone.Position lastPosition;
     private boolean init = true;
+    /**
+     * Future of the currently requested position, completed by the mouse
+     * listener.
+     */
+    private volatile CompletableFuture<Stone.Position> requestedPosition;
 
     /**
      * Constructs an GUI player.
@@ -31,8 +38,7 @@ public class GUIPlayer extends AbstractPlayer {
         super(player, ui);
     }
 
-    @Override
-    public Stone.Position getNextPosition() {
+    private void initMouseListener() {
         if (init) {
             frame = ((GUI) getUi()).getFrame();
             frame.addMouseListener(new MouseListener() {
@@ -40,6 +46,11 @@ public class GUIPlayer extends AbstractPlayer {
                 public void mouseClicked(MouseEvent e) {
                     lastPosition = frame.pixelPointToStonePosition(e.getPoint());
 //                    System.out.println(lastPosition);
+                    CompletableFuture<Stone.Position> future = requestedPosition;
+                    if (future != null && lastPosition != null
+                            && getUi().getGame().canStoneBePlacedAtPosition(lastPosition)) {
+                        future.complete(lastPosition.clone());
+                    }
                 }
 
                 @Override
@@ -60,20 +71,39 @@ public class GUIPlayer extends AbstractPlayer {
             });
             init = !init;
         }
-        lastPosition = null;
-        Stone.Position pos = null;
-        while (pos == null || !getUi().getGame().canStoneBePlacedAtPosition(pos)) {
-            frame.setTitle((isWhite() ? "White" : "Black") + " player: Please place a stone.");
-            while (lastPosition == null) {
-                try {
-                    Thread.sleep(10);
-                } catch (InterruptedException ex) {
-                    Logger.getLogger(GUIPlayer.class.getName()).log(Level.SEVERE, null, ex);
-                }
-            }
-            pos = lastPosition.clone();
+    }
+
+    /**
+     * Waits (without polling) until the user has clicked on a free field.
+     *
+     * @return position of the clicked field
+     */
+    @Override
+    public Stone.Position getNextPosition() {
+        try {
+            return requestNextPosition(null).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a click.");
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
         }
-        return pos;
+    }
+
+    /**
+     * Returns a future completed by the mouse listener with the next click on
+     * a free field.
+     *
+     * @param executor unused, no thread waits for the click
+     * @return future of the position
+     */
+    @Override
+    public CompletableFuture<Stone.Position> requestNextPosition(Executor executor) {
+        initMouseListener();
+        frame.setTitle((isWhite() ? "White" : "Black") + " player: Please place a stone.");
+        CompletableFuture<Stone.Position> future = new CompletableFuture<>();
+        requestedPosition = future;
+        return future;
     }
 
     @Override
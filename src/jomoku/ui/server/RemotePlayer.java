@@ -0,0 +1,97 @@
+package jomoku.ui.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import jomoku.Player;
+import jomoku.Stone;
+import jomoku.ui.AbstractPlayer;
+import jomoku.ui.AbstractUI;
+import jomoku.ui.ParseHelper;
+
+/**
+ * Player sending its moves over a server connection.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class RemotePlayer extends AbstractPlayer {
+
+    /**
+     * Constructs a remote player.
+     *
+     * @param player the Jomoku player this object builds the UI for
+     * @param ui UI this player belongs to, has to be a ServerUI
+     */
+    public RemotePlayer(Player player, AbstractUI ui) {
+        super(player, ui);
+    }
+
+    /**
+     * Reads lines from the connection until the client sends a valid
+     * position.
+     *
+     * @return the position of the next stone
+     * @throws UncheckedIOException the connection has been closed
+     * @throws ResignException the client has sent QUIT
+     */
+    @Override
+    public Stone.Position getNextPosition() {
+        ServerUI serverUI = (ServerUI) getUi();
+        while (true) {
+            String line;
+            try {
+                line = serverUI.readLine();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            if (line == null) {
+                throw new UncheckedIOException(new EOFException("Connection closed by the client."));
+            }
+            line = line.trim();
+            if (line.equals("QUIT")) {
+                throw new ResignException();
+            }
+            try {
+                Stone.Position pos = ParseHelper.parseStringAsPosition(line);
+                if (!getGame().canStoneBePlacedAtPosition(pos)) {
+                    handleError("You can't place a stone at this position.");
+                } else if (getGame().isForbiddenMove(getPlayer(), pos)) {
+                    handleError("This move is forbidden by the rules.");
+                } else {
+                    return pos;
+                }
+            } catch (NumberFormatException ex) {
+                handleError(ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void handleError(String msg) {
+        ((ServerUI) getUi()).send("ERROR " + msg);
+    }
+
+    @Override
+    public void otherPlayerAction(Stone.Position position) {
+    }
+
+    @Override
+    public void init() {
+    }
+
+    /**
+     * Thrown when the client resigns the current game by sending QUIT.
+     */
+    public static class ResignException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructs a resign exception.
+         */
+        public ResignException() {
+            super("The client has resigned.");
+        }
+    }
+}
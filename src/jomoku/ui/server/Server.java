@@ -0,0 +1,201 @@
+package jomoku.ui.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jomoku.Game;
+import jomoku.Player;
+import jomoku.ui.GameSession;
+import jomoku.ui.UI;
+
+/**
+ * Game server accepting TCP connections on localhost, each connection plays
+ * its own games against the engine. Every connection is served by its own
+ * (virtual if available) thread, which is blocked on the socket while the
+ * client thinks.
+ *
+ * The protocol is line based, positions have the format "[column]x[row]":
+ * <pre>
+ * S: HELLO Jomoku [columns]x[rows] [stones in a row to win] [FREESTYLE|EXACT|CARO|RENJU]
+ * C: NEW [BLACK|WHITE]      starts a game, the client plays the given color (default BLACK)
+ * S: GAME [columns]x[rows] [stones in a row to win] [color of the client]
+ * C: [column]x[row]         places a stone of the client
+ * S: OK [column]x[row]      or ERROR [message]
+ * S: MOVE [column]x[row]    stone placed by the engine
+ * S: WIN [BLACK|WHITE]      or DRAWN, ends the game
+ * C: QUIT                   resigns the current game and closes the connection
+ * S: BYE
+ * </pre> Black places the first stone.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class Server implements Runnable {
+
+    /**
+     * Default port the server listens on.
+     */
+    public static final int DEFAULT_PORT = 4242;
+    /**
+     * Runs the game logic on the thread of the connection.
+     */
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+    private static final int BACKLOG = 1024;
+    private static final int LINE_BUFFER_SIZE = 128;
+    private UI ui;
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a server and binds it to the given port on localhost.
+     *
+     * @param ui main UI, its options specify the games played
+     * @param port port the server listens on, 0 for any free port
+     * @throws IOException the port can't be bound
+     */
+    public Server(UI ui, int port) throws IOException {
+        this.ui = ui;
+        this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        this.executor = newConnectionExecutor();
+    }
+
+    /**
+     * Creates an executor running each connection on a new virtual thread if
+     * the JVM supports them (Java 21 and newer), on a pooled platform thread
+     * otherwise.
+     *
+     * @return executor for the connections
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     *
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     */
+    @Override
+    public void run() {
+        try {
+            while (!serverSocket.isClosed()) {
+                final Socket socket = serverSocket.accept();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            }
+        } catch (IOException ex) {
+            if (!serverSocket.isClosed()) {
+                Logger.getLogger(Server.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Stops accepting connections.
+     *
+     * @throws IOException the server socket can't be closed
+     */
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(),
+                        StandardCharsets.UTF_8), LINE_BUFFER_SIZE);
+                PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(),
+                        StandardCharsets.UTF_8), true)) {
+            Game defaults = ui.newGame();
+            out.println("HELLO Jomoku " + defaults.getNumberOfColumns() + "x" + defaults.getNumberOfRows()
+                    + " " + defaults.getNumberOfStonesInARowToWin() + " " + defaults.getWinRule());
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.equals("QUIT")) {
+                    break;
+                } else if (line.equals("NEW") || line.startsWith("NEW ")) {
+                    String color = line.length() > 3 ? line.substring(4).trim() : "BLACK";
+                    if (!color.equals("BLACK") && !color.equals("WHITE")) {
+                        out.println("ERROR Unknown color \"" + color + "\" - expected BLACK or WHITE.");
+                    } else if (!playGame(in, out, color.equals("WHITE"))) {
+                        break;
+                    }
+                } else if (!line.isEmpty()) {
+                    out.println("ERROR Unknown command - expected NEW or QUIT.");
+                }
+            }
+            out.println("BYE");
+        } catch (IOException | UncheckedIOException ex) {
+            //Connection closed by the client
+        }
+    }
+
+    /**
+     * Plays a game against the engine on the current thread.
+     *
+     * @param in input of the connection
+     * @param out output of the connection
+     * @param clientIsWhite Does the client play the white stones?
+     * @return Does the connection stay open?
+     */
+    private boolean playGame(BufferedReader in, PrintWriter out, boolean clientIsWhite) {
+        Game game = ui.newGame();
+        ServerUI serverUI = new ServerUI(ui, game, in, out);
+        serverUI.init(!clientIsWhite, clientIsWhite);
+        out.println("GAME " + game.getNumberOfColumns() + "x" + game.getNumberOfRows() + " "
+                + game.getNumberOfStonesInARowToWin() + " " + (clientIsWhite ? "WHITE" : "BLACK"));
+        try {
+            Player winner = new GameSession(serverUI, DIRECT_EXECUTOR).start(false).join();
+            if (winner != null) {
+                serverUI.handleWin(winner.isWhite() ? serverUI.getWhitePlayer() : serverUI.getBlackPlayer());
+            } else {
+                serverUI.handleDrawn();
+            }
+            return true;
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw (UncheckedIOException) ex.getCause();
+            }
+            if (ex.getCause() instanceof RemotePlayer.ResignException) {
+                return false;
+            }
+            throw ex;
+        }
+    }
+}
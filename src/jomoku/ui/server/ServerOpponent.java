@@ -0,0 +1,30 @@
+package jomoku.ui.server;
+
+import jomoku.Player;
+import jomoku.opponent.Opponent;
+import jomoku.ui.AbstractUI;
+
+/**
+ * Models the engine playing against the client of a server connection.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class ServerOpponent extends Opponent {
+
+    /**
+     * Contructs a server opponent.
+     *
+     * @param player the Jomoku player this opponent builds the UI for and plays
+     * with
+     * @param ui UI this player belongs to
+     */
+    public ServerOpponent(Player player, AbstractUI ui) {
+        super(player, ui);
+    }
+
+    @Override
+    public void handleError(String msg) {
+        System.err.println(msg);
+    }
+}
@@ -0,0 +1,88 @@
+package jomoku.ui.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import jomoku.Game;
+import jomoku.Player;
+import jomoku.Stone.Position;
+import jomoku.opponent.Opponent;
+import jomoku.ui.AbstractPlayer;
+import jomoku.ui.AbstractUI;
+import jomoku.ui.UI;
+
+/**
+ * UI of one game played over a server connection.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class ServerUI extends AbstractUI {
+
+    private BufferedReader in;
+    private PrintWriter out;
+
+    /**
+     *
+     * @param ui main UI this UI belongs to
+     * @param game game this object is the UI for
+     * @param in input of the connection
+     * @param out output of the connection
+     */
+    public ServerUI(UI ui, Game game, BufferedReader in, PrintWriter out) {
+        super(ui, game);
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public void init(boolean whiteAuto, boolean blackAuto) {
+        if (whiteAuto) {
+            setWhitePlayer(new ServerOpponent(new Player(getGame(), Player.PlayerType.WHITE), this));
+        } else {
+            setWhitePlayer(new RemotePlayer(new Player(getGame(), Player.PlayerType.WHITE), this));
+        }
+        if (blackAuto) {
+            setBlackPlayer(new ServerOpponent(new Player(getGame(), Player.PlayerType.BLACK), this));
+        } else {
+            setBlackPlayer(new RemotePlayer(new Player(getGame(), Player.PlayerType.BLACK), this));
+        }
+        init();
+    }
+
+    /**
+     * Sends the given line to the client.
+     *
+     * @param line given line
+     */
+    public void send(String line) {
+        out.println(line);
+    }
+
+    /**
+     * Reads the next line sent by the client.
+     *
+     * @return the line or null if the connection has been closed
+     * @throws IOException the connection failed
+     */
+    public String readLine() throws IOException {
+        return in.readLine();
+    }
+
+    @Override
+    public void handlePlayerActionOccured(AbstractPlayer player, Position nextPosition) {
+        send((player instanceof Opponent ? "MOVE " : "OK ") + nextPosition);
+    }
+
+    @Override
+    public boolean handleWin(AbstractPlayer winner) {
+        send("WIN " + (winner.isWhite() ? "WHITE" : "BLACK"));
+        return false;
+    }
+
+    @Override
+    public boolean handleDrawn() {
+        send("DRAWN");
+        return false;
+    }
+}
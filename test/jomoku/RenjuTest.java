@@ -0,0 +1,121 @@
+package jomoku;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the forbidden move detection of Renju on a 15x15 board, the examined
+ * move is always the center field 7x7.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class RenjuTest {
+
+    private static final int SIZE = 15;
+    private static final int CENTER = 7;
+    private static final int STONES_TO_WIN = 5;
+
+    /**
+     * Creates the field type codes of a board with the given stones.
+     *
+     * @param black column and row pairs of the black stones
+     * @param white column and row pairs of the white stones
+     */
+    private static byte[] board(int[][] black, int[][] white) {
+        byte[] cells = new byte[SIZE * SIZE];
+        for (int[] stone : black) {
+            cells[stone[0] * SIZE + stone[1]] = Game.FieldType.BLACK.getCode();
+        }
+        for (int[] stone : white) {
+            cells[stone[0] * SIZE + stone[1]] = Game.FieldType.WHITE.getCode();
+        }
+        return cells;
+    }
+
+    private static boolean isCenterForbidden(int[][] black, int[][] white) {
+        return Renju.isForbidden(board(black, white), SIZE, SIZE, STONES_TO_WIN, CENTER, CENTER);
+    }
+
+    @Test
+    public void testEmptyBoardAllowed() {
+        assertFalse(isCenterForbidden(new int[0][], new int[0][]));
+    }
+
+    @Test
+    public void testSingleThreeAllowed() {
+        assertFalse(isCenterForbidden(new int[][]{{5, 7}, {6, 7}}, new int[0][]));
+    }
+
+    @Test
+    public void testDoubleThreeForbidden() {
+        assertTrue(isCenterForbidden(new int[][]{{5, 7}, {6, 7}, {7, 5}, {7, 6}}, new int[0][]));
+    }
+
+    @Test
+    public void testSplitDoubleThreeForbidden() {
+        //X_X with the move in the gap horizontally, X_X diagonally
+        assertTrue(isCenterForbidden(new int[][]{{6, 7}, {8, 7}, {5, 5}, {8, 8}}, new int[0][]));
+    }
+
+    @Test
+    public void testClosedThreeDoesntCount() {
+        //O X X [move] O isn't a three, only the vertical three is
+        assertFalse(isCenterForbidden(new int[][]{{5, 7}, {6, 7}, {7, 5}, {7, 6}},
+                new int[][]{{4, 7}, {8, 7}}));
+    }
+
+    @Test
+    public void testDoubleFourForbidden() {
+        assertTrue(isCenterForbidden(new int[][]{{4, 7}, {5, 7}, {6, 7}, {7, 4}, {7, 5}, {7, 6}},
+                new int[0][]));
+    }
+
+    @Test
+    public void testDoubleFourInOneLineForbidden() {
+        //XXX_[move]_XXX: either gap completes a five
+        assertTrue(isCenterForbidden(new int[][]{{3, 7}, {4, 7}, {5, 7}, {9, 7}, {10, 7}, {11, 7}},
+                new int[0][]));
+    }
+
+    @Test
+    public void testFourAndThreeAllowed() {
+        assertFalse(isCenterForbidden(new int[][]{{4, 7}, {5, 7}, {6, 7}, {7, 5}, {7, 6}}, new int[0][]));
+    }
+
+    @Test
+    public void testOverlineForbidden() {
+        assertTrue(isCenterForbidden(new int[][]{{3, 7}, {4, 7}, {5, 7}, {6, 7}, {8, 7}}, new int[0][]));
+    }
+
+    @Test
+    public void testExactFiveWithDoubleFourAllowed() {
+        assertFalse(isCenterForbidden(new int[][]{{3, 7}, {4, 7}, {5, 7}, {6, 7}, {7, 4}, {7, 5}, {7, 6},
+            {4, 4}, {5, 5}, {6, 6}}, new int[0][]));
+    }
+
+    @Test
+    public void testExactFiveWithOverlineAllowed() {
+        assertFalse(isCenterForbidden(new int[][]{{3, 7}, {4, 7}, {5, 7}, {6, 7}, {7, 2}, {7, 3}, {7, 4},
+            {7, 5}, {7, 6}}, new int[0][]));
+    }
+
+    @Test
+    public void testOnlyBlackIsRestricted() {
+        Game game = new Game(SIZE, SIZE, STONES_TO_WIN, WinRule.RENJU);
+        int[][] stones = {{5, 7}, {6, 7}, {7, 5}, {7, 6}};
+        int[][] whiteStones = {{0, 0}, {0, 2}, {0, 4}, {0, 6}};
+        for (int i = 0; i < stones.length; i++) {
+            assertTrue(game.placeStone(game.getBlackPlayer(), new Stone.Position(stones[i][0], stones[i][1])));
+            assertTrue(game.placeStone(game.getWhitePlayer(),
+                    new Stone.Position(whiteStones[i][0], whiteStones[i][1])));
+        }
+        Stone.Position center = new Stone.Position(CENTER, CENTER);
+        assertTrue(game.isForbiddenMove(game.getBlackPlayer(), center));
+        assertFalse(game.placeStone(game.getBlackPlayer(), center));
+        assertFalse(game.isForbiddenMove(game.getWhitePlayer(), center));
+        assertTrue(game.placeStone(game.getWhitePlayer(), center));
+    }
+}
@@ -0,0 +1,162 @@
+package jomoku.opponent;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests that the incrementally updated hidden values of NetworkAccumulator
+ * equal the ones of a freshly built accumulator and of a direct evaluation of
+ * all windows.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class NetworkAccumulatorTest {
+
+    private static final int COLUMNS = 7;
+    private static final int ROWS = 6;
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+    private static final int[] TYPES = {OpponentEngine.FREE_FIELD, OpponentEngine.OWN_FIELD,
+        OpponentEngine.OPPONENT_FIELD, OpponentEngine.JOKER_FIELD, OpponentEngine.BLOCKED_FIELD};
+
+    /**
+     * Creates a network with random weights, big enough that some hidden
+     * values are clipped.
+     */
+    private static Network createRandomNetwork(int windowLength, int hiddenSize, long seed) {
+        Random random = new Random(seed);
+        short[] featureWeights = new short[(1 << (2 * windowLength)) * hiddenSize];
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) (random.nextInt(41) - 20);
+        }
+        short[] hiddenBias = new short[hiddenSize];
+        for (int i = 0; i < hiddenSize; i++) {
+            hiddenBias[i] = (short) (random.nextInt(201) - 100);
+        }
+        short[] outputWeights = new short[2 * hiddenSize];
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (short) (random.nextInt(201) - 100);
+        }
+        return new Network(windowLength, hiddenSize, featureWeights, hiddenBias, outputWeights, 7, 3, "random");
+    }
+
+    /**
+     * Builds an accumulator of the given field types from an empty board.
+     */
+    private static NetworkAccumulator build(Network network, int[] types) {
+        NetworkAccumulator accumulator = new NetworkAccumulator(network, COLUMNS, ROWS);
+        for (int cell = 0; cell < types.length; cell++) {
+            accumulator.setFieldType(cell / ROWS, cell % ROWS, types[cell]);
+        }
+        return accumulator;
+    }
+
+    private static int toState(int type, boolean own) {
+        switch (type) {
+            case OpponentEngine.OWN_FIELD:
+                return own ? Network.OWN_STATE : Network.OPPONENT_STATE;
+            case OpponentEngine.OPPONENT_FIELD:
+                return own ? Network.OPPONENT_STATE : Network.OWN_STATE;
+            case OpponentEngine.JOKER_FIELD:
+                return Network.JOKER_STATE;
+            default:
+                return Network.FREE_STATE;
+        }
+    }
+
+    /**
+     * Evaluates the given field types by summing the features of all windows
+     * on the board without blocked fields.
+     */
+    private static double evaluateDirectly(Network network, int[] types, boolean own) {
+        int hiddenSize = network.getHiddenSize();
+        int windowLength = network.getWindowLength();
+        long[][] hidden = new long[2][hiddenSize];
+        for (int side = 0; side < 2; side++) {
+            for (int h = 0; h < hiddenSize; h++) {
+                hidden[side][h] = network.getHiddenBias()[h];
+            }
+            for (int[] direction : DIRECTIONS) {
+                for (int column = 0; column < COLUMNS; column++) {
+                    for (int row = 0; row < ROWS; row++) {
+                        int pattern = 0;
+                        boolean valid = true;
+                        for (int i = windowLength - 1; i >= 0 && valid; i--) {
+                            int c = column + i * direction[0];
+                            int r = row + i * direction[1];
+                            valid = c >= 0 && c < COLUMNS && r >= 0 && r < ROWS
+                                    && types[c * ROWS + r] != OpponentEngine.BLOCKED_FIELD;
+                            if (valid) {
+                                pattern = pattern * 4 + toState(types[c * ROWS + r], (side == 0) == own);
+                            }
+                        }
+                        for (int h = 0; valid && h < hiddenSize; h++) {
+                            hidden[side][h] += network.getFeatureWeights()[pattern * hiddenSize + h];
+                        }
+                    }
+                }
+            }
+        }
+        long sum = network.getOutputBias();
+        for (int h = 0; h < hiddenSize; h++) {
+            sum += Math.max(0, Math.min(Network.ACTIVATION_LIMIT, hidden[0][h])) * network.getOutputWeights()[h]
+                    + Math.max(0, Math.min(Network.ACTIVATION_LIMIT, hidden[1][h]))
+                    * network.getOutputWeights()[hiddenSize + h];
+        }
+        return (double) sum / network.getOutputDivisor();
+    }
+
+    private static void assertSameEvaluation(Network network, NetworkAccumulator accumulator, int[] types) {
+        NetworkAccumulator fresh = build(network, types);
+        for (boolean own : new boolean[]{true, false}) {
+            double expected = evaluateDirectly(network, types, own);
+            assertEquals(expected, fresh.evaluate(own), 0);
+            assertEquals(expected, accumulator.evaluate(own), 0);
+        }
+    }
+
+    @Test
+    public void testEmptyBoard() {
+        Network network = createRandomNetwork(3, 4, 1);
+        assertSameEvaluation(network, new NetworkAccumulator(network, COLUMNS, ROWS), new int[COLUMNS * ROWS]);
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        for (int windowLength = 1; windowLength <= 4; windowLength++) {
+            Network network = createRandomNetwork(windowLength, 5, windowLength);
+            Random random = new Random(windowLength);
+            int[] types = new int[COLUMNS * ROWS];
+            NetworkAccumulator accumulator = new NetworkAccumulator(network, COLUMNS, ROWS);
+            for (int step = 0; step < 400; step++) {
+                int cell = random.nextInt(types.length);
+                //Every third change frees a field, so stones and blocked fields are removed again
+                types[cell] = step % 3 == 2 ? OpponentEngine.FREE_FIELD : TYPES[random.nextInt(TYPES.length)];
+                accumulator.setFieldType(cell / ROWS, cell % ROWS, types[cell]);
+                assertSameEvaluation(network, accumulator, types);
+            }
+        }
+    }
+
+    @Test
+    public void testWindowCounterRoundTrip() throws IOException {
+        Network network = Network.createWindowCounter(4);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        network.write(out);
+        Network read = Network.read(new ByteArrayInputStream(out.toByteArray()), "test");
+        int[] types = new int[COLUMNS * ROWS];
+        types[0] = OpponentEngine.OWN_FIELD;
+        types[ROWS + 1] = OpponentEngine.OWN_FIELD;
+        types[3 * ROWS + 2] = OpponentEngine.OPPONENT_FIELD;
+        types[4 * ROWS + 4] = OpponentEngine.BLOCKED_FIELD;
+        for (boolean own : new boolean[]{true, false}) {
+            assertEquals(evaluateDirectly(network, types, own), build(read, types).evaluate(own), 0);
+        }
+        assertEquals(evaluateDirectly(network, types, true), -evaluateDirectly(network, types, false), 0);
+    }
+}
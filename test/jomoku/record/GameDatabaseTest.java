@@ -0,0 +1,177 @@
+package jomoku.record;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests GameDatabase by comparing its answers with the ones found by
+ * examining all added records, after the index has grown, after reopening a
+ * closed database and after rebuilding the index of a database that hasn't
+ * been closed.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class GameDatabaseTest {
+
+    private static final int SIZE = 15;
+    /**
+     * Number of games, their positions fill more than half of the initial
+     * index capacity.
+     */
+    private static final int NUMBER_OF_GAMES = 900;
+    /**
+     * The first moves are chosen from a few fields, so the early positions
+     * are shared by many games.
+     */
+    private static final int OPENING_MOVES = 3;
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<GameRecord> createRecords() {
+        Random random = new Random(42);
+        GameRecord.Result[] results = GameRecord.Result.values();
+        List<GameRecord> records = new ArrayList<>();
+        for (int game = 0; game < NUMBER_OF_GAMES; game++) {
+            List<Integer> cells = new ArrayList<>();
+            for (int cell = 0; cell < SIZE * SIZE; cell++) {
+                cells.add(cell);
+            }
+            int[] moves = new int[OPENING_MOVES + 20 + random.nextInt(40)];
+            for (int i = 0; i < moves.length; i++) {
+                int cell = i < OPENING_MOVES ? 7 * SIZE + 6 + i * 15 + random.nextInt(2)
+                        : cells.get(random.nextInt(cells.size()));
+                cells.remove(Integer.valueOf(cell));
+                moves[i] = GameRecord.encodeMove(cell, i % 2 == 1);
+            }
+            records.add(new GameRecord(SIZE, SIZE, 5, new int[0], new int[0], moves,
+                    results[random.nextInt(results.length)]));
+        }
+        return records;
+    }
+
+    /**
+     * Examines all records for the occurrences of every position, the oldest
+     * first.
+     */
+    private static Map<Long, List<GameDatabase.Occurrence>> findAll(List<GameRecord> records, long[] offsets) {
+        Map<Long, List<GameDatabase.Occurrence>> occurrences = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            long[] keys = GameDatabase.getPositionKeys(records.get(i));
+            for (int ply = 0; ply < keys.length; ply++) {
+                List<GameDatabase.Occurrence> list = occurrences.get(keys[ply]);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    occurrences.put(keys[ply], list);
+                }
+                list.add(new GameDatabase.Occurrence(offsets[i], ply));
+            }
+        }
+        return occurrences;
+    }
+
+    private static void assertMatchesRecords(GameDatabase database, List<GameRecord> records, long[] offsets)
+            throws IOException {
+        Map<Long, List<GameDatabase.Occurrence>> occurrences = findAll(records, offsets);
+        Map<Long, GameRecord> recordsByOffset = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            recordsByOffset.put(offsets[i], records.get(i));
+        }
+        assertEquals(records.size(), database.getNumberOfGames());
+        assertEquals(occurrences.size(), database.getNumberOfPositions());
+        for (Map.Entry<Long, List<GameDatabase.Occurrence>> entry : occurrences.entrySet()) {
+            List<GameDatabase.Occurrence> expected = new ArrayList<>(entry.getValue());
+            Collections.reverse(expected);
+            int maxGames = expected.size() > 4 ? expected.size() / 2 : expected.size();
+            expected = expected.subList(0, maxGames);
+            List<GameDatabase.Occurrence> found = database.find(entry.getKey(), maxGames);
+            assertEquals(expected.size(), found.size());
+            Map<String, int[]> expectedMoves = new HashMap<>();
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getGameOffset(), found.get(i).getGameOffset());
+                assertEquals(expected.get(i).getPly(), found.get(i).getPly());
+                GameRecord record = recordsByOffset.get(expected.get(i).getGameOffset());
+                int ply = expected.get(i).getPly();
+                if (ply < record.getNumberOfMoves()) {
+                    String move = record.getMovePosition(ply) + (record.isWhiteMove(ply) ? " white" : " black");
+                    if (!expectedMoves.containsKey(move)) {
+                        expectedMoves.put(move, new int[GameRecord.Result.values().length]);
+                    }
+                    expectedMoves.get(move)[record.getResult().ordinal()]++;
+                }
+            }
+            List<GameDatabase.MoveStatistics> nextMoves = database.getNextMoves(entry.getKey(), maxGames);
+            assertEquals(expectedMoves.size(), nextMoves.size());
+            for (int i = 0; i < nextMoves.size(); i++) {
+                GameDatabase.MoveStatistics statistics = nextMoves.get(i);
+                int[] results = expectedMoves.get(statistics.getPosition()
+                        + (statistics.isWhite() ? " white" : " black"));
+                int games = 0;
+                for (GameRecord.Result result : GameRecord.Result.values()) {
+                    assertEquals(results[result.ordinal()], statistics.getNumberOfGames(result));
+                    games += results[result.ordinal()];
+                }
+                assertEquals(games, statistics.getNumberOfGames());
+                assertTrue(i == 0 || nextMoves.get(i - 1).getNumberOfGames() >= games);
+            }
+        }
+        for (int i = 0; i < records.size(); i += 37) {
+            assertEquals(records.get(i).getNumberOfMoves(), database.getRecord(offsets[i]).getNumberOfMoves());
+        }
+    }
+
+    private static long[] addAll(GameDatabase database, List<GameRecord> records) throws IOException {
+        long[] offsets = new long[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            offsets[i] = database.add(records.get(i));
+        }
+        return offsets;
+    }
+
+    @Test
+    public void testGrowAndReopen() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        List<GameRecord> records = createRecords();
+        long[] offsets;
+        try (GameDatabase database = new GameDatabase(directory)) {
+            offsets = addAll(database, records);
+            //More than half of the initial capacity of 2^16 slots is used, so the index has grown
+            assertTrue(database.getNumberOfPositions() > 1 << 15);
+            assertMatchesRecords(database, records, offsets);
+        }
+        try (GameDatabase database = new GameDatabase(directory)) {
+            assertMatchesRecords(database, records, offsets);
+        }
+    }
+
+    @Test
+    public void testRebuildIndexOfUnclosedDatabase() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        List<GameRecord> records = createRecords();
+        List<GameRecord> firstRecords = records.subList(0, records.size() / 2);
+        GameDatabase unclosed = new GameDatabase(directory);
+        long[] firstOffsets = addAll(unclosed, firstRecords);
+        //The games are written, but the index isn't marked as matching them
+        unclosed.flush();
+        try (GameDatabase database = new GameDatabase(directory)) {
+            assertMatchesRecords(database, firstRecords, firstOffsets);
+            long[] secondOffsets = addAll(database, records.subList(firstRecords.size(), records.size()));
+            long[] offsets = new long[records.size()];
+            System.arraycopy(firstOffsets, 0, offsets, 0, firstOffsets.length);
+            System.arraycopy(secondOffsets, 0, offsets, firstOffsets.length, secondOffsets.length);
+            assertMatchesRecords(database, records, offsets);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package jomoku.record;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import jomoku.Game;
+import jomoku.PositionSnapshot;
+import jomoku.Stone;
+import jomoku.WinRule;
+import org.junit.Test;
+
+/**
+ * Tests writing game records with GameRecordWriter and reading them again with
+ * GameRecordReader.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class GameRecordTest {
+
+    private static GameRecord createRecord() {
+        int[] moves = new int[9];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = GameRecord.encodeMove((3 + i / 2) * 15 + 2 + i % 2, i % 2 == 1);
+        }
+        return new GameRecord(15, 15, 5, new int[]{0, 224}, new int[]{112}, moves,
+                GameRecord.Result.BLACK_WINS);
+    }
+
+    /**
+     * Creates a record of a big board whose values need varints of several
+     * bytes.
+     */
+    private static GameRecord createBigRecord() {
+        int[] moves = new int[500];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = GameRecord.encodeMove(i * 37, i % 2 == 1);
+        }
+        return new GameRecord(200, 150, 7, new int[]{29999}, new int[0], moves, GameRecord.Result.DRAWN);
+    }
+
+    private static byte[] write(int bufferSize, GameRecord... records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GameRecordWriter writer = new GameRecordWriter(out, bufferSize)) {
+            for (GameRecord record : records) {
+                writer.write(record);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertRecordEquals(GameRecord expected, GameRecord actual) {
+        assertEquals(expected.getNumberOfColumns(), actual.getNumberOfColumns());
+        assertEquals(expected.getNumberOfRows(), actual.getNumberOfRows());
+        assertEquals(expected.getNumberOfStonesInARowToWin(), actual.getNumberOfStonesInARowToWin());
+        assertEquals(expected.getWinRule(), actual.getWinRule());
+        assertArrayEquals(expected.getBlockedCells(), actual.getBlockedCells());
+        assertArrayEquals(expected.getJokerCells(), actual.getJokerCells());
+        assertArrayEquals(expected.getMoves(), actual.getMoves());
+        assertEquals(expected.getResult(), actual.getResult());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        GameRecord record = createRecord();
+        GameRecord bigRecord = createBigRecord();
+        byte[] data = write(GameRecordWriter.DEFAULT_BUFFER_SIZE, record, bigRecord, record);
+        try (GameRecordReader reader = new GameRecordReader(new ByteArrayInputStream(data))) {
+            assertRecordEquals(record, reader.read());
+            assertRecordEquals(bigRecord, reader.read());
+            assertRecordEquals(record, reader.read());
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testRoundTripWithSmallBuffers() throws IOException {
+        GameRecord record = createRecord();
+        GameRecord bigRecord = createBigRecord();
+        byte[] data = write(8, bigRecord, record);
+        assertArrayEquals(write(GameRecordWriter.DEFAULT_BUFFER_SIZE, bigRecord, record), data);
+        try (GameRecordReader reader = new GameRecordReader(new ByteArrayInputStream(data), 8)) {
+            assertRecordEquals(bigRecord, reader.read());
+            assertRecordEquals(record, reader.read());
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testWrittenLength() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int length;
+        try (GameRecordWriter writer = new GameRecordWriter(out)) {
+            length = writer.write(createBigRecord());
+            length += writer.write(createRecord());
+        }
+        assertEquals(out.size(), length);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedRecord() throws IOException {
+        byte[] data = write(GameRecordWriter.DEFAULT_BUFFER_SIZE, createRecord());
+        try (GameRecordReader reader = new GameRecordReader(
+                new ByteArrayInputStream(Arrays.copyOf(data, data.length - 1)))) {
+            reader.read();
+        }
+    }
+
+    /**
+     * Creates a record of a Renju game whose black stones form a double three
+     * at 7x7, which has been played first.
+     */
+    private static GameRecord createRenjuRecord() {
+        int[][] stones = {{7, 7}, {0, 0}, {5, 7}, {0, 2}, {7, 5}, {0, 4}, {6, 7}, {0, 6}, {7, 6}};
+        int[] moves = new int[stones.length];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = GameRecord.encodeMove(stones[i][0] * 15 + stones[i][1], i % 2 == 1);
+        }
+        return new GameRecord(15, 15, 5, WinRule.RENJU, new int[0], new int[0], moves,
+                GameRecord.Result.UNFINISHED);
+    }
+
+    @Test
+    public void testWinRuleRoundTrip() throws IOException {
+        for (WinRule rule : WinRule.values()) {
+            GameRecord record = new GameRecord(9, 9, 4, rule, new int[]{1}, new int[0], new int[]{8, 11},
+                    GameRecord.Result.UNFINISHED);
+            byte[] data = write(GameRecordWriter.DEFAULT_BUFFER_SIZE, record);
+            try (GameRecordReader reader = new GameRecordReader(new ByteArrayInputStream(data))) {
+                GameRecord read = reader.read();
+                assertRecordEquals(record, read);
+                assertEquals(rule, read.createGame().getWinRule());
+            }
+        }
+    }
+
+    @Test
+    public void testFormatVersion1IsFreestyle() throws IOException {
+        //length, version 1, 15x15, 5 in a row, black wins, no blocked and joker cells, one move
+        byte[] data = {9, 1, 15, 15, 5, 1, 0, 0, 1, 2};
+        try (GameRecordReader reader = new GameRecordReader(new ByteArrayInputStream(data))) {
+            GameRecord record = reader.read();
+            assertEquals(WinRule.FREESTYLE, record.getWinRule());
+            assertEquals(GameRecord.Result.BLACK_WINS, record.getResult());
+            assertArrayEquals(new int[]{2}, record.getMoves());
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testPositionKeysDependOnTheRule() {
+        GameRecord renju = createRenjuRecord();
+        GameRecord freestyle = new GameRecord(15, 15, 5, renju.getBlockedCells(), renju.getJokerCells(),
+                renju.getMoves(), renju.getResult());
+        long[] renjuKeys = GameDatabase.getPositionKeys(renju);
+        long[] freestyleKeys = GameDatabase.getPositionKeys(freestyle);
+        Game game = new GameReplay(renju).seek(renju.getNumberOfMoves());
+        assertEquals(renjuKeys[renjuKeys.length - 1], GameDatabase.getPositionKey(game));
+        assertEquals(renjuKeys[renjuKeys.length - 1], PositionSnapshot.of(game).getHash());
+        for (int i = 0; i < renjuKeys.length; i++) {
+            assertTrue(renjuKeys[i] != freestyleKeys[i]);
+        }
+    }
+
+    @Test
+    public void testCheckpointKeepsStonesForbiddenInColumnOrder() {
+        GameRecord record = createRenjuRecord();
+        Game game = new GameReplay(record, 1).seek(record.getNumberOfMoves());
+        assertEquals(WinRule.RENJU, game.getWinRule());
+        assertEquals(Game.FieldType.BLACK, game.getFieldType(new Stone.Position(7, 7)));
+        assertEquals(15 * 15 - record.getNumberOfMoves(), game.getFreeFields());
+        assertNull(game.winner());
+    }
+
+    @Test
+    public void testMoves() {
+        GameRecord record = createRecord();
+        assertEquals(9, record.getNumberOfMoves());
+        assertEquals(new Stone.Position(3, 2), record.getMovePosition(0));
+        assertFalse(record.isWhiteMove(0));
+        assertEquals(new Stone.Position(3, 3), record.getMovePosition(1));
+        assertTrue(record.isWhiteMove(1));
+        assertEquals(new Stone.Position(7, 2), record.getMovePosition(8));
+    }
+
+    @Test
+    public void testRecorderContinuesReplay() {
+        GameRecord record = createRecord();
+        Game game = new GameReplay(record).seek(4);
+        GameRecorder recorder = new GameRecorder(game, record, 4);
+        for (int i = 4; i < record.getNumberOfMoves(); i++) {
+            assertTrue(game.placeStone(record.isWhiteMove(i) ? game.getWhitePlayer() : game.getBlackPlayer(),
+                    record.getMovePosition(i)));
+        }
+        recorder.stop();
+        assertRecordEquals(record, recorder.toRecord());
+    }
+
+    @Test
+    public void testCreateGame() {
+        Game game = createRecord().createGame();
+        assertEquals(15, game.getNumberOfColumns());
+        assertEquals(15, game.getNumberOfRows());
+        assertEquals(Game.FieldType.BLOCKED, game.getFieldType(new Stone.Position(0, 0)));
+        assertEquals(Game.FieldType.BLOCKED, game.getFieldType(new Stone.Position(14, 14)));
+        assertEquals(Game.FieldType.JOKER, game.getFieldType(new Stone.Position(7, 7)));
+        assertEquals(Game.FieldType.FREE, game.getFieldType(new Stone.Position(3, 2)));
+    }
+}
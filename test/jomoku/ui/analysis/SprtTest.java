@@ -0,0 +1,108 @@
+package jomoku.ui.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the bounds and decisions of Sprt on known results.
+ *
+ * @author Johannes Bechberger
+ * @version 1.0
+ */
+public class SprtTest {
+
+    private static final double ALPHA = 0.05;
+    private static final double BETA = 0.05;
+    private static final double EPSILON = 1e-9;
+
+    private static Sprt createSprt() {
+        return new Sprt(0, 5, ALPHA, BETA);
+    }
+
+    /**
+     * Adds the given number of pairs with the given scores.
+     */
+    private static void addPairs(Sprt sprt, int pairs, double firstScore, double secondScore) {
+        for (int i = 0; i < pairs; i++) {
+            sprt.addPair(firstScore, secondScore);
+        }
+    }
+
+    @Test
+    public void testBounds() {
+        Sprt sprt = createSprt();
+        assertEquals(-2.944438979, sprt.getLowerBound(), 1e-6);
+        assertEquals(2.944438979, sprt.getUpperBound(), 1e-6);
+        Sprt asymmetric = new Sprt(0, 5, 0.01, 0.1);
+        assertEquals(Math.log(0.1 / 0.99), asymmetric.getLowerBound(), EPSILON);
+        assertEquals(Math.log(0.9 / 0.01), asymmetric.getUpperBound(), EPSILON);
+    }
+
+    @Test
+    public void testNoPairs() {
+        Sprt sprt = createSprt();
+        assertEquals(0, sprt.getLlr(), EPSILON);
+        assertEquals(0.5, sprt.getMeanScore(), EPSILON);
+        assertEquals(Sprt.Decision.CONTINUE, sprt.getDecision());
+    }
+
+    @Test
+    public void testOnlyWinsAcceptH1() {
+        Sprt sprt = createSprt();
+        addPairs(sprt, 20, 1, 1);
+        assertEquals(1, sprt.getMeanScore(), EPSILON);
+        assertTrue("llr " + sprt.getLlr(), sprt.getLlr() >= sprt.getUpperBound());
+        assertEquals(Sprt.Decision.H1, sprt.getDecision());
+        assertTrue(sprt.toString().contains("W/D/L 40/0/0"));
+    }
+
+    @Test
+    public void testOnlyLossesAcceptH0() {
+        Sprt sprt = createSprt();
+        addPairs(sprt, 20, 0, 0);
+        assertEquals(Sprt.Decision.H0, sprt.getDecision());
+    }
+
+    @Test
+    public void testOnlyDrawnPairsAcceptH0() {
+        Sprt sprt = createSprt();
+        addPairs(sprt, 10, 1, 0);
+        assertEquals(0.5, sprt.getMeanScore(), EPSILON);
+        assertTrue(sprt.getLlr() < 0);
+        assertEquals(Sprt.Decision.CONTINUE, sprt.getDecision());
+        addPairs(sprt, 490, 0.5, 0.5);
+        assertEquals(Sprt.Decision.H0, sprt.getDecision());
+    }
+
+    @Test
+    public void testBalancedResultsContinue() {
+        Sprt sprt = createSprt();
+        for (int i = 0; i < 25; i++) {
+            sprt.addPair(1, 0.5);
+            sprt.addPair(0, 0.5);
+            sprt.addPair(1, 0);
+            sprt.addPair(0.5, 0.5);
+        }
+        assertEquals(0.5, sprt.getMeanScore(), EPSILON);
+        assertEquals(Sprt.Decision.CONTINUE, sprt.getDecision());
+    }
+
+    @Test
+    public void testStrongResultsAcceptH1() {
+        Sprt sprt = createSprt();
+        for (int i = 0; i < 200; i++) {
+            sprt.addPair(1, 0.5);
+            sprt.addPair(1, 0);
+            sprt.addPair(0.5, 0.5);
+        }
+        assertEquals(Sprt.Decision.H1, sprt.getDecision());
+        assertTrue(sprt.getElo() > 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidElo() {
+        new Sprt(5, 0, ALPHA, BETA);
+    }
+}